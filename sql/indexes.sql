@@ -0,0 +1,11 @@
+-- Indexes backing the filtered garage and showroom queries in constants.Statement.
+
+-- GET_GARAGE_VEHICLES_BY_STATUS: a location's garage, split by pickup status
+CREATE INDEX pickup_location_ready_idx ON pickup (location_id, ready);
+
+-- GET_GARAGE_VEHICLES: repairs of the vehicles at a location, already in window order
+CREATE INDEX repairs_sn_start_idx ON repairs (serial_num, email, start_time);
+
+-- GET_SHOWROOM_VEHICLES, GET_MANUFACTURED_SHOWROOM_VEHICLES, GET_ORDERED_SHOWROOM_VEHICLES
+CREATE INDEX showroom_location_idx ON showroom (location_id, serial_num);
+CREATE INDEX vehicle_sn_manufactured_idx ON vehicle (serial_num, is_manufactured);
@@ -0,0 +1,207 @@
+-- Tables queried by constants.Statement, as found on edgar1.
+--
+-- Run against an empty database to get a local copy of the Alset schema. The embedded
+-- database profile (see connection.DataSourceConfig) runs this script, followed by
+-- indexes.sql, the first time it connects. Only types understood by both Oracle and
+-- H2 in Oracle mode are used, and only primary keys are declared, since the program
+-- checks for existing rows itself before inserting. Flags such as is_manufactured,
+-- has_damage and ready hold 'True' or 'False', and times are seconds since the epoch.
+--
+-- This is not a faithful copy of edgar1's keys and constraints. Only the keys the program
+-- relies on are declared: owner, purchases, repairs, transaction, condition and repair have
+-- no primary key or unique constraint here, and no foreign keys are declared at all. Timings
+-- measured on this schema (see the benchmark package) compare changes with each other, and
+-- do not stand for production latencies.
+
+-- customers
+CREATE TABLE customer (
+    email    VARCHAR2(320) PRIMARY KEY,
+    password VARCHAR2(100) NOT NULL
+);
+
+CREATE TABLE name (
+    first  VARCHAR2(50),
+    middle VARCHAR2(50),
+    last   VARCHAR2(50)
+);
+
+CREATE TABLE customer_name (
+    email  VARCHAR2(320) NOT NULL,
+    first  VARCHAR2(50),
+    middle VARCHAR2(50),
+    last   VARCHAR2(50)
+);
+
+CREATE TABLE address (
+    planet    VARCHAR2(50),
+    country   VARCHAR2(50),
+    state     VARCHAR2(50),
+    city      VARCHAR2(50),
+    street    VARCHAR2(100),
+    zip       VARCHAR2(20),
+    apartment VARCHAR2(20)
+);
+
+CREATE TABLE customer_address (
+    email     VARCHAR2(320) NOT NULL,
+    planet    VARCHAR2(50),
+    country   VARCHAR2(50),
+    state     VARCHAR2(50),
+    city      VARCHAR2(50),
+    street    VARCHAR2(100),
+    zip       VARCHAR2(20),
+    apartment VARCHAR2(20)
+);
+
+-- cards
+CREATE TABLE card (
+    card_num  VARCHAR2(16) PRIMARY KEY,
+    cvv       VARCHAR2(4),
+    exp_month NUMBER(2),
+    exp_year  NUMBER(4),
+    zip       VARCHAR2(20),
+    card_type VARCHAR2(20)
+);
+
+CREATE TABLE card_holder (
+    card_num VARCHAR2(16) NOT NULL,
+    first    VARCHAR2(50),
+    middle   VARCHAR2(50),
+    last     VARCHAR2(50)
+);
+
+-- staff
+CREATE TABLE product_manager (
+    password VARCHAR2(100) PRIMARY KEY
+);
+
+CREATE TABLE service_location (
+    location_id   VARCHAR2(20) PRIMARY KEY,
+    location_name VARCHAR2(100),
+    password      VARCHAR2(100)
+);
+
+CREATE TABLE service_address (
+    location_id VARCHAR2(20) NOT NULL,
+    planet      VARCHAR2(50),
+    country     VARCHAR2(50),
+    state       VARCHAR2(50),
+    city        VARCHAR2(50),
+    street      VARCHAR2(100),
+    zip         VARCHAR2(20),
+    apartment   VARCHAR2(20)
+);
+
+-- catalog
+CREATE TABLE model (
+    year        NUMBER(4),
+    name        VARCHAR2(50),
+    model_price NUMBER(12),
+    PRIMARY KEY (year, name)
+);
+
+CREATE TABLE custom_option (
+    option_name  VARCHAR2(100) PRIMARY KEY,
+    option_price NUMBER(12)
+);
+
+CREATE TABLE model_options (
+    option_name VARCHAR2(100) NOT NULL,
+    year        NUMBER(4),
+    name        VARCHAR2(50)
+);
+
+CREATE TABLE repairable (
+    location_id VARCHAR2(20) NOT NULL,
+    year        NUMBER(4),
+    name        VARCHAR2(50)
+);
+
+-- vehicles
+CREATE TABLE vehicle (
+    serial_num      VARCHAR2(20) PRIMARY KEY,
+    is_manufactured VARCHAR2(5)
+);
+
+CREATE TABLE vehicle_model (
+    serial_num VARCHAR2(20) PRIMARY KEY,
+    year       NUMBER(4),
+    name       VARCHAR2(50)
+);
+
+CREATE TABLE vehicle_options (
+    option_name VARCHAR2(100) NOT NULL,
+    serial_num  VARCHAR2(20) NOT NULL
+);
+
+CREATE TABLE owner (
+    email      VARCHAR2(320) NOT NULL,
+    serial_num VARCHAR2(20) NOT NULL
+);
+
+CREATE TABLE condition (
+    mileage         NUMBER(12),
+    last_inspection NUMBER(12),
+    has_damage      VARCHAR2(5)
+);
+
+CREATE TABLE vehicle_condition (
+    serial_num      VARCHAR2(20) PRIMARY KEY,
+    mileage         NUMBER(12),
+    last_inspection NUMBER(12),
+    has_damage      VARCHAR2(5)
+);
+
+-- sales
+CREATE TABLE transaction (
+    timestamp   NUMBER(12),
+    sales_price NUMBER(12)
+);
+
+CREATE TABLE purchases (
+    email       VARCHAR2(320) NOT NULL,
+    serial_num  VARCHAR2(20) NOT NULL,
+    timestamp   NUMBER(12),
+    sales_price NUMBER(12),
+    card_num    VARCHAR2(16)
+);
+
+CREATE TABLE showroom (
+    location_id VARCHAR2(20) NOT NULL,
+    serial_num  VARCHAR2(20) NOT NULL
+);
+
+CREATE TABLE vehicle_listing (
+    serial_num  VARCHAR2(20) PRIMARY KEY,
+    location_id VARCHAR2(20) NOT NULL,
+    price       NUMBER(12)
+);
+
+-- service
+CREATE TABLE repair (
+    start_time  NUMBER(12),
+    end_time    NUMBER(12),
+    repair_type VARCHAR2(100),
+    price       NUMBER(12)
+);
+
+CREATE TABLE repairs (
+    email       VARCHAR2(320) NOT NULL,
+    serial_num  VARCHAR2(20) NOT NULL,
+    start_time  NUMBER(12),
+    end_time    NUMBER(12),
+    repair_type VARCHAR2(100),
+    price       NUMBER(12),
+    card_num    VARCHAR2(16)
+);
+
+CREATE TABLE pickup (
+    location_id VARCHAR2(20) NOT NULL,
+    email       VARCHAR2(320) NOT NULL,
+    serial_num  VARCHAR2(20) PRIMARY KEY,
+    ready       VARCHAR2(5)
+);
+
+-- ID blocks handed out by database.IdAllocator (sequences.sql creates these on an existing database)
+CREATE SEQUENCE vehicle_sn_seq START WITH 1 INCREMENT BY 50 NOCACHE;
+CREATE SEQUENCE location_id_seq START WITH 1 INCREMENT BY 10 NOCACHE;
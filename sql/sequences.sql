@@ -0,0 +1,19 @@
+-- Sequences used by DBManager to reserve blocks of IDs (see database.IdAllocator).
+--
+-- Each NEXTVAL reserves a whole block, so the INCREMENT BY of a sequence must
+-- match the block size configured in DBManager. Both sequences start past the
+-- largest ID already in use, so this script can be run against existing data.
+
+DECLARE
+    max_sn  NUMBER;
+    max_loc NUMBER;
+BEGIN
+    SELECT NVL(MAX(TO_NUMBER(serial_num)), 0) + 1 INTO max_sn FROM vehicle;
+    SELECT NVL(MAX(TO_NUMBER(location_id)), 0) + 1 INTO max_loc FROM service_location;
+
+    EXECUTE IMMEDIATE 'CREATE SEQUENCE vehicle_sn_seq START WITH ' || max_sn ||
+                      ' INCREMENT BY 50 NOCACHE';
+    EXECUTE IMMEDIATE 'CREATE SEQUENCE location_id_seq START WITH ' || max_loc ||
+                      ' INCREMENT BY 10 NOCACHE';
+END;
+/
@@ -0,0 +1,405 @@
+package batch;
+
+import connection.ConnectionManager;
+import database.DBManager;
+import io.Csv;
+import location.ServiceLocation;
+import vehicle.Model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs product manager operations from a command file instead of the interactive menus.
+ * <p>
+ * The file holds one command per line, as comma-separated fields (fields containing commas may be
+ * double-quoted, as in CSV). Blank lines, lines starting with '#', and a header line starting with
+ * "command" are ignored. The commands are:
+ * <ul>
+ *     <li>add-model,&lt;year&gt;,&lt;name&gt;,&lt;price&gt;</li>
+ *     <li>add-option,&lt;option&gt;,&lt;price&gt;</li>
+ *     <li>model-price,&lt;year&gt;,&lt;name&gt;,&lt;price&gt;</li>
+ *     <li>option-price,&lt;option&gt;,&lt;price&gt;</li>
+ *     <li>model-option,&lt;year&gt;,&lt;name&gt;,&lt;option&gt;</li>
+ *     <li>order,&lt;location id&gt;,&lt;year&gt;,&lt;name&gt;[,&lt;option&gt;...]</li>
+ * </ul>
+ * A price of -1 means the model or option is not for sale, as in the menus. Commands are checked
+ * the same way the menus check their input, and a command failing its checks is reported and skipped.
+ * <p>
+ * Commands run in transactions of TRANSACTION_SIZE commands (see ConnectionManager#beginBatch()).
+ * If a command fails in the database, its transaction is rolled back and its commands are run again
+ * one at a time, so that only the failing commands are left out.
+ */
+public class BatchRunner {
+
+    /**
+     * Number of commands committed together
+     */
+    public static final int TRANSACTION_SIZE = 1000;
+
+    /**
+     * A command read from the file.
+     */
+    private static class Command {
+        /**
+         * Line number of command
+         */
+        private final int line;
+
+        /**
+         * Fields of command, the command's name first
+         */
+        private final String[] fields;
+
+        /**
+         * Constructs a new command
+         *
+         * @param line:   Line number of command
+         * @param fields: Fields of command
+         */
+        private Command(int line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Commands to run, in order
+     */
+    private final List<Command> commands;
+
+    /**
+     * Every model, including those added by earlier commands
+     */
+    private Set<Model> models;
+
+    /**
+     * Every option, including those added by earlier commands
+     */
+    private Set<String> options;
+
+    /**
+     * Options each model can be bought with, loaded per model on first use
+     */
+    private final Map<Model, Set<String>> modelOptions = new HashMap<>();
+
+    /**
+     * Service locations by id
+     */
+    private final Map<String, ServiceLocation> locations = new HashMap<>();
+
+    /**
+     * Number of commands applied
+     */
+    private int applied = 0;
+
+    /**
+     * Number of commands which failed
+     */
+    private int failed = 0;
+
+    /**
+     * Constructs a new BatchRunner
+     *
+     * @param commands: Commands to run
+     */
+    private BatchRunner(List<Command> commands) {
+        this.commands = commands;
+    }
+
+    /**
+     * Runs every command of a file against the connected database, printing failures as they are found.
+     *
+     * @param file: Command file
+     * @return true if every command was applied, otherwise false
+     * @throws IOException if the file could not be read
+     */
+    public static boolean run(Path file) throws IOException {
+        BatchRunner runner = new BatchRunner(read(file));
+        return runner.run();
+    }
+
+    /**
+     * Runs every command, one transaction at a time.
+     *
+     * @return true if every command was applied, otherwise false
+     */
+    private boolean run() {
+        long start = System.nanoTime();
+        if (!loadCatalog()) {
+            System.err.println("Unable to load the catalog from the database.");
+            return false;
+        }
+
+        for (int from = 0; from < commands.size(); from += TRANSACTION_SIZE) {
+            List<Command> chunk = commands.subList(from, Math.min(from + TRANSACTION_SIZE, commands.size()));
+            runTransaction(chunk);
+        }
+
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(applied + " commands applied, " + failed + " failed, in " + millis + " ms ("
+                + applied * 1000L / millis + " commands/s).");
+        return failed == 0;
+    }
+
+    /**
+     * Runs a group of commands in a single transaction. If a command fails in the database, the
+     * transaction is rolled back and the commands are run again, each in its own transaction.
+     *
+     * @param chunk: Commands to run
+     */
+    private void runTransaction(List<Command> chunk) {
+        List<String> problems = new ArrayList<>();
+        int done = 0;
+        try {
+            ConnectionManager.beginBatch();
+            for (Command command : chunk) {
+                String problem = apply(command);
+                if (problem == null) done++;
+                else problems.add("line " + command.line + ": " + problem);
+            }
+            ConnectionManager.endBatch(true);
+        } catch (SQLException e) {
+            try {
+                ConnectionManager.endBatch(false);
+            } catch (SQLException ignored) {
+                // the connection is gone, and the transaction with it
+            }
+            DBManager.invalidateCatalog();
+            if (!loadCatalog()) {
+                fail(chunk.get(0), "unable to reload the catalog (" + e.getMessage() + ")");
+                failed += chunk.size() - 1;
+                return;
+            }
+            runEach(chunk);
+            return;
+        } finally {
+            // other sessions may have cached values read before the commit
+            DBManager.invalidateCatalog();
+        }
+
+        applied += done;
+        failed += problems.size();
+        for (String problem : problems) System.err.println(problem);
+        System.out.println("Committed lines " + chunk.get(0).line + "-" + chunk.get(chunk.size() - 1).line + ".");
+    }
+
+    /**
+     * Runs commands one at a time, each committed on its own.
+     *
+     * @param chunk: Commands to run
+     */
+    private void runEach(List<Command> chunk) {
+        for (Command command : chunk) {
+            try {
+                String problem = apply(command);
+                if (problem == null) applied++;
+                else fail(command, problem);
+            } catch (SQLException e) {
+                fail(command, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reports a failed command
+     *
+     * @param command: Failed command
+     * @param problem: Reason for failure
+     */
+    private void fail(Command command, String problem) {
+        failed++;
+        System.err.println("line " + command.line + ": " + problem);
+    }
+
+    /**
+     * Loads the models, options and locations which commands are checked against.
+     *
+     * @return true if loaded, false if a database error occurred
+     */
+    private boolean loadCatalog() {
+        Set<Model> allModels = DBManager.getAllModels();
+        Set<String> allOptions = DBManager.getAllOptions();
+        Set<ServiceLocation> allLocations = DBManager.getServiceLocations();
+        if (allModels == null || allOptions == null || allLocations == null) return false;
+
+        models = new HashSet<>(allModels);
+        options = new HashSet<>(allOptions);
+        modelOptions.clear();
+        locations.clear();
+        for (ServiceLocation location : allLocations) locations.put(location.getId(), location);
+        return true;
+    }
+
+    /**
+     * Checks and applies a command.
+     *
+     * @param command: Command to apply
+     * @return null if applied, otherwise the reason the command was not applied
+     * @throws SQLException if the command failed in the database
+     */
+    private String apply(Command command) throws SQLException {
+        String[] f = command.fields;
+        switch (f[0]) {
+            case "add-model": {
+                if (f.length != 4) return "expected add-model,<year>,<name>,<price>";
+                Model model = parseModel(f[1], f[2]);
+                if (model == null) return "invalid model " + f[1] + " " + f[2];
+                if (models.contains(model)) return "model already exists";
+                Long price = parsePrice(f[3]);
+                if (price != null && price < 0) return "invalid price " + f[3];
+                check(DBManager.addModel(model.getYear(), model.getName(), price), "addModel");
+                models.add(model);
+                return null;
+            }
+            case "add-option": {
+                if (f.length != 3) return "expected add-option,<option>,<price>";
+                if (options.contains(f[1])) return "option already exists";
+                Long price = parsePrice(f[2]);
+                if (price != null && price < 0) return "invalid price " + f[2];
+                check(DBManager.addOption(f[1], price), "addOption");
+                options.add(f[1]);
+                return null;
+            }
+            case "model-price": {
+                if (f.length != 4) return "expected model-price,<year>,<name>,<price>";
+                Model model = parseModel(f[1], f[2]);
+                if (model == null || !models.contains(model)) return "unknown model " + f[1] + " " + f[2];
+                Long price = parsePrice(f[3]);
+                if (price != null && price < 0) return "invalid price " + f[3];
+                check(DBManager.updateModelPrice(model, price), "updateModelPrice");
+                return null;
+            }
+            case "option-price": {
+                if (f.length != 3) return "expected option-price,<option>,<price>";
+                if (!options.contains(f[1])) return "unknown option " + f[1];
+                Long price = parsePrice(f[2]);
+                if (price != null && price < 0) return "invalid price " + f[2];
+                check(DBManager.updateOptionPrice(f[1], price), "updateOptionPrice");
+                modelOptions.clear();
+                return null;
+            }
+            case "model-option": {
+                if (f.length != 4) return "expected model-option,<year>,<name>,<option>";
+                Model model = parseModel(f[1], f[2]);
+                if (model == null || !models.contains(model)) return "unknown model " + f[1] + " " + f[2];
+                if (!options.contains(f[3])) return "unknown option " + f[3];
+                Set<String> buyable = getModelOptions(model);
+                if (buyable.contains(f[3])) return "the model can already have this option added";
+                check(DBManager.addModelOption(model, f[3]), "addModelOption");
+                modelOptions.remove(model);
+                return null;
+            }
+            case "order": {
+                if (f.length < 4) return "expected order,<location id>,<year>,<name>[,<option>...]";
+                ServiceLocation location = locations.get(f[1]);
+                if (location == null) return "unknown location " + f[1];
+                Model model = parseModel(f[2], f[3]);
+                if (model == null || !models.contains(model)) return "unknown model " + f[2] + " " + f[3];
+                Set<String> buyable = getModelOptions(model);
+                HashSet<String> selected = new HashSet<>();
+                for (int i = 4; i < f.length; i++) {
+                    if (!buyable.contains(f[i])) return "option " + f[i] + " is not available for this model";
+                    selected.add(f[i]);
+                }
+                check(DBManager.orderShowroomVehicle(model, selected, location), "orderShowroomVehicle");
+                return null;
+            }
+            default:
+                return "unknown command " + f[0];
+        }
+    }
+
+    /**
+     * Returns the options a model can be bought with
+     *
+     * @param model: Model
+     * @return options
+     * @throws SQLException if the options could not be loaded
+     */
+    private Set<String> getModelOptions(Model model) throws SQLException {
+        Set<String> buyable = modelOptions.get(model);
+        if (buyable == null) {
+            Set<String> loaded = DBManager.getBuyableOptions(model);
+            if (loaded == null) throw new SQLException("Unable to load the options of " + model.getYear() + " " + model.getName());
+            buyable = new HashSet<>(loaded);
+            modelOptions.put(model, buyable);
+        }
+        return buyable;
+    }
+
+    /**
+     * Turns a failed database operation into an exception, so that its transaction is rolled back
+     *
+     * @param success:   Result of operation
+     * @param operation: Name of operation
+     * @throws SQLException if the operation failed
+     */
+    private static void check(boolean success, String operation) throws SQLException {
+        if (!success) throw new SQLException("DBManager." + operation + " failed");
+    }
+
+    /**
+     * Parses a model, following the rules of the add model menu: years after 2007, and
+     * names of exactly one character.
+     *
+     * @param year: Year field
+     * @param name: Name field
+     * @return model, or null if invalid
+     */
+    private static Model parseModel(String year, String name) {
+        try {
+            int y = Integer.parseInt(year);
+            if (y < 2008 || name.length() != 1) return null;
+            return new Model(y, name);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a price, where -1 stands for not for sale.
+     *
+     * @param price: Price field
+     * @return price, null if not for sale, or a negative number if invalid
+     */
+    private static Long parsePrice(String price) {
+        try {
+            long p = Long.parseLong(price);
+            if (p == -1) return null;
+            return p;
+        } catch (NumberFormatException e) {
+            return -2L;
+        }
+    }
+
+    /**
+     * Reads the commands of a file.
+     *
+     * @param file: Command file
+     * @return commands, in order
+     * @throws IOException if the file could not be read
+     */
+    private static List<Command> read(Path file) throws IOException {
+        List<Command> commands = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = Csv.split(line);
+            if (i == 0 && fields[0].equalsIgnoreCase("command")) continue;
+            fields[0] = fields[0].toLowerCase();
+            commands.add(new Command(i + 1, fields));
+        }
+        return commands;
+    }
+}
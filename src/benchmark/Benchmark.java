@@ -0,0 +1,253 @@
+package benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Small timing harness used by the benchmark programs in this package.
+ * <p>
+ * A task is run a number of warmup iterations, which are discarded, followed by
+ * a number of measured iterations whose latencies are summarized. Along with the
+ * latencies, the harness records the throughput of the measured iterations, the
+ * memory they allocated on the benchmarking thread, and the garbage collections
+ * which happened meanwhile.
+ */
+public class Benchmark {
+
+    /**
+     * Printed before results measured on an embedded database, whose schema lacks most of
+     * edgar1's keys and constraints (see sql/schema.sql)
+     */
+    public static final String EMBEDDED_NOTE =
+            "Note: measured on an embedded H2 copy of the schema, without most of edgar1's keys and " +
+                    "constraints. Compare these numbers with each other, not with production.";
+
+    /**
+     * A task which is timed by the harness.
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Runs the task once
+         *
+         * @throws Exception if the task fails
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Summary of the latencies measured for a task.
+     */
+    public static class Result {
+        /**
+         * Name of task
+         */
+        private final String name;
+
+        /**
+         * Measured latencies (in nanoseconds), sorted ascending
+         */
+        private final long[] samples;
+
+        /**
+         * Time (in nanoseconds) taken by all measured iterations together
+         */
+        private final long elapsed;
+
+        /**
+         * Bytes allocated by the measured iterations, or -1 if unknown
+         */
+        private final long allocated;
+
+        /**
+         * Number of garbage collections during the measured iterations
+         */
+        private final long gcCount;
+
+        /**
+         * Time (in milliseconds) spent collecting garbage during the measured iterations
+         */
+        private final long gcTime;
+
+        /**
+         * Constructs a new result
+         *
+         * @param name:      Name of task
+         * @param samples:   Measured latencies in nanoseconds
+         * @param elapsed:   Time taken by all measured iterations in nanoseconds
+         * @param allocated: Bytes allocated by the measured iterations, or -1 if unknown
+         * @param gcCount:   Number of garbage collections during the measured iterations
+         * @param gcTime:    Time spent collecting garbage in milliseconds
+         */
+        private Result(String name, long[] samples, long elapsed, long allocated, long gcCount, long gcTime) {
+            this.name = name;
+            this.samples = samples.clone();
+            Arrays.sort(this.samples);
+            this.elapsed = elapsed;
+            this.allocated = allocated;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+        }
+
+        /**
+         * Returns the latency at a given percentile
+         *
+         * @param p: Percentile, between 0 and 100
+         * @return latency in nanoseconds
+         */
+        public long percentile(double p) {
+            if (samples.length == 0) return 0;
+            int i = (int) Math.ceil(p / 100.0 * samples.length) - 1;
+            return samples[Math.max(0, Math.min(samples.length - 1, i))];
+        }
+
+        /**
+         * Returns the mean latency
+         *
+         * @return mean latency in nanoseconds
+         */
+        public long mean() {
+            if (samples.length == 0) return 0;
+            long total = 0;
+            for (long sample : samples) total += sample;
+            return total / samples.length;
+        }
+
+        /**
+         * Returns the number of iterations completed per second
+         *
+         * @return throughput
+         */
+        public double throughput() {
+            if (elapsed == 0) return 0;
+            return samples.length * 1e9 / elapsed;
+        }
+
+        /**
+         * Returns the number of bytes allocated per iteration
+         *
+         * @return allocated bytes per iteration, or -1 if unknown
+         */
+        public long allocatedPerOp() {
+            if (allocated < 0 || samples.length == 0) return -1;
+            return allocated / samples.length;
+        }
+
+        /**
+         * Returns the number of garbage collections during the measured iterations
+         *
+         * @return garbage collections
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * Returns the time spent collecting garbage during the measured iterations
+         *
+         * @return time in milliseconds
+         */
+        public long getGcTime() {
+            return gcTime;
+        }
+
+        /**
+         * Returns the name of the task
+         *
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns a one-line summary of the result, in microseconds
+         *
+         * @return summary
+         */
+        @Override
+        public String toString() {
+            return String.format("%-32s n=%-5d ops/s=%9.1f mean=%8dus p50=%8dus p95=%8dus p99=%8dus max=%8dus alloc=%9dB/op gc=%d (%dms)",
+                    name, samples.length, throughput(), mean() / 1000, percentile(50) / 1000,
+                    percentile(95) / 1000, percentile(99) / 1000, percentile(100) / 1000,
+                    allocatedPerOp(), gcCount, gcTime);
+        }
+    }
+
+    /**
+     * Private constructor of Benchmark
+     */
+    private Benchmark() {
+    }
+
+    /**
+     * Times a task.
+     *
+     * @param name:       Name of task
+     * @param warmup:     Number of iterations to run before measuring
+     * @param iterations: Number of measured iterations
+     * @param task:       Task to time
+     * @return summary of measured latencies
+     * @throws Exception if the task fails
+     */
+    public static Result run(String name, int warmup, int iterations, Task task) throws Exception {
+        for (int i = 0; i < warmup; i++) task.run();
+        long[] samples = new long[iterations];
+
+        long allocatedBefore = allocatedBytes();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocatedAfter = allocatedBytes();
+
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return new Result(name, samples, elapsed, allocated, gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread
+     *
+     * @return allocated bytes, or -1 if the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return -1;
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the number of garbage collections so far, across all collectors
+     *
+     * @return garbage collections
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the time spent collecting garbage so far, across all collectors
+     *
+     * @return time in milliseconds
+     */
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
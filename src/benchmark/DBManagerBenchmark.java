@@ -0,0 +1,275 @@
+package benchmark;
+
+import card.Card;
+import connection.ConnectionManager;
+import connection.DataSourceConfig;
+import database.DBManager;
+import database.TransactionCursor;
+import location.ServiceLocation;
+import location.ServiceManager;
+import session.Session;
+import user.User;
+import user.UserManager;
+import vehicle.Model;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Benchmarks the DBManager methods behind the program's busiest flows, against embedded
+ * databases filled by DataGenerator at several sizes.
+ * <p>
+ * For every dataset size, each method is run against realistic inputs (the customer owning
+ * the most vehicles, the busiest garage, the most common model) and its throughput, latency
+ * percentiles, allocation per call and garbage collections are printed (see Benchmark.Result).
+ * Methods served from DBManager's caches are measured twice: as cache hits, and with the cache
+ * dropped before every call so that the query behind it is timed too. purchaseVehicle runs in a
+ * batch which is rolled back after every call, so the dataset is the same on every run; its time
+ * includes the rollback in place of a commit.
+ * <p>
+ * Usage: DBManagerBenchmark [key=value ...], where the keys are
+ * <ul>
+ *     <li>scales: comma-separated customer counts, one database each (default 1000,10000)</li>
+ *     <li>iterations: measured calls per method (default 200)</li>
+ *     <li>warmup: discarded calls per method (default 50)</li>
+ *     <li>dir: directory holding the databases (default ./data)</li>
+ * </ul>
+ * Each database is ten vehicles per customer, and is generated on first use and kept for
+ * later runs, with lib/h2.jar on the classpath (see connection.DataSourceConfig).
+ */
+public class DBManagerBenchmark {
+
+    /**
+     * Finds the customer owning the most vehicles
+     */
+    private static final String BUSIEST_CUSTOMER =
+            "SELECT c.email, c.password, COUNT(*) AS vehicles " +
+                    "FROM customer c JOIN owner o ON o.email = c.email " +
+                    "GROUP BY c.email, c.password " +
+                    "ORDER BY vehicles DESC, c.email " +
+                    "FETCH FIRST 1 ROWS ONLY";
+
+    /**
+     * Finds the service location with the most vehicles in its garage
+     */
+    private static final String BUSIEST_LOCATION =
+            "SELECT l.password, COUNT(*) AS vehicles " +
+                    "FROM service_location l JOIN pickup p ON p.location_id = l.location_id " +
+                    "GROUP BY l.location_id, l.password " +
+                    "ORDER BY vehicles DESC, l.location_id " +
+                    "FETCH FIRST 1 ROWS ONLY";
+
+    /**
+     * Finds the model owned most often
+     */
+    private static final String MOST_COMMON_MODEL =
+            "SELECT year, name, COUNT(*) AS vehicles " +
+                    "FROM vehicle_model " +
+                    "GROUP BY year, name " +
+                    "ORDER BY vehicles DESC, year, name " +
+                    "FETCH FIRST 1 ROWS ONLY";
+
+    /**
+     * Default settings, overridden by key=value arguments
+     */
+    private static final Map<String, String> DEFAULTS = new HashMap<>();
+
+    static {
+        DEFAULTS.put("scales", "1000,10000");
+        DEFAULTS.put("iterations", "200");
+        DEFAULTS.put("warmup", "50");
+        DEFAULTS.put("dir", "./data");
+    }
+
+    /**
+     * Private constructor of DBManagerBenchmark
+     */
+    private DBManagerBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args: key=value settings, see DEFAULTS
+     * @throws Exception if the benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 0 || !DEFAULTS.containsKey(arg.substring(0, split))) {
+                System.err.println("Usage: DBManagerBenchmark [key=value ...], keys: " + DEFAULTS.keySet());
+                System.exit(1);
+            }
+            settings.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+        int iterations = Integer.parseInt(settings.get("iterations"));
+        int warmup = Integer.parseInt(settings.get("warmup"));
+        System.out.println(Benchmark.EMBEDDED_NOTE);
+        System.out.println();
+
+        for (String scale : settings.get("scales").split(",")) {
+            long customers = Long.parseLong(scale.trim());
+            DataSourceConfig source = DataSourceConfig.embedded(settings.get("dir") + "/bench-" + customers);
+            if (ConnectionManager.createConnection(source) == null) {
+                System.err.println("Unable to connect to " + source);
+                System.exit(1);
+            }
+
+            try {
+                // generate the dataset on first use
+                Map<String, String> overrides = new HashMap<>();
+                overrides.put("customers", String.valueOf(customers));
+                overrides.put("vehicles", String.valueOf(customers * 10));
+                if (DataGenerator.fillIfEmpty(overrides)) System.out.println();
+
+                // cached catalog values belong to the previous dataset
+                DBManager.invalidateCatalog();
+
+                System.out.println("== " + customers + " customers, " + customers * 10 + " vehicles ==");
+                List<Benchmark.Result> results = new ArrayList<>();
+                Session session = new Session(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+                Exception[] failure = new Exception[1];
+                session.run(() -> {
+                    try {
+                        results.addAll(runAll(warmup, iterations));
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) throw failure[0];
+                for (Benchmark.Result result : results) System.out.println(result);
+                System.out.println();
+            } finally {
+                ConnectionManager.closeConnection();
+            }
+        }
+    }
+
+    /**
+     * Benchmarks every method against the connected database. Must run inside a session,
+     * since logging in and purchasing keep their state there.
+     *
+     * @param warmup:     Discarded calls per method
+     * @param iterations: Measured calls per method
+     * @return results, one per method
+     * @throws Exception if a method fails
+     */
+    private static List<Benchmark.Result> runAll(int warmup, int iterations) throws Exception {
+        // pick inputs
+        String[] customer = querySingle(BUSIEST_CUSTOMER, "email", "password");
+        String[] location = querySingle(BUSIEST_LOCATION, "password");
+        String[] common = querySingle(MOST_COMMON_MODEL, "year", "name");
+        String email = customer[0];
+        String password = customer[1];
+        Model model = new Model(Integer.parseInt(common[0]), common[1]);
+
+        // log in as the customer and the garage, as the menus would
+        if (!UserManager.login(email, password)) throw new IllegalStateException("Could not log in as " + email);
+        ServiceLocation garage = DBManager.getServiceLocation(location[0]);
+        if (garage == null) throw new IllegalStateException("Could not find a busy service location");
+        ServiceManager.setCurrent(garage);
+        User user = UserManager.getCurrent();
+        Set<Card> cards = DBManager.getCards(email);
+        if (cards == null || cards.isEmpty()) throw new IllegalStateException(email + " has no cards");
+        Card card = cards.iterator().next();
+        Set<String> options = DBManager.getBuyableOptions(model);
+        HashSet<String> purchased = new HashSet<>();
+        if (options != null && !options.isEmpty()) purchased.add(options.iterator().next());
+
+        List<Benchmark.Result> results = new ArrayList<>();
+
+        // logging in
+        results.add(Benchmark.run("validLoginData", warmup, iterations,
+                () -> check(DBManager.validLoginData(email, password))));
+        results.add(Benchmark.run("login", warmup, iterations,
+                () -> check(UserManager.login(email, password))));
+        results.add(Benchmark.run("getVehicles", warmup, iterations,
+                () -> check(DBManager.getVehicles(email) != null)));
+        results.add(Benchmark.run("getCards", warmup, iterations,
+                () -> check(DBManager.getCards(email) != null)));
+
+        // customer pages
+        results.add(Benchmark.run("getTransactionPage", warmup, iterations,
+                () -> check(DBManager.getTransactionPage(new TransactionCursor(email, 20)) != null)));
+        results.add(Benchmark.run("getServiceLocations (cached)", warmup, iterations,
+                () -> check(DBManager.getServiceLocations() != null)));
+        results.add(Benchmark.run("getServiceLocations (uncached)", warmup, iterations, () -> {
+            DBManager.invalidateLocations();
+            check(DBManager.getServiceLocations() != null);
+        }));
+        results.add(Benchmark.run("getAllModels (cached)", warmup, iterations,
+                () -> check(DBManager.getAllModels() != null)));
+        results.add(Benchmark.run("getAllModels (uncached)", warmup, iterations, () -> {
+            DBManager.invalidateCatalog();
+            check(DBManager.getAllModels() != null);
+        }));
+        results.add(Benchmark.run("getBuyableOptions (cached)", warmup, iterations,
+                () -> check(DBManager.getBuyableOptions(model) != null)));
+        results.add(Benchmark.run("getBuyableOptions (uncached)", warmup, iterations, () -> {
+            DBManager.invalidateCatalog();
+            check(DBManager.getBuyableOptions(model) != null);
+        }));
+
+        // garage and product manager pages
+        results.add(Benchmark.run("getGarageData", warmup, iterations,
+                () -> check(DBManager.getGarageData(garage) != null)));
+        results.add(Benchmark.run("getShowroomVehicles", warmup, iterations,
+                () -> check(DBManager.getShowroomVehicles(garage) != null)));
+        results.add(Benchmark.run("getVehicleListings", warmup, iterations,
+                () -> check(DBManager.getVehicleListings() != null)));
+        results.add(Benchmark.run("getRecallEmails", warmup, iterations,
+                () -> check(DBManager.getRecallEmails(model, purchased, null, 500) != null)));
+
+        // writes, rolled back so that the dataset does not grow from run to run
+        Long price = DBManager.getModelCost(model);
+        results.add(Benchmark.run("purchaseVehicle", warmup, iterations, () -> {
+            ConnectionManager.beginBatch();
+            try {
+                check(DBManager.purchaseVehicle(model, purchased, garage, card, price, user));
+            } finally {
+                ConnectionManager.endBatch(false);
+            }
+        }));
+        return results;
+    }
+
+    /**
+     * Fails the benchmark if a call reported failure, so that failing calls are not measured as fast ones
+     *
+     * @param ok: true if the call succeeded
+     */
+    private static void check(boolean ok) {
+        if (!ok) throw new IllegalStateException("Benchmarked call failed");
+    }
+
+    /**
+     * Runs a query and returns the given columns of its first row
+     *
+     * @param sql:     Query to run
+     * @param columns: Columns to return
+     * @return values of columns
+     * @throws SQLException if a database access error occurs, or the query returns no rows
+     */
+    private static String[] querySingle(String sql, String... columns) throws SQLException {
+        PreparedStatement s = ConnectionManager.prepareStatement(sql);
+        ResultSet rs = s.executeQuery();
+        if (!rs.next()) {
+            s.close();
+            throw new SQLException("No rows returned by " + sql);
+        }
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) values[i] = rs.getString(columns[i]);
+        s.close();
+        return values;
+    }
+}
@@ -0,0 +1,767 @@
+package benchmark;
+
+import connection.ConnectionManager;
+import connection.DataSourceConfig;
+import constants.Statement;
+import database.DBManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills an empty Alset database with synthetic data, so that DBManager can be measured
+ * against production-sized tables.
+ * <p>
+ * Popularity is skewed: a few customers own many vehicles, a few models and options make up
+ * most sales, a few service locations hold most garage vehicles, and a few vehicles get most
+ * repairs. Every value is derived from the seed and the row number alone, so rows are generated
+ * in parallel ranges by several threads, each inserting through JDBC batches on its own pooled
+ * connection, and the same settings always produce the same data.
+ * <p>
+ * Usage: DataGenerator [key=value ...], connecting to the configured database
+ * (see connection.DataSourceConfig). Keys and their defaults:
+ * <ul>
+ *     <li>customers=1000, vehicles=10000, locations=20, models=20, options=30,
+ *     optionsPerModel=8, repairsPerLocation=500: number of rows generated</li>
+ *     <li>owned=0.9: fraction of vehicles owned by customers, the rest are in showrooms or listed</li>
+ *     <li>pickups=0.01: fraction of owned vehicles currently in a garage</li>
+ *     <li>listings=0.3: fraction of unowned vehicles listed for sale rather than in a showroom</li>
+ *     <li>skew=2.0: 1 spreads popularity evenly, higher values concentrate it on fewer rows</li>
+ *     <li>threads=4, batch=1000, seed=42</li>
+ * </ul>
+ * With customers=1000000 and vehicles=10000000 the generated dataset has roughly 100M rows.
+ */
+public class DataGenerator {
+
+    /**
+     * Used for adding a new row into product_manager
+     */
+    private static final String ADD_PRODUCT_MANAGER =
+            "INSERT INTO product_manager (password) " +
+                    "VALUES (?)";
+
+    /**
+     * Used for checking that the database holds no vehicles yet
+     */
+    private static final String COUNT_VEHICLES =
+            "SELECT COUNT(*) AS n " +
+                    "FROM vehicle";
+
+    /**
+     * Names of generated models, combined with consecutive years
+     */
+    private static final String[] MODEL_NAMES = {
+            "Model S", "Model 3", "Model X", "Model Y", "Roadster", "Cybertruck", "Semi"
+    };
+
+    /**
+     * First year of generated models
+     */
+    private static final int FIRST_MODEL_YEAR = 2012;
+
+    /**
+     * Names of generated options, numbered once they run out
+     */
+    private static final String[] OPTION_NAMES = {
+            "Autopilot", "Full Self-Driving", "Premium Interior", "Sport Wheels", "Tow Hitch",
+            "Heated Seats", "Glass Roof", "Performance Upgrade", "Premium Audio", "Air Suspension",
+            "Third Row Seating", "Extended Battery"
+    };
+
+    /**
+     * First names of generated customers
+     */
+    private static final String[] FIRST_NAMES = {
+            "Alex", "Blake", "Casey", "Dana", "Emery", "Finley", "Gray", "Harper", "Indigo", "Jordan",
+            "Kai", "Logan", "Morgan", "Noel", "Oakley", "Parker", "Quinn", "Riley", "Sage", "Taylor"
+    };
+
+    /**
+     * Last names of generated customers
+     */
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Lopez", "Wilson",
+            "Anderson", "Thomas", "Moore", "Martin", "Lee", "Thompson", "White", "Harris", "Clark", "Lewis"
+    };
+
+    /**
+     * Cities of generated service locations, along with their states
+     */
+    private static final String[][] CITIES = {
+            {"Bethlehem", "PA"}, {"Allentown", "PA"}, {"Philadelphia", "PA"}, {"New York", "NY"},
+            {"Boston", "MA"}, {"Chicago", "IL"}, {"Austin", "TX"}, {"Denver", "CO"},
+            {"Seattle", "WA"}, {"San Jose", "CA"}, {"Miami", "FL"}, {"Atlanta", "GA"}
+    };
+
+    /**
+     * Types of generated repairs
+     */
+    private static final String[] REPAIR_TYPES = {
+            "Inspection", "Tire Rotation", "Brake Service", "Battery Service", "Body Work",
+            "Windshield Replacement", "Software Update", "Suspension Repair"
+    };
+
+    /**
+     * Number of seconds in a day
+     */
+    private static final long DAY = 24 * 60 * 60L;
+
+    /**
+     * Number of seconds in a year
+     */
+    private static final long YEAR = 365 * DAY;
+
+    /**
+     * Random stream deciding the owner of a vehicle
+     */
+    private static final int OWNER = 1;
+
+    /**
+     * Random stream deciding the model of a vehicle
+     */
+    private static final int MODEL = 2;
+
+    /**
+     * Random stream deciding the other values of a vehicle
+     */
+    private static final int VEHICLE = 3;
+
+    /**
+     * Random stream deciding the values of a customer
+     */
+    private static final int CUSTOMER = 4;
+
+    /**
+     * Random stream deciding the values of a repair
+     */
+    private static final int REPAIR = 5;
+
+    /**
+     * Settings and their defaults
+     */
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("customers", "1000");
+        DEFAULTS.put("vehicles", "10000");
+        DEFAULTS.put("locations", "20");
+        DEFAULTS.put("models", "20");
+        DEFAULTS.put("options", "30");
+        DEFAULTS.put("optionsPerModel", "8");
+        DEFAULTS.put("repairsPerLocation", "500");
+        DEFAULTS.put("owned", "0.9");
+        DEFAULTS.put("pickups", "0.01");
+        DEFAULTS.put("listings", "0.3");
+        DEFAULTS.put("skew", "2.0");
+        DEFAULTS.put("threads", "4");
+        DEFAULTS.put("batch", "1000");
+        DEFAULTS.put("seed", "42");
+    }
+
+    /**
+     * Inserts the rows derived from a row number.
+     */
+    private interface RowWriter {
+        /**
+         * Adds the rows derived from a row number to a batch
+         *
+         * @param i:     Row number
+         * @param batch: Batch to add rows to
+         * @throws SQLException if a database access error occurs
+         */
+        void write(long i, Batch batch) throws SQLException;
+    }
+
+    /**
+     * Batches of inserts made by a single thread, executed and committed together.
+     */
+    private final class Batch {
+        /**
+         * Statements being batched, in the order they were first used
+         */
+        private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>();
+
+        /**
+         * Number of rows waiting to be executed
+         */
+        private int pending = 0;
+
+        /**
+         * Adds a row to the batch of a statement, executing every batch once enough rows are waiting.
+         *
+         * @param sql:    Statement inserting the row
+         * @param params: Parameters of statement
+         * @throws SQLException if a database access error occurs
+         */
+        private void add(String sql, Object... params) throws SQLException {
+            PreparedStatement s = statements.get(sql);
+            if (s == null) {
+                s = ConnectionManager.prepareStatement(sql);
+                statements.put(sql, s);
+            }
+            for (int i = 0; i < params.length; i++) s.setObject(i + 1, params[i]);
+            s.addBatch();
+            rows.increment();
+            if (++pending >= batchSize) flush();
+        }
+
+        /**
+         * Executes and commits every waiting row
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        private void flush() throws SQLException {
+            if (pending == 0) return;
+            for (PreparedStatement s : statements.values()) s.executeBatch();
+            ConnectionManager.commit();
+            pending = 0;
+        }
+
+        /**
+         * Executes every waiting row, and closes the batch's statements
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        private void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                for (PreparedStatement s : statements.values()) s.close();
+                statements.clear();
+            }
+        }
+    }
+
+    /**
+     * Number of customers
+     */
+    private final int customers;
+
+    /**
+     * Number of vehicles
+     */
+    private final long vehicles;
+
+    /**
+     * Number of service locations
+     */
+    private final int locations;
+
+    /**
+     * Number of models
+     */
+    private final int models;
+
+    /**
+     * Number of options
+     */
+    private final int options;
+
+    /**
+     * Number of options offered for each model
+     */
+    private final int optionsPerModel;
+
+    /**
+     * Number of repairs per service location
+     */
+    private final int repairsPerLocation;
+
+    /**
+     * Fraction of vehicles owned by customers
+     */
+    private final double ownedFraction;
+
+    /**
+     * Fraction of owned vehicles currently in a garage
+     */
+    private final double pickupRate;
+
+    /**
+     * Fraction of unowned vehicles listed for sale
+     */
+    private final double listingRate;
+
+    /**
+     * How strongly popularity is concentrated on the first rows, 1 being even
+     */
+    private final double skew;
+
+    /**
+     * Number of threads inserting rows
+     */
+    private final int threads;
+
+    /**
+     * Number of rows inserted per batch
+     */
+    private final int batchSize;
+
+    /**
+     * Seed which every value is derived from
+     */
+    private final long seed;
+
+    /**
+     * Number of vehicles owned by customers, which are the vehicles numbered below it
+     */
+    private final long owned;
+
+    /**
+     * Time (in seconds) which generated times lead up to
+     */
+    private final long now = System.currentTimeMillis() / 1000L;
+
+    /**
+     * Number of rows inserted so far
+     */
+    private final LongAdder rows = new LongAdder();
+
+    /**
+     * Constructs a new DataGenerator
+     *
+     * @param settings: Settings, see DEFAULTS
+     */
+    private DataGenerator(Map<String, String> settings) {
+        this.customers = Integer.parseInt(settings.get("customers"));
+        this.vehicles = Long.parseLong(settings.get("vehicles"));
+        this.locations = Integer.parseInt(settings.get("locations"));
+        this.models = Math.min(Integer.parseInt(settings.get("models")), MODEL_NAMES.length * 20);
+        this.options = Integer.parseInt(settings.get("options"));
+        this.optionsPerModel = Math.min(Integer.parseInt(settings.get("optionsPerModel")), options);
+        this.repairsPerLocation = Integer.parseInt(settings.get("repairsPerLocation"));
+        this.ownedFraction = Double.parseDouble(settings.get("owned"));
+        this.pickupRate = Double.parseDouble(settings.get("pickups"));
+        this.listingRate = Double.parseDouble(settings.get("listings"));
+        this.skew = Double.parseDouble(settings.get("skew"));
+        this.threads = Integer.parseInt(settings.get("threads"));
+        this.batchSize = Integer.parseInt(settings.get("batch"));
+        this.seed = Long.parseLong(settings.get("seed"));
+        this.owned = customers == 0 ? 0 : (long) (vehicles * ownedFraction);
+    }
+
+    /**
+     * Runs the generator
+     *
+     * @param args: Settings, as key=value pairs
+     * @throws Exception if generating fails
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !DEFAULTS.containsKey(arg.substring(0, eq))) {
+                System.err.println("Usage: DataGenerator [key=value ...], keys: " + DEFAULTS.keySet());
+                System.exit(1);
+            }
+            settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        DataSourceConfig source = ConnectionManager.getConfig();
+        if (!source.hasCredentials() || ConnectionManager.createConnection(source) == null) {
+            System.err.println("Unable to connect to " + source + ", check the alset.db.* settings.");
+            System.exit(1);
+        }
+
+        try {
+            if (countVehicles() > 0) {
+                System.err.println("The database already holds vehicles, DataGenerator only fills an empty database.");
+                return;
+            }
+            new DataGenerator(settings).run();
+        } finally {
+            ConnectionManager.closeConnection();
+        }
+    }
+
+    /**
+     * Fills the connected database, unless it already holds vehicles.
+     *
+     * @param overrides: Settings differing from the defaults, see DEFAULTS
+     * @return true if the database was filled, false if it already held vehicles
+     * @throws Exception if generating fails
+     */
+    static boolean fillIfEmpty(Map<String, String> overrides) throws Exception {
+        if (countVehicles() > 0) return false;
+        Map<String, String> settings = new HashMap<>(DEFAULTS);
+        settings.putAll(overrides);
+        new DataGenerator(settings).run();
+        return true;
+    }
+
+    /**
+     * Generates every table, one group of tables at a time.
+     *
+     * @throws Exception if generating fails
+     */
+    private void run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            generate(executor, "catalog & locations", 1, (i, b) -> writeCatalog(b));
+            generate(executor, "customers", customers, this::writeCustomer);
+            generate(executor, "vehicles", vehicles, this::writeVehicle);
+            if (owned > 0) generate(executor, "repairs", (long) locations * repairsPerLocation, this::writeRepair);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // let the program's ID sequences continue past the generated IDs
+        restartSequence("vehicle_sn_seq", vehicles + 1, DBManager.SN_BLOCK_SIZE);
+        restartSequence("location_id_seq", locations + 1, DBManager.LOCATION_ID_BLOCK_SIZE);
+        System.out.println("Done, " + rows.sum() + " rows in total.");
+    }
+
+    /**
+     * Generates the rows derived from a range of row numbers, split into chunks inserted in parallel.
+     *
+     * @param executor: Threads inserting the chunks
+     * @param name:     Name of what is generated
+     * @param count:    Number of row numbers
+     * @param writer:   Inserts the rows derived from a row number
+     * @throws Exception if generating fails
+     */
+    private void generate(ExecutorService executor, String name, long count, RowWriter writer) throws Exception {
+        long start = System.nanoTime();
+        long before = rows.sum();
+        long chunk = Math.max(batchSize, count / (threads * 8L) + 1);
+
+        List<Future<?>> chunks = new ArrayList<>();
+        for (long from = 0; from < count; from += chunk) {
+            long first = from;
+            long last = Math.min(count, from + chunk);
+            chunks.add(executor.submit(() -> {
+                Batch batch = new Batch();
+                try {
+                    for (long i = first; i < last; i++) writer.write(i, batch);
+                    batch.close();
+                } finally {
+                    ConnectionManager.releaseConnection();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : chunks) f.get();
+
+        long inserted = rows.sum() - before;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-20s %,12d rows %8.1fs %,10.0f rows/s%n", name, inserted, seconds, inserted / seconds);
+    }
+
+    /**
+     * Inserts the models, options and service locations.
+     *
+     * @param b: Batch to add rows to
+     * @throws SQLException if a database access error occurs
+     */
+    private void writeCatalog(Batch b) throws SQLException {
+        b.add(ADD_PRODUCT_MANAGER, "admin");
+        for (int o = 0; o < options; o++) {
+            b.add(Statement.ADD_OPTION, optionName(o), optionPrice(o));
+        }
+        for (int m = 0; m < models; m++) {
+            b.add(Statement.ADD_MODEL, modelYear(m), modelName(m), modelPrice(m));
+            for (int k = 0; k < optionsPerModel; k++) {
+                b.add(Statement.INSERT_MODEL_OPTION, optionName(modelOption(m, k)), modelYear(m), modelName(m));
+            }
+        }
+        for (int l = 0; l < locations; l++) {
+            String id = locationId(l);
+            String[] city = CITIES[l % CITIES.length];
+            b.add(Statement.INSERT_LOCATION, "Alset " + city[0] + " " + (l + 1), id, "location" + (l + 1));
+            b.add(Statement.INSERT_SERVICE_ADDRESS, id, "Earth", "USA", city[1], city[0],
+                    (l + 1) + " Main St", String.format("%05d", 10000 + l), "");
+
+            // every location repairs about two thirds of the models
+            for (int m = 0; m < models; m++) {
+                if ((m + l) % 3 != 0) b.add(Statement.ADD_REPAIRABLE_MODEL, id, modelYear(m), modelName(m));
+            }
+        }
+    }
+
+    /**
+     * Inserts a customer, along with their name and card.
+     *
+     * @param c: Customer number
+     * @param b: Batch to add rows to
+     * @throws SQLException if a database access error occurs
+     */
+    private void writeCustomer(long c, Batch b) throws SQLException {
+        SplittableRandom rng = random(CUSTOMER, c);
+        String email = email(c);
+        String first = FIRST_NAMES[rng.nextInt(FIRST_NAMES.length)];
+        String middle = FIRST_NAMES[rng.nextInt(FIRST_NAMES.length)];
+        // numbered, so that every customer has a distinct name
+        String last = LAST_NAMES[rng.nextInt(LAST_NAMES.length)] + "-" + c;
+
+        b.add(Statement.INSERT_CUSTOMER, email, "password" + c);
+        b.add(Statement.INSERT_NAME, first, middle, last);
+        b.add(Statement.INSERT_CUSTOMER_NAME, email, first, middle, last);
+        b.add(Statement.INSERT_CARD, cardNum(c), String.format("%03d", rng.nextInt(1000)),
+                1 + rng.nextInt(12), 2025 + rng.nextInt(6), String.format("%05d", rng.nextInt(100000)),
+                rng.nextBoolean() ? "Credit" : "Debit");
+        b.add(Statement.INSERT_CARD_HOLDER, cardNum(c), first, middle, last);
+    }
+
+    /**
+     * Inserts a vehicle with its model, options and condition. An owned vehicle also gets its
+     * purchase, and possibly a spot in a garage. Any other vehicle is placed in a showroom or listed.
+     *
+     * @param v: Vehicle number
+     * @param b: Batch to add rows to
+     * @throws SQLException if a database access error occurs
+     */
+    private void writeVehicle(long v, Batch b) throws SQLException {
+        SplittableRandom rng = random(VEHICLE, v);
+        String sn = serialNum(v);
+        int m = skewed(random(MODEL, v), models);
+        boolean isOwned = v < owned;
+        boolean manufactured = isOwned || rng.nextDouble() < 0.8;
+
+        b.add(Statement.ADD_VEHICLE, sn, manufactured ? "True" : "False");
+        b.add(Statement.ADD_VEHICLE_MODEL, sn, modelYear(m), modelName(m));
+
+        // a few options, mostly the popular ones of the model
+        long price = modelPrice(m);
+        int optionCount = skewed(rng, optionsPerModel + 1);
+        int firstOption = skewed(rng, optionsPerModel);
+        for (int k = 0; k < optionCount; k++) {
+            int o = modelOption(m, (firstOption + k) % optionsPerModel);
+            b.add(Statement.ADD_VEHICLE_OPTION, optionName(o), sn);
+            price += optionPrice(o);
+        }
+
+        long mileage = isOwned ? rng.nextLong(150_000) : 0;
+        long inspected = now - rng.nextLong(2 * YEAR);
+        String damaged = rng.nextDouble() < 0.05 ? "True" : "False";
+        b.add(Statement.INSERT_CONDITION, mileage, inspected, damaged);
+        b.add(Statement.INSERT_VEHICLE_CONDITION, sn, mileage, inspected, damaged);
+
+        if (isOwned) {
+            long c = ownerOf(v);
+            long bought = now - rng.nextLong(5 * YEAR);
+            b.add(Statement.ADD_OWNER, email(c), sn);
+            b.add(Statement.ADD_TRANSACTION, bought, price);
+            b.add(Statement.ADD_PURCHASE, email(c), sn, bought, price, cardNum(c));
+            if (rng.nextDouble() < pickupRate) {
+                b.add(Statement.ADD_GARAGE_VEHICLE, locationId(skewed(rng, locations)), email(c), sn,
+                        rng.nextBoolean() ? "True" : "False");
+            }
+        } else if (rng.nextDouble() < listingRate) {
+            b.add(Statement.ADD_LISTING, sn, locationId(skewed(rng, locations)), price * (50 + rng.nextInt(40)) / 100);
+        } else {
+            b.add(Statement.ADD_SHOWROOM_VEHICLE, locationId(skewed(rng, locations)), sn);
+        }
+    }
+
+    /**
+     * Inserts a repair of an owned vehicle, mostly of the vehicles repaired often.
+     *
+     * @param r: Repair number
+     * @param b: Batch to add rows to
+     * @throws SQLException if a database access error occurs
+     */
+    private void writeRepair(long r, Batch b) throws SQLException {
+        SplittableRandom rng = random(REPAIR, r);
+        long v = skewed(rng, owned);
+        long start = now - rng.nextLong(2 * YEAR);
+        b.add(Statement.START_VEHICLE_REPAIR, email(ownerOf(v)), serialNum(v), start,
+                start + DAY * (1 + rng.nextInt(14)), REPAIR_TYPES[rng.nextInt(REPAIR_TYPES.length)],
+                100L + rng.nextInt(4900));
+    }
+
+    /**
+     * Returns the random stream of a kind of value for a row number. The same stream
+     * is returned for the same row on every thread and every run with the same seed.
+     *
+     * @param kind: Kind of value
+     * @param i:    Row number
+     * @return random stream
+     */
+    private SplittableRandom random(int kind, long i) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + kind * 0xBF58476D1CE4E5B9L + i);
+    }
+
+    /**
+     * Picks a number below n, with lower numbers picked more often the higher the skew is.
+     *
+     * @param rng: Random stream
+     * @param n:   Number of choices
+     * @return number picked
+     */
+    private int skewed(SplittableRandom rng, int n) {
+        return (int) skewed(rng, (long) n);
+    }
+
+    /**
+     * Picks a number below n, with lower numbers picked more often the higher the skew is.
+     *
+     * @param rng: Random stream
+     * @param n:   Number of choices
+     * @return number picked
+     */
+    private long skewed(SplittableRandom rng, long n) {
+        if (n <= 1) return 0;
+        return Math.min(n - 1, (long) (n * Math.pow(rng.nextDouble(), skew)));
+    }
+
+    /**
+     * Returns the customer owning an owned vehicle
+     *
+     * @param v: Vehicle number
+     * @return customer number
+     */
+    private long ownerOf(long v) {
+        return skewed(random(OWNER, v), (long) customers);
+    }
+
+    /**
+     * Returns the email of a customer
+     *
+     * @param c: Customer number
+     * @return email
+     */
+    private static String email(long c) {
+        return "customer" + c + "@example.com";
+    }
+
+    /**
+     * Returns the card number of a customer
+     *
+     * @param c: Customer number
+     * @return card number
+     */
+    private static String cardNum(long c) {
+        return String.format("4%015d", c);
+    }
+
+    /**
+     * Returns the serial number of a vehicle
+     *
+     * @param v: Vehicle number
+     * @return serial number
+     */
+    private static String serialNum(long v) {
+        return String.valueOf(v + 1);
+    }
+
+    /**
+     * Returns the id of a service location
+     *
+     * @param l: Location number
+     * @return location id
+     */
+    private static String locationId(int l) {
+        return String.valueOf(l + 1);
+    }
+
+    /**
+     * Returns the name of a model
+     *
+     * @param m: Model number
+     * @return model name
+     */
+    private static String modelName(int m) {
+        return MODEL_NAMES[m % MODEL_NAMES.length];
+    }
+
+    /**
+     * Returns the year of a model
+     *
+     * @param m: Model number
+     * @return model year
+     */
+    private static int modelYear(int m) {
+        return FIRST_MODEL_YEAR + m / MODEL_NAMES.length;
+    }
+
+    /**
+     * Returns the price of a model
+     *
+     * @param m: Model number
+     * @return model price
+     */
+    private static long modelPrice(int m) {
+        return 40_000L + 5_000L * (m % MODEL_NAMES.length) + 1_000L * (m / MODEL_NAMES.length);
+    }
+
+    /**
+     * Returns the name of an option
+     *
+     * @param o: Option number
+     * @return option name
+     */
+    private static String optionName(int o) {
+        String name = OPTION_NAMES[o % OPTION_NAMES.length];
+        return o < OPTION_NAMES.length ? name : name + " " + (o / OPTION_NAMES.length + 1);
+    }
+
+    /**
+     * Returns the price of an option
+     *
+     * @param o: Option number
+     * @return option price
+     */
+    private static long optionPrice(int o) {
+        return 500L + 250L * (o % 20);
+    }
+
+    /**
+     * Returns one of the options offered for a model. Models offer overlapping windows of options.
+     *
+     * @param m: Model number
+     * @param k: Index of option within the model's options
+     * @return option number
+     */
+    private int modelOption(int m, int k) {
+        return (m * 3 + k) % options;
+    }
+
+    /**
+     * Returns the number of vehicles already in the database
+     *
+     * @return number of vehicles
+     * @throws SQLException if a database access error occurs
+     */
+    private static long countVehicles() throws SQLException {
+        PreparedStatement s = ConnectionManager.prepareStatement(COUNT_VEHICLES);
+        ResultSet rs = s.executeQuery();
+        long n = rs.next() ? rs.getLong("n") : 0;
+        s.close();
+        return n;
+    }
+
+    /**
+     * Recreates a sequence so that it continues at a given value. Dropping and creating the
+     * sequence works on every supported database, unlike restarting it in place. The creation is
+     * committed right away: H2 rolls back DDL which is not followed by a commit or other DDL.
+     *
+     * @param name:      Name of sequence
+     * @param start:     Next value of sequence
+     * @param increment: Increment of sequence
+     * @throws SQLException if a database access error occurs
+     */
+    private static void restartSequence(String name, long start, int increment) throws SQLException {
+        Connection conn = ConnectionManager.getCurrentConnection();
+        try (java.sql.Statement s = conn.createStatement()) {
+            try {
+                s.execute("DROP SEQUENCE " + name);
+            } catch (SQLException ignored) {
+                // the sequence did not exist yet
+            }
+            s.execute("CREATE SEQUENCE " + name + " START WITH " + start + " INCREMENT BY " + increment + " NOCACHE");
+        }
+        ConnectionManager.commit();
+    }
+}
@@ -0,0 +1,113 @@
+package benchmark;
+
+import connection.ConnectionManager;
+import connection.DataSourceConfig;
+import connection.StatementCache;
+import database.DBManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the database work done when a customer logs in, for customers owning
+ * increasingly many vehicles. Login latency should stay flat as the vehicle count
+ * grows, since a customer's vehicles and their conditions are loaded by a single query.
+ * <p>
+ * Usage: LoginBenchmark [url user password] [iterations]. Without a url, the configured
+ * database is used (see connection.DataSourceConfig).
+ */
+public class LoginBenchmark {
+
+    /**
+     * Lists customers along with the number of vehicles they own, fewest first.
+     */
+    private static final String CUSTOMERS_BY_VEHICLE_COUNT =
+            "SELECT email, COUNT(*) AS vehicles " +
+                    "FROM owner " +
+                    "GROUP BY email " +
+                    "ORDER BY vehicles";
+
+    /**
+     * Maximum number of customers benchmarked
+     */
+    private static final int MAX_CUSTOMERS = 10;
+
+    /**
+     * Private constructor of LoginBenchmark
+     */
+    private LoginBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args: optionally url, user and password, and optionally the number of measured iterations
+     * @throws Exception if the benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        // without a url, the configured database (e.g. -Dalset.db.profile=embedded) is used
+        boolean configured = args.length < 3;
+        int iterations = args.length == 1 || args.length > 3 ? Integer.parseInt(args[args.length - 1]) : 50;
+        DataSourceConfig source = configured
+                ? ConnectionManager.getConfig()
+                : DataSourceConfig.forUrl(args[0], args[1], args[2]);
+        if (!source.hasCredentials()) {
+            System.err.println("Usage: LoginBenchmark [url user password] [iterations]");
+            System.exit(1);
+        }
+        if (ConnectionManager.createConnection(source) == null) {
+            System.err.println("Unable to connect to " + source);
+            System.exit(1);
+        }
+
+        try {
+            if (source.getProfile() == DataSourceConfig.Profile.EMBEDDED) System.out.println(Benchmark.EMBEDDED_NOTE);
+            for (String[] customer : pickCustomers()) {
+                String email = customer[0];
+                long before = StatementCache.getHits() + StatementCache.getMisses();
+                DBManager.getName(email);
+                DBManager.getVehicles(email);
+                long queries = StatementCache.getHits() + StatementCache.getMisses() - before;
+
+                Benchmark.Result result = Benchmark.run(customer[1] + " vehicles", iterations / 5, iterations, () -> {
+                    DBManager.getName(email);
+                    DBManager.getVehicles(email);
+                });
+                System.out.println(result + " queries=" + queries);
+            }
+        } finally {
+            ConnectionManager.closeConnection();
+        }
+    }
+
+    /**
+     * Picks up to MAX_CUSTOMERS customers, spread evenly across vehicle counts.
+     *
+     * @return list of (email, vehicle count) pairs
+     * @throws SQLException if a database access error occurs
+     */
+    private static List<String[]> pickCustomers() throws SQLException {
+        // one customer per distinct vehicle count
+        List<String[]> candidates = new ArrayList<>();
+        PreparedStatement s = ConnectionManager.prepareStatement(CUSTOMERS_BY_VEHICLE_COUNT);
+        ResultSet rs = s.executeQuery();
+        String lastCount = null;
+        while (rs.next()) {
+            String count = rs.getString("vehicles");
+            if (!count.equals(lastCount)) candidates.add(new String[]{rs.getString("email"), count});
+            lastCount = count;
+        }
+        s.close();
+
+        // spread evenly, always keeping the customer with the most vehicles
+        if (candidates.size() <= MAX_CUSTOMERS) return candidates;
+        List<String[]> picked = new ArrayList<>();
+        for (int i = 0; i < MAX_CUSTOMERS; i++) {
+            picked.add(candidates.get(i * (candidates.size() - 1) / (MAX_CUSTOMERS - 1)));
+        }
+        return picked;
+    }
+}
@@ -1,13 +1,20 @@
 package card;
 
+import session.Session;
+
 /**
  * Used for managing credit cards
  */
 public class CardManager {
     /**
-     * Current card being managed
+     * The card data held by each session
      */
-    private static Card selected = null;
+    private static final class State {
+        /**
+         * Current card being managed
+         */
+        private Card selected = null;
+    }
 
     /**
      * Sets the current card
@@ -15,7 +22,7 @@ public class CardManager {
      * @param card: Card to manage
      */
     public static void setSelected(Card card) {
-        selected = card;
+        state().selected = card;
     }
 
     /**
@@ -24,6 +31,15 @@ public class CardManager {
      * @return Current card
      */
     public static Card getSelected() {
-        return selected;
+        return state().selected;
+    }
+
+    /**
+     * Returns the card data of the current session
+     *
+     * @return state
+     */
+    private static State state() {
+        return Session.current().getState(State.class, State::new);
     }
 }
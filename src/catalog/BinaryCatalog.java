@@ -0,0 +1,439 @@
+package catalog;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The catalog as a compact binary snapshot.
+ * <p>
+ * A snapshot starts with the bytes "ALSETCAT" and a version byte, followed by blocks of up to
+ * BLOCK_ROWS rows of one kind (models, options or model options), and ends with a zero byte.
+ * A block starts with its kind and row count, followed by its columns one after the other:
+ * <ul>
+ *     <li>integer columns (years) as the differences between consecutive values, which are
+ *     small since rows are sorted, written as variable-length numbers</li>
+ *     <li>text columns (names) as a dictionary of the block's distinct values, followed by
+ *     each row's index into it</li>
+ *     <li>price columns as a bitmap of which rows have a price, followed by the prices as
+ *     variable-length numbers</li>
+ * </ul>
+ * Both writing and reading hold a single block in memory, whatever the size of the catalog.
+ */
+public class BinaryCatalog {
+
+    /**
+     * First bytes of every snapshot
+     */
+    private static final byte[] MAGIC = "ALSETCAT".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Version of the format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Maximum number of rows per block
+     */
+    private static final int BLOCK_ROWS = 4096;
+
+    /**
+     * Kind of block ending the snapshot
+     */
+    private static final int END = 0;
+
+    /**
+     * Kind of block holding models: year, name, price
+     */
+    private static final int MODELS = 1;
+
+    /**
+     * Kind of block holding options: name, price
+     */
+    private static final int OPTIONS = 2;
+
+    /**
+     * Kind of block holding model options: year, name, option
+     */
+    private static final int MODEL_OPTIONS = 3;
+
+    /**
+     * Writes catalog rows to a snapshot, one block at a time.
+     */
+    public static class Output implements CatalogSink {
+        /**
+         * Stream written to
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Kind of rows in the current block, or END if none
+         */
+        private int kind = END;
+
+        /**
+         * Number of rows in the current block
+         */
+        private int rows = 0;
+
+        /**
+         * Integer column of the current block
+         */
+        private final int[] ints = new int[BLOCK_ROWS];
+
+        /**
+         * First text column of the current block
+         */
+        private final String[] names = new String[BLOCK_ROWS];
+
+        /**
+         * Second text column of the current block
+         */
+        private final String[] texts = new String[BLOCK_ROWS];
+
+        /**
+         * Price column of the current block
+         */
+        private final Long[] prices = new Long[BLOCK_ROWS];
+
+        /**
+         * Constructs a new snapshot output
+         *
+         * @param out: Stream to write to
+         * @throws IOException if the header could not be written
+         */
+        public Output(DataOutputStream out) throws IOException {
+            this.out = out;
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        @Override
+        public void model(int year, String name, Long price) throws IOException {
+            int row = nextRow(MODELS);
+            ints[row] = year;
+            names[row] = name;
+            prices[row] = price;
+        }
+
+        @Override
+        public void option(String name, Long price) throws IOException {
+            int row = nextRow(OPTIONS);
+            names[row] = name;
+            prices[row] = price;
+        }
+
+        @Override
+        public void modelOption(int year, String name, String option) throws IOException {
+            int row = nextRow(MODEL_OPTIONS);
+            ints[row] = year;
+            names[row] = name;
+            texts[row] = option;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            flush();
+            out.writeByte(END);
+            out.flush();
+        }
+
+        /**
+         * Makes room for a row of the given kind, writing out the current block if it is full
+         * or holds another kind of row.
+         *
+         * @param rowKind: Kind of row
+         * @return index of row in block
+         * @throws IOException if the current block could not be written
+         */
+        private int nextRow(int rowKind) throws IOException {
+            if (kind != rowKind || rows == BLOCK_ROWS) {
+                flush();
+                kind = rowKind;
+            }
+            return rows++;
+        }
+
+        /**
+         * Writes out the current block, if any.
+         *
+         * @throws IOException if the block could not be written
+         */
+        private void flush() throws IOException {
+            if (rows == 0) return;
+            out.writeByte(kind);
+            writeVarLong(out, rows);
+            switch (kind) {
+                case MODELS:
+                    writeInts(out, ints, rows);
+                    writeTexts(out, names, rows);
+                    writePrices(out, prices, rows);
+                    break;
+                case OPTIONS:
+                    writeTexts(out, names, rows);
+                    writePrices(out, prices, rows);
+                    break;
+                default:
+                    writeInts(out, ints, rows);
+                    writeTexts(out, names, rows);
+                    writeTexts(out, texts, rows);
+            }
+            Arrays.fill(names, 0, rows, null);
+            Arrays.fill(texts, 0, rows, null);
+            Arrays.fill(prices, 0, rows, null);
+            rows = 0;
+        }
+    }
+
+    /**
+     * Private constructor of BinaryCatalog
+     */
+    private BinaryCatalog() {
+    }
+
+    /**
+     * Reads a snapshot block by block, sending every row to a sink.
+     *
+     * @param in:   Stream to read
+     * @param sink: Receiver of rows
+     * @throws IOException  if the stream could not be read, or is not a valid snapshot
+     * @throws SQLException if the sink could not write a row to the database
+     */
+    public static void read(DataInputStream in, CatalogSink sink) throws IOException, SQLException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not an Alset catalog snapshot.");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported catalog snapshot version " + version + ".");
+
+        while (true) {
+            int kind = in.readUnsignedByte();
+            if (kind == END) break;
+            long count = readVarLong(in);
+            if (count <= 0 || count > BLOCK_ROWS) throw new IOException("Corrupt catalog snapshot: block of " + count + " rows.");
+            int rows = (int) count;
+            switch (kind) {
+                case MODELS: {
+                    int[] years = readInts(in, rows);
+                    String[] names = readTexts(in, rows);
+                    Long[] prices = readPrices(in, rows);
+                    for (int i = 0; i < rows; i++) sink.model(years[i], names[i], prices[i]);
+                    break;
+                }
+                case OPTIONS: {
+                    String[] names = readTexts(in, rows);
+                    Long[] prices = readPrices(in, rows);
+                    for (int i = 0; i < rows; i++) sink.option(names[i], prices[i]);
+                    break;
+                }
+                case MODEL_OPTIONS: {
+                    int[] years = readInts(in, rows);
+                    String[] names = readTexts(in, rows);
+                    String[] options = readTexts(in, rows);
+                    for (int i = 0; i < rows; i++) sink.modelOption(years[i], names[i], options[i]);
+                    break;
+                }
+                default:
+                    throw new IOException("Corrupt catalog snapshot: unknown block kind " + kind + ".");
+            }
+        }
+        sink.finish();
+    }
+
+    /**
+     * Writes an integer column as differences between consecutive values
+     *
+     * @param out:    Stream to write to
+     * @param values: Column values
+     * @param rows:   Number of rows
+     * @throws IOException if the column could not be written
+     */
+    private static void writeInts(DataOutputStream out, int[] values, int rows) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(out, zigzag(values[i] - (long) previous));
+            previous = values[i];
+        }
+    }
+
+    /**
+     * Reads an integer column written by writeInts
+     *
+     * @param in:   Stream to read
+     * @param rows: Number of rows
+     * @return column values
+     * @throws IOException if the column could not be read
+     */
+    private static int[] readInts(DataInputStream in, int rows) throws IOException {
+        int[] values = new int[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += unzigzag(readVarLong(in));
+            values[i] = (int) previous;
+        }
+        return values;
+    }
+
+    /**
+     * Writes a text column as a dictionary of its distinct values and an index per row
+     *
+     * @param out:    Stream to write to
+     * @param values: Column values
+     * @param rows:   Number of rows
+     * @throws IOException if the column could not be written
+     */
+    private static void writeTexts(DataOutputStream out, String[] values, int rows) throws IOException {
+        Map<String, Integer> index = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] indexes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            Integer known = index.get(values[i]);
+            if (known == null) {
+                known = dictionary.size();
+                index.put(values[i], known);
+                dictionary.add(values[i]);
+            }
+            indexes[i] = known;
+        }
+
+        writeVarLong(out, dictionary.size());
+        for (String value : dictionary) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+        for (int i = 0; i < rows; i++) writeVarLong(out, indexes[i]);
+    }
+
+    /**
+     * Reads a text column written by writeTexts
+     *
+     * @param in:   Stream to read
+     * @param rows: Number of rows
+     * @return column values
+     * @throws IOException if the column could not be read, or is corrupt
+     */
+    private static String[] readTexts(DataInputStream in, int rows) throws IOException {
+        long size = readVarLong(in);
+        if (size < 0 || size > rows) throw new IOException("Corrupt catalog snapshot: dictionary of " + size + " values.");
+        String[] dictionary = new String[(int) size];
+        for (int i = 0; i < dictionary.length; i++) {
+            long length = readVarLong(in);
+            if (length < 0 || length > 1 << 16) throw new IOException("Corrupt catalog snapshot: text of " + length + " bytes.");
+            byte[] bytes = new byte[(int) length];
+            in.readFully(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            long index = readVarLong(in);
+            if (index < 0 || index >= dictionary.length) throw new IOException("Corrupt catalog snapshot: bad dictionary index.");
+            values[i] = dictionary[(int) index];
+        }
+        return values;
+    }
+
+    /**
+     * Writes a price column as a bitmap of non-null rows followed by the non-null prices
+     *
+     * @param out:    Stream to write to
+     * @param values: Column values, null where not for sale
+     * @param rows:   Number of rows
+     * @throws IOException if the column could not be written
+     */
+    private static void writePrices(DataOutputStream out, Long[] values, int rows) throws IOException {
+        byte[] present = new byte[(rows + 7) / 8];
+        for (int i = 0; i < rows; i++) {
+            if (values[i] != null) present[i / 8] |= (byte) (1 << (i % 8));
+        }
+        out.write(present);
+        for (int i = 0; i < rows; i++) {
+            if (values[i] != null) writeVarLong(out, zigzag(values[i]));
+        }
+    }
+
+    /**
+     * Reads a price column written by writePrices. A price of -1 means not for sale, as in
+     * the menus and batch files; other negative prices are rejected.
+     *
+     * @param in:   Stream to read
+     * @param rows: Number of rows
+     * @return column values, null where not for sale
+     * @throws IOException if the column could not be read, or holds a negative price
+     */
+    private static Long[] readPrices(DataInputStream in, int rows) throws IOException {
+        byte[] present = new byte[(rows + 7) / 8];
+        in.readFully(present);
+        Long[] values = new Long[rows];
+        for (int i = 0; i < rows; i++) {
+            if ((present[i / 8] & (1 << (i % 8))) == 0) continue;
+            long price = unzigzag(readVarLong(in));
+            if (price < -1) throw new IOException("Corrupt catalog snapshot: negative price " + price + ".");
+            if (price != -1) values[i] = price;
+        }
+        return values;
+    }
+
+    /**
+     * Writes a non-negative number in 7-bit groups, least significant first, using the top bit
+     * of each byte to mark that more follow.
+     *
+     * @param out:   Stream to write to
+     * @param value: Number to write
+     * @throws IOException if the number could not be written
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a number written by writeVarLong
+     *
+     * @param in: Stream to read
+     * @return number read
+     * @throws IOException if the number could not be read, or is too long
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated catalog snapshot.");
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupt catalog snapshot: number too long.");
+    }
+
+    /**
+     * Maps signed numbers to unsigned ones, so that numbers close to zero stay short
+     *
+     * @param value: Signed number
+     * @return unsigned number
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverses zigzag
+     *
+     * @param value: Unsigned number
+     * @return signed number
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
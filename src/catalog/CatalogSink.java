@@ -0,0 +1,51 @@
+package catalog;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Receives catalog rows one at a time, as they are read from a database or a file.
+ * Models and options are sent before the model options referring to them.
+ */
+public interface CatalogSink {
+
+    /**
+     * Receives a model
+     *
+     * @param year:  Model year
+     * @param name:  Model name
+     * @param price: Model price, or null if not for sale
+     * @throws IOException  if the row could not be written to a file
+     * @throws SQLException if the row could not be written to the database
+     */
+    void model(int year, String name, Long price) throws IOException, SQLException;
+
+    /**
+     * Receives a custom option
+     *
+     * @param name:  Option name
+     * @param price: Option price, or null if not for sale
+     * @throws IOException  if the row could not be written to a file
+     * @throws SQLException if the row could not be written to the database
+     */
+    void option(String name, Long price) throws IOException, SQLException;
+
+    /**
+     * Receives an option a model can be bought with
+     *
+     * @param year:   Model year
+     * @param name:   Model name
+     * @param option: Option name
+     * @throws IOException  if the row could not be written to a file
+     * @throws SQLException if the row could not be written to the database
+     */
+    void modelOption(int year, String name, String option) throws IOException, SQLException;
+
+    /**
+     * Writes out anything still pending, once every row has been received
+     *
+     * @throws IOException  if the rows could not be written to a file
+     * @throws SQLException if the rows could not be written to the database
+     */
+    void finish() throws IOException, SQLException;
+}
@@ -0,0 +1,363 @@
+package catalog;
+
+import connection.ConnectionManager;
+import connection.QueryLog;
+import constants.Statement;
+import database.DBManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Exports the catalog (models, options, the options of each model, and their prices) from the
+ * connected database to a file, and imports it back, possibly into another database.
+ * <p>
+ * Files ending in ".csv" are written and read as CSV (see CsvCatalog); any other file as a
+ * binary snapshot (see BinaryCatalog). Rows are streamed in both directions, so memory use does
+ * not grow with the size of the catalog. Importing adds missing rows and updates the prices of
+ * existing ones, with batched statements committed every COMMIT_ROWS rows. If an import fails,
+ * the rows committed before the failure stay committed and their number is given in the error.
+ */
+public class CatalogTransfer {
+
+    /**
+     * Number of imported rows committed together
+     */
+    public static final int COMMIT_ROWS = 1000;
+
+    /**
+     * Number of rows fetched from the database per round trip when exporting
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Number of each kind of row transferred.
+     */
+    public static class Counts implements CatalogSink {
+        /**
+         * Receiver of the rows being counted
+         */
+        private final CatalogSink sink;
+
+        /**
+         * Number of models
+         */
+        private long models = 0;
+
+        /**
+         * Number of options
+         */
+        private long options = 0;
+
+        /**
+         * Number of model options
+         */
+        private long modelOptions = 0;
+
+        /**
+         * Constructs a new Counts
+         *
+         * @param sink: Receiver of the rows being counted
+         */
+        private Counts(CatalogSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void model(int year, String name, Long price) throws IOException, SQLException {
+            models++;
+            sink.model(year, name, price);
+        }
+
+        @Override
+        public void option(String name, Long price) throws IOException, SQLException {
+            options++;
+            sink.option(name, price);
+        }
+
+        @Override
+        public void modelOption(int year, String name, String option) throws IOException, SQLException {
+            modelOptions++;
+            sink.modelOption(year, name, option);
+        }
+
+        @Override
+        public void finish() throws IOException, SQLException {
+            sink.finish();
+        }
+
+        @Override
+        public String toString() {
+            return models + " models, " + options + " options and " + modelOptions + " model options";
+        }
+    }
+
+    /**
+     * Writes catalog rows to the connected database, in batches.
+     */
+    private static class DatabaseSink implements CatalogSink {
+        /**
+         * Batched model rows, or null if none yet
+         */
+        private PreparedStatement models = null;
+
+        /**
+         * Batched option rows, or null if none yet
+         */
+        private PreparedStatement options = null;
+
+        /**
+         * Batched model option rows, or null if none yet
+         */
+        private PreparedStatement modelOptions = null;
+
+        /**
+         * Number of rows batched since the last commit
+         */
+        private int pending = 0;
+
+        /**
+         * Number of rows committed
+         */
+        private long committed = 0;
+
+        @Override
+        public void model(int year, String name, Long price) throws SQLException {
+            if (models == null) models = ConnectionManager.prepareStatement(Statement.MERGE_MODEL);
+            models.setInt(1, year);
+            models.setString(2, name);
+            setPrice(models, 3, price);
+            models.addBatch();
+            added();
+        }
+
+        @Override
+        public void option(String name, Long price) throws SQLException {
+            if (options == null) options = ConnectionManager.prepareStatement(Statement.MERGE_OPTION);
+            options.setString(1, name);
+            setPrice(options, 2, price);
+            options.addBatch();
+            added();
+        }
+
+        @Override
+        public void modelOption(int year, String name, String option) throws SQLException {
+            if (modelOptions == null) modelOptions = ConnectionManager.prepareStatement(Statement.MERGE_MODEL_OPTION);
+            modelOptions.setInt(1, year);
+            modelOptions.setString(2, name);
+            modelOptions.setString(3, option);
+            modelOptions.addBatch();
+            added();
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            flush();
+        }
+
+        /**
+         * Counts a batched row, committing once COMMIT_ROWS rows are batched
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        private void added() throws SQLException {
+            if (++pending >= COMMIT_ROWS) flush();
+        }
+
+        /**
+         * Runs every batched row and commits them. Models and options run before the model
+         * options which may refer to them.
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        private void flush() throws SQLException {
+            if (pending == 0) return;
+            if (models != null) models.executeBatch();
+            if (options != null) options.executeBatch();
+            if (modelOptions != null) modelOptions.executeBatch();
+            ConnectionManager.commit();
+            committed += pending;
+            pending = 0;
+        }
+
+        /**
+         * Ends the import, whether or not it succeeded: rolls back the rows batched since the last
+         * commit, gives the statements back to the statement cache and drops the cached catalog,
+         * which the committed rows may have changed. Failures are logged rather than thrown, so
+         * that they do not hide the failure of the import itself.
+         */
+        private void close() {
+            try {
+                if (pending > 0) ConnectionManager.rollback();
+            } catch (SQLException e) {
+                QueryLog.error("CatalogTransfer.importCatalog", e);
+            }
+            close(models);
+            close(options);
+            close(modelOptions);
+            DBManager.invalidateCatalog();
+        }
+
+        /**
+         * Clears the batch of a statement and gives it back to the statement cache
+         *
+         * @param s: Statement, or null if never prepared
+         */
+        private static void close(PreparedStatement s) {
+            if (s == null) return;
+            try {
+                s.clearBatch();
+                s.close();
+            } catch (SQLException e) {
+                QueryLog.error("CatalogTransfer.importCatalog", e);
+            }
+        }
+
+        /**
+         * Describes how much was imported before a failure
+         *
+         * @return description, to be appended to an error message
+         */
+        private String describeCommitted() {
+            return " (" + committed + " rows were committed before the failure)";
+        }
+
+        /**
+         * Sets a price parameter
+         *
+         * @param s:     Statement
+         * @param index: Parameter index
+         * @param price: Price, or null if not for sale
+         * @throws SQLException if a database access error occurs
+         */
+        private static void setPrice(PreparedStatement s, int index, Long price) throws SQLException {
+            if (price == null) s.setNull(index, Types.NUMERIC);
+            else s.setLong(index, price);
+        }
+    }
+
+    /**
+     * Private constructor of CatalogTransfer
+     */
+    private CatalogTransfer() {
+    }
+
+    /**
+     * Exports the catalog of the connected database to a file.
+     *
+     * @param file: File to write, CSV if its name ends in ".csv", otherwise a binary snapshot
+     * @return number of rows exported
+     * @throws IOException  if the file could not be written
+     * @throws SQLException if a database access error occurs
+     */
+    public static Counts exportCatalog(Path file) throws IOException, SQLException {
+        if (isCsv(file)) {
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                Counts counts = new Counts(new CsvCatalog.Output(out));
+                readDatabase(counts);
+                return counts;
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            Counts counts = new Counts(new BinaryCatalog.Output(out));
+            readDatabase(counts);
+            return counts;
+        }
+    }
+
+    /**
+     * Imports a catalog file into the connected database. Rows committed before a failure stay
+     * committed, and their number is given in the error; the rows batched since are rolled back.
+     *
+     * @param file: File to read, CSV if its name ends in ".csv", otherwise a binary snapshot
+     * @return number of rows imported
+     * @throws IOException  if the file could not be read, or is invalid
+     * @throws SQLException if a database access error occurs
+     */
+    public static Counts importCatalog(Path file) throws IOException, SQLException {
+        DatabaseSink sink = new DatabaseSink();
+        Counts counts = new Counts(sink);
+        try {
+            if (isCsv(file)) {
+                try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    CsvCatalog.read(in, counts);
+                }
+            } else {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                    BinaryCatalog.read(in, counts);
+                }
+            }
+            return counts;
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + sink.describeCommitted(), e);
+        } catch (SQLException e) {
+            throw new SQLException(e.getMessage() + sink.describeCommitted(), e.getSQLState(), e.getErrorCode(), e);
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * Streams the catalog of the connected database to a sink: models, then options, then model options.
+     *
+     * @param sink: Receiver of rows
+     * @throws IOException  if the sink could not write a row
+     * @throws SQLException if a database access error occurs
+     */
+    private static void readDatabase(CatalogSink sink) throws IOException, SQLException {
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.EXPORT_MODELS);
+        s.setFetchSize(FETCH_SIZE);
+        ResultSet rs = s.executeQuery();
+        while (rs.next()) sink.model(rs.getInt("year"), rs.getString("name"), getPrice(rs, "model_price"));
+        s.close();
+
+        s = ConnectionManager.prepareStatement(Statement.EXPORT_OPTIONS);
+        s.setFetchSize(FETCH_SIZE);
+        rs = s.executeQuery();
+        while (rs.next()) sink.option(rs.getString("option_name"), getPrice(rs, "option_price"));
+        s.close();
+
+        s = ConnectionManager.prepareStatement(Statement.EXPORT_MODEL_OPTIONS);
+        s.setFetchSize(FETCH_SIZE);
+        rs = s.executeQuery();
+        while (rs.next()) sink.modelOption(rs.getInt("year"), rs.getString("name"), rs.getString("option_name"));
+        s.close();
+
+        sink.finish();
+    }
+
+    /**
+     * Reads a price column
+     *
+     * @param rs:     Result set
+     * @param column: Column name
+     * @return price, or null if not for sale
+     * @throws SQLException if a database access error occurs
+     */
+    private static Long getPrice(ResultSet rs, String column) throws SQLException {
+        long price = rs.getLong(column);
+        return rs.wasNull() ? null : price;
+    }
+
+    /**
+     * Returns true if a file is to be read or written as CSV
+     *
+     * @param file: File
+     * @return true if CSV, false if a binary snapshot
+     */
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+}
@@ -0,0 +1,121 @@
+package catalog;
+
+import io.Csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+
+/**
+ * The catalog as CSV, one row per line, the kind of row first:
+ * <ul>
+ *     <li>model,&lt;year&gt;,&lt;name&gt;,&lt;price&gt;</li>
+ *     <li>option,&lt;name&gt;,&lt;price&gt;</li>
+ *     <li>model-option,&lt;year&gt;,&lt;name&gt;,&lt;option&gt;</li>
+ * </ul>
+ * An empty price, or -1 as in the menus and batch files, means not for sale; other negative
+ * prices are rejected. Blank lines and lines starting with '#' are ignored.
+ */
+public class CsvCatalog {
+
+    /**
+     * Writes catalog rows to a CSV file.
+     */
+    public static class Output implements CatalogSink {
+        /**
+         * File written to
+         */
+        private final Writer out;
+
+        /**
+         * Constructs a new CSV output
+         *
+         * @param out: File to write to
+         * @throws IOException if the header could not be written
+         */
+        public Output(Writer out) throws IOException {
+            this.out = out;
+            out.write("# Alset catalog: model,<year>,<name>,<price> / option,<name>,<price> / model-option,<year>,<name>,<option>\n");
+        }
+
+        @Override
+        public void model(int year, String name, Long price) throws IOException {
+            out.write(Csv.join("model", year, name, price));
+            out.write('\n');
+        }
+
+        @Override
+        public void option(String name, Long price) throws IOException {
+            out.write(Csv.join("option", name, price));
+            out.write('\n');
+        }
+
+        @Override
+        public void modelOption(int year, String name, String option) throws IOException {
+            out.write(Csv.join("model-option", year, name, option));
+            out.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Private constructor of CsvCatalog
+     */
+    private CsvCatalog() {
+    }
+
+    /**
+     * Reads a CSV file line by line, sending every row to a sink.
+     *
+     * @param in:   File to read
+     * @param sink: Receiver of rows
+     * @throws IOException  if the file could not be read, or holds an invalid line
+     * @throws SQLException if the sink could not write a row to the database
+     */
+    public static void read(BufferedReader in, CatalogSink sink) throws IOException, SQLException {
+        String line;
+        int number = 0;
+        while ((line = in.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = Csv.split(line);
+            try {
+                if (f[0].equals("model") && f.length == 4) {
+                    sink.model(Integer.parseInt(f[1]), f[2], parsePrice(f[3], number));
+                } else if (f[0].equals("option") && f.length == 3) {
+                    sink.option(f[1], parsePrice(f[2], number));
+                } else if (f[0].equals("model-option") && f.length == 4) {
+                    sink.modelOption(Integer.parseInt(f[1]), f[2], f[3]);
+                } else {
+                    throw new IOException("Invalid catalog row on line " + number + ": " + line);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid number on line " + number + ": " + line);
+            }
+        }
+        sink.finish();
+    }
+
+    /**
+     * Parses a price field, where an empty field or -1 stands for not for sale.
+     *
+     * @param price:  Price field
+     * @param number: Line number, for error messages
+     * @return price, or null if not for sale
+     * @throws IOException           if the price is negative
+     * @throws NumberFormatException if not a number
+     */
+    private static Long parsePrice(String price, int number) throws IOException, NumberFormatException {
+        if (price.isEmpty()) return null;
+        long p = Long.parseLong(price);
+        if (p == -1) return null;
+        if (p < 0) throw new IOException("Invalid price on line " + number + ": " + price);
+        return p;
+    }
+}
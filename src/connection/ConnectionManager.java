@@ -1,21 +1,132 @@
 package connection;
 
-import constants.Strings;
-import io.IOManager;
-
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages connections to the database, and to other potential servers.
+ * <p>
+ * Connections are drawn from a shared ConnectionPool. Each thread holds on to the
+ * connection it borrowed, so that a sequence of statements followed by a commit all
+ * run within the same transaction.
+ * <p>
+ * A thread may also batch its writes (see beginBatch()): commits are then deferred until the
+ * batch ends, so that many operations, each of which commits on its own, share one transaction.
+ * <p>
+ * A held connection which is found lost is replaced transparently, unless changes made on it were
+ * not committed yet: those changes are gone, so the caller gets an SQLException instead of carrying
+ * on as if they had been made. A connection always goes back to the pool it was borrowed from, even
+ * if the program has connected to another database since.
+ * <p>
+ * The database connected to is described by a DataSourceConfig, which is read from the
+ * program's configuration (see DataSourceConfig#load()) unless given explicitly.
  */
 public class ConnectionManager {
 
     /**
-     * The connection currently being utilized by the user.
+     * Minimum number of connections kept open by the pool
+     */
+    private static final int POOL_MIN_SIZE = 1;
+
+    /**
+     * Maximum number of connections the pool may open
+     */
+    private static final int POOL_MAX_SIZE = 8;
+
+    /**
+     * Maximum time (in milliseconds) to wait for a free connection
+     */
+    private static final long POOL_BORROW_TIMEOUT = 10_000L;
+
+    /**
+     * Time (in milliseconds) after which surplus idle connections are closed
+     */
+    private static final long POOL_IDLE_TIMEOUT = 5 * 60_000L;
+
+    /**
+     * Time (in seconds) a connection validation check may take
+     */
+    private static final int VALIDATION_TIMEOUT = 5;
+
+    /**
+     * Time (in milliseconds) a held connection may go unused before it is re-validated
+     */
+    private static final long REVALIDATE_AFTER = 30_000L;
+
+    /**
+     * Maximum number of prepared statements cached per connection. Kept below
+     * the database's open cursor limit, since every cached statement holds a cursor.
+     */
+    private static final int STATEMENT_CACHE_SIZE = 40;
+
+    /**
+     * A connection borrowed by a thread.
+     */
+    private static class Lease {
+        /**
+         * Pool the connection was borrowed from
+         */
+        private final ConnectionPool pool;
+
+        /**
+         * Borrowed connection
+         */
+        private final Connection connection;
+
+        /**
+         * Time (in milliseconds) the connection was last handed out
+         */
+        private long lastUsed;
+
+        /**
+         * Whether commits are deferred until the end of a batch
+         */
+        private boolean batch = false;
+
+        /**
+         * Whether the connection replaced one lost during a batch, taking the batch's changes with it
+         */
+        private boolean lostBatch = false;
+
+        /**
+         * Whether changes may have been made since the last commit or rollback
+         */
+        private boolean uncommitted = false;
+
+        /**
+         * Constructs a new lease
+         *
+         * @param pool:       Pool the connection was borrowed from
+         * @param connection: Borrowed connection
+         */
+        private Lease(ConnectionPool pool, Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * The pool which connections are borrowed from.
+     */
+    private static volatile ConnectionPool pool = null;
+
+    /**
+     * The data source which the pool is connected to, or the configured one if not connected.
+     */
+    private static volatile DataSourceConfig config = null;
+
+    /**
+     * The connection currently being utilized by each thread.
+     */
+    private static final ThreadLocal<Lease> current = new ThreadLocal<>();
+
+    /**
+     * Number of transactions committed since the program started
      */
-    private static Connection current = null;
+    private static final AtomicLong commits = new AtomicLong();
 
     /**
      * Private constructor of ConnectionManager
@@ -24,18 +135,28 @@ public class ConnectionManager {
     }
 
     /**
-     * Establishes a connection with edgar1.
+     * Establishes a connection with the configured database (edgar1 unless configured otherwise),
+     * using the given credentials.
      *
      * @param user: Username to connect with
      * @param pwd:  Password to connect with
      * @return The established connection, or null if a connection was unable to be made.
      */
     public static Connection createEdgar1Connection(String user, String pwd) {
-        return createConnection(Strings.EDGAR1_URL, user, pwd);
+        return createConnection(getConfig().withCredentials(user, pwd));
+    }
+
+    /**
+     * Establishes a connection with the configured database, using the configured credentials.
+     *
+     * @return The established connection, or null if a connection was unable to be made.
+     */
+    public static Connection createConfiguredConnection() {
+        return createConnection(getConfig());
     }
 
     /**
-     * Establishes a connection with a given URL
+     * Establishes a connection pool with a given URL, and borrows a connection from it.
      *
      * @param url:  The URL to connect with
      * @param user: The username to connect with
@@ -43,55 +164,265 @@ public class ConnectionManager {
      * @return The established connection, or null if a connection was unable to be made.
      */
     public static Connection createConnection(String url, String user, String pwd) {
+        return createConnection(DataSourceConfig.forUrl(url, user, pwd));
+    }
+
+    /**
+     * Establishes a connection pool with a given data source, and borrows a connection from it.
+     * A new embedded database gets its schema created first.
+     *
+     * @param source: Data source to connect to
+     * @return The established connection, or null if a connection was unable to be made.
+     */
+    public static synchronized Connection createConnection(DataSourceConfig source) {
+        closeConnection();
         try {
-            Connection conn = DriverManager.getConnection(url, user, pwd);
-            if (current != null) {
-                boolean closed = closeConnection();
-                if (!closed) IOManager.println("Error while closing previous connection.");
-            }
-            current = conn;
-            current.setAutoCommit(false);
-            return current;
+            pool = new ConnectionPool(source.getUrl(), source.getUser(), source.getPassword(), POOL_MIN_SIZE,
+                    POOL_MAX_SIZE, POOL_BORROW_TIMEOUT, POOL_IDLE_TIMEOUT, VALIDATION_TIMEOUT, STATEMENT_CACHE_SIZE);
+            config = source;
+            Connection conn = currentLease().connection;
+            source.initialize(conn);
+            return conn;
         } catch (SQLException e) {
-            current = null;
+            closeConnection();
             return null;
         }
     }
 
+    /**
+     * Returns the data source currently connected to, or the configured one if not connected.
+     *
+     * @return data source configuration
+     */
+    public static DataSourceConfig getConfig() {
+        DataSourceConfig c = config;
+        if (c == null || pool == null) {
+            synchronized (ConnectionManager.class) {
+                if (config == null || pool == null) config = DataSourceConfig.load();
+                c = config;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Returns true if the database connected to runs PL/SQL blocks
+     *
+     * @return true if PL/SQL is supported, otherwise false
+     */
+    public static boolean supportsPlsql() {
+        return getConfig().supportsPlsql();
+    }
+
     /**
      * Commits all pending changes to the Database.
      *
      * @throws SQLException if a database access error occurs
      */
     public static void commit() throws SQLException {
-        if (current != null) {
-            current.commit();
+        Lease lease = current.get();
+        if (lease != null && !lease.batch) {
+            lease.connection.commit();
+            lease.uncommitted = false;
+            commits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Rolls back all pending changes. Does nothing during a batch, which is rolled back as a whole
+     * by endBatch(false).
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public static void rollback() throws SQLException {
+        Lease lease = current.get();
+        if (lease != null && !lease.batch) {
+            lease.connection.rollback();
+            lease.uncommitted = false;
+        }
+    }
+
+    /**
+     * Starts a batch on the current thread. Until the batch ends, calls to commit() do
+     * nothing, so that every change made meanwhile is committed (or rolled back) at once.
+     *
+     * @throws SQLException if not connected, or if no valid connection could be obtained
+     */
+    public static void beginBatch() throws SQLException {
+        currentLease().batch = true;
+    }
+
+    /**
+     * Ends the current thread's batch, committing or rolling back every change made during it.
+     *
+     * @param commit: true to commit the batch, false to roll it back
+     * @throws SQLException if the changes could not be committed, or if the connection was
+     *                      lost (and the changes with it) during the batch, in which case
+     *                      whatever was changed after losing it is rolled back
+     */
+    public static void endBatch(boolean commit) throws SQLException {
+        Lease lease = current.get();
+        if (lease == null || !lease.batch) throw new SQLException("Not in a batch.");
+        lease.batch = false;
+        lease.uncommitted = false;
+        if (lease.lostBatch) {
+            lease.lostBatch = false;
+            lease.connection.rollback();
+            if (commit) throw new SQLException("Connection was lost during the batch.");
+            return;
+        }
+        if (commit) {
+            lease.connection.commit();
+            commits.incrementAndGet();
+        } else {
+            lease.connection.rollback();
         }
     }
 
     /**
+     * Returns the number of transactions committed by any thread since the program started.
+     * Data read before the count last changed may have been changed since.
+     *
+     * @return number of commits
+     */
+    public static long getCommitCount() {
+        return commits.get();
+    }
+
+    /**
+     * Returns the connection held by the current thread to the pool it was borrowed from.
+     * Any uncommitted changes are rolled back.
+     */
+    public static void releaseConnection() {
+        Lease lease = current.get();
+        if (lease == null) return;
+        current.remove();
+        lease.pool.release(lease.connection);
+    }
+
+    /**
+     * Closes the connection pool along with all of its connections.
+     * <p>
      * Returns true if the connection is closed, otherwise false.
      *
      * @return true if connection is closed, otherwise false
      */
-    public static boolean closeConnection() {
-        if (current != null) {
-            try {
-                current.close();
-                return true;
-            } catch (SQLException e) {
-                return false;
-            }
+    public static synchronized boolean closeConnection() {
+        releaseConnection();
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
         return true;
     }
 
     /**
-     * Returns the connection currently being held.
+     * Returns true if a connection pool is currently open.
+     *
+     * @return true if connected, otherwise false
+     */
+    public static boolean isConnected() {
+        return pool != null;
+    }
+
+    /**
+     * Returns the pool which connections are currently drawn from.
+     *
+     * @return connection pool, or null if not connected
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the connection currently being held by this thread, borrowing one from
+     * the pool if needed. A held connection which has gone unused for a while is
+     * re-validated first, and transparently replaced if it has been lost with no
+     * uncommitted changes. The returned connection may be written to directly, so until
+     * the next commit or rollback it counts as having uncommitted changes.
      *
      * @return current connection
+     * @throws SQLException if not connected, if no valid connection could be obtained,
+     *                      or if the held connection was lost with uncommitted changes
+     */
+    public static Connection getCurrentConnection() throws SQLException {
+        Lease lease = currentLease();
+        lease.uncommitted = true;
+        return lease.connection;
+    }
+
+    /**
+     * Returns the lease held by this thread, borrowing a connection if needed, see getCurrentConnection().
+     * <p>
+     * A lease whose connection was lost, or borrowed from a pool which has since been replaced,
+     * is given up. Its uncommitted changes are gone with it, so an SQLException is thrown rather
+     * than carrying on with a new connection. During a batch, the new lease then remembers the
+     * loss so that endBatch() fails too, instead of committing only the batch's later changes.
+     *
+     * @return current lease
+     * @throws SQLException if not connected, if no valid connection could be obtained,
+     *                      or if the held connection was lost with uncommitted changes
+     */
+    private static Lease currentLease() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) throw new SQLException("Not connected to a database.");
+
+        Lease lease = current.get();
+        if (lease == null) {
+            lease = new Lease(p, p.borrow());
+            current.set(lease);
+            return lease;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean replaced = lease.pool != p;
+        if (!replaced && !lease.connection.isClosed()
+                && (now - lease.lastUsed < REVALIDATE_AFTER || p.isValid(lease.connection))) {
+            lease.lastUsed = now;
+            return lease;
+        }
+
+        // connection was lost, or belongs to a closed pool: give it up
+        current.remove();
+        if (replaced) lease.pool.release(lease.connection);
+        else lease.pool.discard(lease.connection);
+        if (lease.batch) {
+            Lease next = new Lease(p, p.borrow());
+            next.batch = true;
+            next.lostBatch = lease.lostBatch || lease.uncommitted;
+            current.set(next);
+            if (!lease.uncommitted) return next;
+        } else if (!lease.uncommitted) {
+            lease = new Lease(p, p.borrow());
+            current.set(lease);
+            return lease;
+        }
+        throw new SQLException("Connection was lost along with its uncommitted changes.");
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL on the current connection. Statements
+     * are cached per connection, so closing the returned statement makes it available for reuse.
+     * Preparing anything but a query counts as making uncommitted changes.
+     *
+     * @param sql: SQL of statement, usually one of the constants in constants.Statement
+     * @return prepared statement
+     * @throws SQLException if not connected, if a database access error occurs, or if the
+     *                      held connection was lost with uncommitted changes
+     */
+    public static PreparedStatement prepareStatement(String sql) throws SQLException {
+        Lease lease = currentLease();
+        if (!isQuery(sql)) lease.uncommitted = true;
+        return lease.pool.getStatementCache(lease.connection).prepare(sql);
+    }
+
+    /**
+     * Returns true if a statement only reads, so that running it leaves nothing to commit
+     *
+     * @param sql: SQL of statement
+     * @return true if the statement is a query, otherwise false
      */
-    public static Connection getCurrentConnection() {
-        return current;
+    private static boolean isQuery(String sql) {
+        return sql.regionMatches(true, 0, "SELECT", 0, 6) || sql.regionMatches(true, 0, "WITH", 0, 4);
     }
 }
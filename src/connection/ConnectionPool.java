@@ -0,0 +1,594 @@
+package connection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of JDBC connections to a single database.
+ * <p>
+ * Connections are validated when they are borrowed, idle connections above the
+ * minimum size are evicted in the background, and broken connections are replaced
+ * with fresh ones so callers never receive a dead connection.
+ * <p>
+ * Every connection owns a StatementCache, which lives and dies with the connection.
+ */
+public class ConnectionPool {
+
+    /**
+     * An idle connection together with the time it was last returned to the pool.
+     */
+    private static class IdleConnection {
+        /**
+         * The pooled connection
+         */
+        private final Connection connection;
+
+        /**
+         * Time (in milliseconds) the connection was returned to the pool
+         */
+        private final long lastUsed;
+
+        /**
+         * Constructs a new IdleConnection
+         *
+         * @param connection: Pooled connection
+         * @param lastUsed:   Time the connection was returned
+         */
+        private IdleConnection(Connection connection, long lastUsed) {
+            this.connection = connection;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * URL of the database
+     */
+    private final String url;
+
+    /**
+     * Username used for opening connections
+     */
+    private final String user;
+
+    /**
+     * Password used for opening connections
+     */
+    private final String pwd;
+
+    /**
+     * Number of connections the pool keeps open, even when idle
+     */
+    private final int minSize;
+
+    /**
+     * Maximum number of connections the pool may open
+     */
+    private final int maxSize;
+
+    /**
+     * Maximum time (in milliseconds) a borrower waits for a free connection
+     */
+    private final long borrowTimeout;
+
+    /**
+     * Time (in milliseconds) after which an idle connection above the minimum size is closed
+     */
+    private final long idleTimeout;
+
+    /**
+     * Time (in seconds) a validation query is allowed to take
+     */
+    private final int validationTimeout;
+
+    /**
+     * Maximum number of statements cached per connection
+     */
+    private final int statementCacheSize;
+
+    /**
+     * Statement caches of every open connection
+     */
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+
+    /**
+     * Idle connections, most recently used first
+     */
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+
+    /**
+     * Number of connections currently open (idle + borrowed + being opened)
+     */
+    private int open = 0;
+
+    /**
+     * Whether the pool has been closed
+     */
+    private boolean closed = false;
+
+    /**
+     * Background task which evicts idle connections
+     */
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Number of successful borrows
+     */
+    private final AtomicLong borrowCount = new AtomicLong();
+
+    /**
+     * Total time (in nanoseconds) borrowers spent waiting for a free connection
+     */
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    /**
+     * Longest time (in nanoseconds) a borrower spent waiting for a free connection
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Total time (in nanoseconds) spent borrowing, including waiting, validating and connecting
+     */
+    private final AtomicLong totalBorrowNanos = new AtomicLong();
+
+    /**
+     * Longest time (in nanoseconds) spent on a single borrow
+     */
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+
+    /**
+     * Number of physical connections opened
+     */
+    private final AtomicLong createdCount = new AtomicLong();
+
+    /**
+     * Number of connections discarded because they failed validation
+     */
+    private final AtomicLong validationFailures = new AtomicLong();
+
+    /**
+     * Number of idle connections closed by the evictor
+     */
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * Constructs a new pool and opens its minimum number of connections.
+     *
+     * @param url:                URL of the database
+     * @param user:               Username to connect with
+     * @param pwd:                Password to connect with
+     * @param minSize:            Number of connections kept open while idle
+     * @param maxSize:            Maximum number of open connections
+     * @param borrowTimeout:      Maximum time (ms) to wait for a free connection
+     * @param idleTimeout:        Time (ms) after which surplus idle connections are closed
+     * @param validationTimeout:  Time (s) a validation check may take
+     * @param statementCacheSize: Maximum number of statements cached per connection
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public ConnectionPool(String url, String user, String pwd, int minSize, int maxSize,
+                          long borrowTimeout, long idleTimeout, int validationTimeout,
+                          int statementCacheSize) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize)
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        this.url = url;
+        this.user = user;
+        this.pwd = pwd;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeout = borrowTimeout;
+        this.idleTimeout = idleTimeout;
+        this.validationTimeout = validationTimeout;
+        this.statementCacheSize = statementCacheSize;
+
+        // open the minimum number of connections, failing fast on bad credentials
+        try {
+            for (int i = 0; i < minSize; i++) {
+                Connection conn = openConnection();
+                synchronized (this) {
+                    open++;
+                    idle.push(new IdleConnection(conn, System.currentTimeMillis()));
+                }
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+
+        // start evicting idle connections
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "alset-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000L, idleTimeout / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a validated connection from the pool, opening a new one if none are idle
+     * and the pool is not full, or waiting for one to be returned otherwise.
+     *
+     * @return a valid connection
+     * @throws SQLException if the pool is closed, no connection becomes free in time,
+     *                      or a new connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long waited = 0;
+        while (true) {
+            IdleConnection candidate = null;
+            boolean create = false;
+            synchronized (this) {
+                long waitStart = System.nanoTime();
+                long deadline = waitStart + TimeUnit.MILLISECONDS.toNanos(borrowTimeout);
+                while (!closed && idle.isEmpty() && open >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        waited += System.nanoTime() - waitStart;
+                        recordWait(waited);
+                        throw new SQLException("Timed out waiting for a database connection.");
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection.", e);
+                    }
+                }
+                waited += System.nanoTime() - waitStart;
+                if (closed) throw new SQLException("Connection pool is closed.");
+                if (!idle.isEmpty()) {
+                    candidate = idle.pop();
+                } else {
+                    open++;
+                    create = true;
+                }
+            }
+
+            // open a new connection outside of the lock
+            if (create) {
+                try {
+                    Connection conn = openConnection();
+                    recordBorrow(start, waited);
+                    return conn;
+                } catch (SQLException e) {
+                    synchronized (this) {
+                        open--;
+                        notifyAll();
+                    }
+                    throw e;
+                }
+            }
+
+            // validate the idle connection, replacing it if broken
+            if (isValid(candidate.connection)) {
+                recordBorrow(start, waited);
+                return candidate.connection;
+            }
+            validationFailures.incrementAndGet();
+            discard(candidate.connection);
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool. Any uncommitted work is rolled back.
+     *
+     * @param conn: Connection to return
+     */
+    public void release(Connection conn) {
+        if (conn == null) return;
+        boolean usable;
+        try {
+            usable = !conn.isClosed();
+            if (usable && !conn.getAutoCommit()) conn.rollback();
+        } catch (SQLException e) {
+            usable = false;
+        }
+        if (!usable) {
+            discard(conn);
+            return;
+        }
+
+        // statements left open by an aborted caller are given back, and closed unless cached
+        StatementCache cache;
+        synchronized (statementCaches) {
+            cache = statementCaches.get(conn);
+        }
+        if (cache != null) cache.reclaim();
+
+        synchronized (this) {
+            if (!closed) {
+                idle.push(new IdleConnection(conn, System.currentTimeMillis()));
+                notifyAll();
+                return;
+            }
+        }
+        discard(conn);
+    }
+
+    /**
+     * Closes a connection that is no longer usable and frees its slot in the pool.
+     *
+     * @param conn: Connection to discard
+     */
+    public void discard(Connection conn) {
+        if (conn == null) return;
+        quietlyClose(conn);
+        synchronized (this) {
+            open--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the statement cache belonging to a connection of this pool.
+     *
+     * @param conn: Connection borrowed from this pool
+     * @return statement cache of connection
+     * @throws SQLException if the connection does not belong to this pool
+     */
+    public StatementCache getStatementCache(Connection conn) throws SQLException {
+        StatementCache cache;
+        synchronized (statementCaches) {
+            cache = statementCaches.get(conn);
+        }
+        if (cache == null) throw new SQLException("Connection does not belong to this pool.");
+        return cache;
+    }
+
+    /**
+     * Checks if a connection is still usable.
+     *
+     * @param conn: Connection to check
+     * @return true if the connection is valid, otherwise false
+     */
+    public boolean isValid(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes the pool and every idle connection. Borrowed connections are closed
+     * when they are returned.
+     */
+    public void close() {
+        Deque<IdleConnection> toClose;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            open -= idle.size();
+            idle.clear();
+            notifyAll();
+        }
+        if (evictor != null) evictor.shutdownNow();
+        for (IdleConnection c : toClose) quietlyClose(c.connection);
+    }
+
+    /**
+     * Closes idle connections which have been unused for longer than the idle timeout
+     * (keeping at least the minimum pool size open), then tops the pool back up to its minimum size.
+     */
+    private void evictIdle() {
+        Deque<Connection> expired = new ArrayDeque<>();
+        int missing;
+        synchronized (this) {
+            if (closed) return;
+            long now = System.currentTimeMillis();
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && open > minSize) {
+                IdleConnection c = it.next();
+                if (now - c.lastUsed < idleTimeout) break;
+                it.remove();
+                open--;
+                expired.add(c.connection);
+            }
+            missing = minSize - open;
+            open += Math.max(0, missing);
+        }
+        for (Connection conn : expired) {
+            quietlyClose(conn);
+            evictedCount.incrementAndGet();
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                Connection conn = openConnection();
+                synchronized (this) {
+                    if (closed) {
+                        open--;
+                        quietlyClose(conn);
+                    } else {
+                        idle.addLast(new IdleConnection(conn, System.currentTimeMillis()));
+                        notifyAll();
+                    }
+                }
+            } catch (SQLException e) {
+                synchronized (this) {
+                    open--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a new physical connection to the database.
+     *
+     * @return new connection
+     * @throws SQLException if a database access error occurs
+     */
+    private Connection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, pwd);
+        conn.setAutoCommit(false);
+        synchronized (statementCaches) {
+            statementCaches.put(conn, new StatementCache(conn, statementCacheSize));
+        }
+        createdCount.incrementAndGet();
+        return conn;
+    }
+
+    /**
+     * Closes a connection along with its cached statements, ignoring any errors.
+     *
+     * @param conn: Connection to close
+     */
+    private void quietlyClose(Connection conn) {
+        StatementCache cache;
+        synchronized (statementCaches) {
+            cache = statementCaches.remove(conn);
+        }
+        if (cache != null) cache.closeAll();
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * Records the time spent waiting for a free connection.
+     *
+     * @param waited: Time spent waiting, in nanoseconds
+     */
+    private void recordWait(long waited) {
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    /**
+     * Records a successful borrow.
+     *
+     * @param start:  Time (from System#nanoTime) the borrow started
+     * @param waited: Time spent waiting, in nanoseconds
+     */
+    private void recordBorrow(long start, long waited) {
+        long elapsed = System.nanoTime() - start;
+        borrowCount.incrementAndGet();
+        recordWait(waited);
+        totalBorrowNanos.addAndGet(elapsed);
+        maxBorrowNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Returns the number of connections currently open
+     *
+     * @return open connections
+     */
+    public synchronized int getOpenCount() {
+        return open;
+    }
+
+    /**
+     * Returns the number of connections currently idle
+     *
+     * @return idle connections
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of successful borrows
+     *
+     * @return borrow count
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Returns the total time borrowers spent waiting for a free connection
+     *
+     * @return total wait time in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    /**
+     * Returns the longest time a borrower spent waiting for a free connection
+     *
+     * @return max wait time in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * Returns the total time spent borrowing connections
+     *
+     * @return total borrow latency in nanoseconds
+     */
+    public long getTotalBorrowNanos() {
+        return totalBorrowNanos.get();
+    }
+
+    /**
+     * Returns the longest time spent on a single borrow
+     *
+     * @return max borrow latency in nanoseconds
+     */
+    public long getMaxBorrowNanos() {
+        return maxBorrowNanos.get();
+    }
+
+    /**
+     * Returns the number of physical connections opened
+     *
+     * @return created count
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Returns the number of connections discarded after failing validation
+     *
+     * @return validation failure count
+     */
+    public long getValidationFailures() {
+        return validationFailures.get();
+    }
+
+    /**
+     * Returns the number of idle connections closed by the evictor
+     *
+     * @return evicted count
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Returns a summary of the pool's counters.
+     *
+     * @return pool statistics
+     */
+    @Override
+    public String toString() {
+        long borrows = getBorrowCount();
+        long avgWait = borrows == 0 ? 0 : getTotalWaitNanos() / borrows;
+        long avgBorrow = borrows == 0 ? 0 : getTotalBorrowNanos() / borrows;
+        return "open=" + getOpenCount() +
+                " idle=" + getIdleCount() +
+                " max=" + maxSize +
+                " borrows=" + borrows +
+                " avgWaitUs=" + avgWait / 1000 +
+                " maxWaitUs=" + getMaxWaitNanos() / 1000 +
+                " avgBorrowUs=" + avgBorrow / 1000 +
+                " maxBorrowUs=" + getMaxBorrowNanos() / 1000 +
+                " created=" + getCreatedCount() +
+                " validationFailures=" + getValidationFailures() +
+                " evicted=" + getEvictedCount();
+    }
+}
@@ -0,0 +1,313 @@
+package connection;
+
+import constants.Strings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Describes the database the program connects to.
+ * <p>
+ * Settings are read from alset.properties in the working directory (or the file named by the
+ * alset.config system property), and may be overridden by system properties of the same name:
+ * <ul>
+ *     <li>alset.db.profile: "oracle" (default) or "embedded"</li>
+ *     <li>alset.db.url: JDBC URL, defaults to edgar1 or to a local database file</li>
+ *     <li>alset.db.user, alset.db.password: credentials. If not given for the oracle
+ *     profile, the user is asked for them when logging into edgar1.</li>
+ * </ul>
+ * The embedded profile runs an H2 database in Oracle compatibility mode, created on first use
+ * from sql/schema.sql and sql/indexes.sql, so that the program and its benchmarks run without
+ * access to edgar1. The H2 driver (lib/h2.jar, H2 2.2.224) is shipped alongside the Oracle driver
+ * in lib/. PL/SQL blocks are Oracle-only, so statements normally sent as a single
+ * block are sent one at a time on the embedded profile (see #supportsPlsql()).
+ */
+public class DataSourceConfig {
+
+    /**
+     * Kinds of database supported
+     */
+    public enum Profile {
+        /**
+         * An Oracle database such as edgar1
+         */
+        ORACLE,
+
+        /**
+         * A local H2 database file
+         */
+        EMBEDDED
+    }
+
+    /**
+     * Default location of the configuration file
+     */
+    private static final String CONFIG_FILE = "alset.properties";
+
+    /**
+     * Default file of the embedded database
+     */
+    private static final String EMBEDDED_FILE = "./data/alset";
+
+    /**
+     * Settings of the embedded database. YEAR is a keyword in H2, but a column name here.
+     */
+    private static final String EMBEDDED_SETTINGS = ";MODE=Oracle;NON_KEYWORDS=YEAR";
+
+    /**
+     * Default user of the embedded database
+     */
+    private static final String EMBEDDED_USER = "sa";
+
+    /**
+     * Scripts creating the embedded database, run in order
+     */
+    private static final String[] SCHEMA_SCRIPTS = {"sql/schema.sql", "sql/indexes.sql"};
+
+    /**
+     * Kind of database
+     */
+    private final Profile profile;
+
+    /**
+     * JDBC URL of database
+     */
+    private final String url;
+
+    /**
+     * User to connect as, or null if the user must be asked
+     */
+    private final String user;
+
+    /**
+     * Password to connect with, or null if the user must be asked
+     */
+    private final String password;
+
+    /**
+     * Constructs a new DataSourceConfig
+     *
+     * @param profile:  Kind of database
+     * @param url:      JDBC URL of database
+     * @param user:     User to connect as, or null if the user must be asked
+     * @param password: Password to connect with, or null if the user must be asked
+     */
+    public DataSourceConfig(Profile profile, String url, String user, String password) {
+        this.profile = profile;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+    }
+
+    /**
+     * Reads the configured data source from the configuration file and system properties.
+     *
+     * @return data source configuration
+     * @throws IllegalArgumentException if the configured profile is unknown
+     */
+    public static DataSourceConfig load() throws IllegalArgumentException {
+        Properties properties = new Properties();
+        Path file = Paths.get(System.getProperty("alset.config", CONFIG_FILE));
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                System.err.println("Could not read " + file + ": " + e.getMessage());
+            }
+        }
+        properties.putAll(System.getProperties());
+
+        String name = properties.getProperty("alset.db.profile", "oracle");
+        Profile profile;
+        try {
+            profile = Profile.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown database profile: " + name);
+        }
+
+        if (profile == Profile.EMBEDDED) {
+            return new DataSourceConfig(
+                    profile,
+                    properties.getProperty("alset.db.url", "jdbc:h2:" + EMBEDDED_FILE + EMBEDDED_SETTINGS),
+                    properties.getProperty("alset.db.user", EMBEDDED_USER),
+                    properties.getProperty("alset.db.password", "")
+            );
+        }
+        return new DataSourceConfig(
+                profile,
+                properties.getProperty("alset.db.url", Strings.EDGAR1_URL),
+                properties.getProperty("alset.db.user"),
+                properties.getProperty("alset.db.password")
+        );
+    }
+
+    /**
+     * Describes an embedded database stored in a given file.
+     *
+     * @param file: Path of database file, without extension
+     * @return data source configuration
+     */
+    public static DataSourceConfig embedded(String file) {
+        return new DataSourceConfig(Profile.EMBEDDED, "jdbc:h2:" + file + EMBEDDED_SETTINGS, EMBEDDED_USER, "");
+    }
+
+    /**
+     * Describes a database given by its URL, guessing the profile from the URL.
+     *
+     * @param url:      JDBC URL of database
+     * @param user:     User to connect as
+     * @param password: Password to connect with
+     * @return data source configuration
+     */
+    public static DataSourceConfig forUrl(String url, String user, String password) {
+        Profile profile = url.startsWith("jdbc:h2:") ? Profile.EMBEDDED : Profile.ORACLE;
+        return new DataSourceConfig(profile, url, user, password);
+    }
+
+    /**
+     * Returns the same data source, connected to with the given credentials.
+     *
+     * @param user:     User to connect as
+     * @param password: Password to connect with
+     * @return data source configuration
+     */
+    public DataSourceConfig withCredentials(String user, String password) {
+        return new DataSourceConfig(profile, url, user, password);
+    }
+
+    /**
+     * Prepares a newly connected database for use. An embedded database without any tables
+     * yet is created from the schema scripts; other databases are left as they are.
+     *
+     * @param conn: Connection to database
+     * @throws SQLException if the schema could not be created
+     */
+    public void initialize(Connection conn) throws SQLException {
+        if (profile != Profile.EMBEDDED || hasSchema(conn)) return;
+        for (String script : SCHEMA_SCRIPTS) {
+            for (String sql : readScript(Paths.get(script))) {
+                try (Statement s = conn.createStatement()) {
+                    s.execute(sql);
+                }
+            }
+        }
+        conn.commit();
+    }
+
+    /**
+     * Returns true if the database already has the program's tables
+     *
+     * @param conn: Connection to database
+     * @return true if the tables exist, otherwise false
+     */
+    private static boolean hasSchema(Connection conn) {
+        try (PreparedStatement s = conn.prepareStatement("SELECT COUNT(*) FROM customer")) {
+            s.executeQuery().close();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Splits an SQL script into its statements. Statements end with a semicolon at the
+     * end of a line, and lines starting with "--" are comments.
+     *
+     * @param script: Path of script
+     * @return statements of script
+     * @throws SQLException if the script could not be read
+     */
+    private static List<String> readScript(Path script) throws SQLException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(script, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + script, e);
+        }
+
+        List<String> statements = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+            if (trimmed.endsWith(";")) {
+                sb.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(trimmed).append(' ');
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Returns true if credentials are configured, so that connecting needs no input from the user
+     *
+     * @return true if credentials are configured, otherwise false
+     */
+    public boolean hasCredentials() {
+        return user != null && password != null;
+    }
+
+    /**
+     * Returns true if the database runs PL/SQL blocks
+     *
+     * @return true if PL/SQL is supported, otherwise false
+     */
+    public boolean supportsPlsql() {
+        return profile == Profile.ORACLE;
+    }
+
+    /**
+     * Returns the kind of database
+     *
+     * @return profile
+     */
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the JDBC URL of the database
+     *
+     * @return url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the user to connect as
+     *
+     * @return user, or null if the user must be asked
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Returns the password to connect with
+     *
+     * @return password, or null if the user must be asked
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String toString() {
+        return profile.name().toLowerCase() + " database " + url;
+    }
+}
@@ -0,0 +1,279 @@
+package connection;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Log of slow queries and database errors.
+ * <p>
+ * A query is logged when a single execution takes longer than the threshold set by the
+ * alset.query.slowMillis system property (250 ms by default), along with its bind parameters.
+ * Parameters bound to sensitive columns (passwords and card details) are written as "***".
+ * Database errors are logged along with the query which failed, if any.
+ * <p>
+ * The log is appended to the file named by the alset.query.log system property
+ * (alset-queries.log by default), and is turned off by setting that property to an empty string.
+ */
+public class QueryLog {
+
+    /**
+     * Columns whose values are never logged
+     */
+    private static final Set<String> SENSITIVE_COLUMNS = new HashSet<>(Arrays.asList("password", "card_num", "cvv"));
+
+    /**
+     * Executions taking longer than this (in nanoseconds) are logged
+     */
+    private static final long SLOW_NANOS = Long.getLong("alset.query.slowMillis", 250) * 1_000_000L;
+
+    /**
+     * File being logged to, or null if logging is turned off
+     */
+    private static final Path FILE = logFile();
+
+    /**
+     * Whether each parameter of a query is bound to a sensitive column, by SQL
+     */
+    private static final Map<String, boolean[]> sensitive = new ConcurrentHashMap<>();
+
+    /**
+     * Writer of log file, opened on first use
+     */
+    private static BufferedWriter writer = null;
+
+    /**
+     * Number of errors logged by each thread
+     */
+    private static final ThreadLocal<long[]> threadErrors = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Private constructor of QueryLog
+     */
+    private QueryLog() {
+    }
+
+    /**
+     * Returns true if an execution took long enough to be logged
+     *
+     * @param nanos: Time (in nanoseconds) the execution took
+     * @return true if the execution is slow, otherwise false
+     */
+    static boolean isSlow(long nanos) {
+        return nanos > SLOW_NANOS && FILE != null;
+    }
+
+    /**
+     * Logs a slow execution of a query
+     *
+     * @param sql:    SQL of query
+     * @param nanos:  Time (in nanoseconds) the execution took
+     * @param params: Bind parameters, by index starting at 1 (index 0 is unused)
+     */
+    static void slowQuery(String sql, long nanos, List<Object> params) {
+        write("SLOW " + QueryMetrics.nameOf(sql) + " " + nanos / 1_000_000 + "ms params=" + redact(sql, params));
+    }
+
+    /**
+     * Logs a database error
+     *
+     * @param context: What was being done, e.g. the name of the failing method
+     * @param e:       Error
+     */
+    public static void error(String context, Exception e) {
+        threadErrors.get()[0]++;
+        write("ERROR " + context + ": " + e);
+    }
+
+    /**
+     * Returns the number of errors logged by the current thread, so that work run outside
+     * of a session (where errors are only logged) can tell whether it failed.
+     *
+     * @return number of errors
+     */
+    public static long getThreadErrors() {
+        return threadErrors.get()[0];
+    }
+
+    /**
+     * Returns bind parameters as text, with the values of sensitive columns hidden
+     *
+     * @param sql:    SQL of query
+     * @param params: Bind parameters, by index starting at 1 (index 0 is unused)
+     * @return parameters as text
+     */
+    static String redact(String sql, List<Object> params) {
+        boolean[] hidden = sensitive.computeIfAbsent(sql, QueryLog::findSensitive);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 1; i < params.size(); i++) {
+            if (i > 1) sb.append(", ");
+            boolean hide = i - 1 >= hidden.length || hidden[i - 1];
+            Object value = params.get(i);
+            if (value == null) sb.append("null");
+            else if (hide) sb.append("***");
+            else if (value instanceof String) sb.append('\'').append(value).append('\'');
+            else sb.append(value);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Finds which parameters of a query are bound to sensitive columns. A parameter in the
+     * VALUES of an INSERT belongs to the column at the same position in the INSERT's column
+     * list; any other parameter belongs to the column it is compared with or assigned to
+     * (e.g. "password=?"). Parameters whose column cannot be told are treated as sensitive.
+     *
+     * @param sql: SQL of query
+     * @return whether each parameter is sensitive, in order
+     */
+    private static boolean[] findSensitive(String sql) {
+        List<String> tokens = tokenize(sql);
+        List<Boolean> hidden = new ArrayList<>();
+
+        List<String> insertColumns = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (token.equals("insert")) {
+                insertColumns = null;
+            } else if (token.equals("into") && i + 2 < tokens.size() && tokens.get(i + 2).equals("(")) {
+                // INSERT INTO table (columns...)
+                insertColumns = new ArrayList<>();
+                int j = i + 3;
+                for (; j < tokens.size() && !tokens.get(j).equals(")"); j++) {
+                    if (!tokens.get(j).equals(",")) insertColumns.add(tokens.get(j));
+                }
+                i = j;
+            } else if (token.equals("values") && insertColumns != null) {
+                // VALUES (values...), matched with the columns by position
+                int position = 0;
+                int depth = 0;
+                int j = i + 1;
+                for (; j < tokens.size(); j++) {
+                    String t = tokens.get(j);
+                    if (t.equals("(")) depth++;
+                    else if (t.equals(")") && --depth == 0) break;
+                    else if (t.equals(",") && depth == 1) position++;
+                    else if (t.equals("?")) {
+                        hidden.add(position >= insertColumns.size() || isSensitive(insertColumns.get(position)));
+                    }
+                }
+                insertColumns = null;
+                i = j;
+            } else if (token.equals("?")) {
+                hidden.add(isSensitive(columnBefore(tokens, i)));
+            }
+        }
+
+        boolean[] result = new boolean[hidden.size()];
+        for (int i = 0; i < result.length; i++) result[i] = hidden.get(i);
+        return result;
+    }
+
+    /**
+     * Finds the column a parameter is compared with or assigned to, skipping back over the
+     * operator between them.
+     *
+     * @param tokens: Tokens of query
+     * @param index:  Index of parameter's token
+     * @return column, or null if none is found
+     */
+    private static String columnBefore(List<String> tokens, int index) {
+        for (int i = index - 1; i >= 0 && i >= index - 3; i--) {
+            String t = tokens.get(i);
+            if (t.matches("[=<>!]+|like|in|\\(|not")) continue;
+            return t.matches("[a-z_][a-z0-9_.]*") ? t : null;
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if values of a column must not be logged
+     *
+     * @param column: Column, possibly qualified by a table alias
+     * @return true if sensitive, otherwise false
+     */
+    private static boolean isSensitive(String column) {
+        if (column == null) return true;
+        int dot = column.lastIndexOf('.');
+        return SENSITIVE_COLUMNS.contains(column.substring(dot + 1));
+    }
+
+    /**
+     * Splits a query into lower case words, '?', and single punctuation characters.
+     * Comparison operators are kept together.
+     *
+     * @param sql: SQL of query
+     * @return tokens
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                // skip string literals
+                int end = sql.indexOf('\'', i + 1);
+                i = end < 0 ? sql.length() : end + 1;
+                tokens.add("'");
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                int start = i;
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(sql.substring(start, i).toLowerCase());
+            } else if (c == '=' || c == '<' || c == '>' || c == '!') {
+                int start = i;
+                while (i < sql.length() && "=<>!".indexOf(sql.charAt(i)) >= 0) i++;
+                tokens.add(sql.substring(start, i));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Appends a line to the log, prefixed with the current time.
+     *
+     * @param line: Line to log
+     */
+    private static synchronized void write(String line) {
+        if (FILE == null) return;
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(FILE, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(LocalDateTime.now() + " " + line);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            // logging must never break the program
+        }
+    }
+
+    /**
+     * Returns the file to log to
+     *
+     * @return path, or null if logging is turned off
+     */
+    private static Path logFile() {
+        String name = System.getProperty("alset.query.log", "alset-queries.log");
+        return name.isEmpty() ? null : Paths.get(name);
+    }
+}
@@ -0,0 +1,359 @@
+package connection;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Latency, row and byte counts of every query run through a StatementCache, kept per query name.
+ * <p>
+ * A query is named after the constant in constants.Statement holding its SQL (e.g. GET_VEHICLES),
+ * so that the numbers point straight at the code running it. Latencies are kept in histograms with
+ * logarithmic buckets, as done by HdrHistogram: each bucket is at most about 6% wide, so percentiles
+ * stay accurate from microseconds to minutes while recording costs a single atomic increment.
+ * <p>
+ * The collected numbers are read with dump(), in the Prometheus text format (see server.MetricsServer).
+ */
+public class QueryMetrics {
+
+    /**
+     * A latency histogram, in microseconds.
+     * <p>
+     * Values below 2^SUB_BUCKET_BITS get a bucket each. Above that, every power of two is split into
+     * 2^(SUB_BUCKET_BITS - 1) buckets of equal width.
+     */
+    static class Histogram {
+        /**
+         * Number of bits of a value kept exactly
+         */
+        private static final int SUB_BUCKET_BITS = 5;
+
+        /**
+         * Number of values with a bucket each
+         */
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        /**
+         * Number of buckets per power of two above SUB_BUCKETS
+         */
+        private static final int HALF = SUB_BUCKETS / 2;
+
+        /**
+         * Largest value recorded (about 12 days); larger values are recorded as this
+         */
+        private static final long MAX_VALUE = (1L << 40) - 1;
+
+        /**
+         * Counts of values in each bucket
+         */
+        private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+
+        /**
+         * Number of values recorded
+         */
+        private final LongAdder total = new LongAdder();
+
+        /**
+         * Sum of values recorded
+         */
+        private final LongAdder sum = new LongAdder();
+
+        /**
+         * Largest value recorded
+         */
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * Records a value
+         *
+         * @param micros: Value in microseconds
+         */
+        void record(long micros) {
+            long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+            counts.incrementAndGet(indexOf(value));
+            total.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        /**
+         * Returns the value below which the given fraction of recorded values fall. The result is
+         * the upper end of the bucket holding that value, so it overstates it by at most a bucket.
+         *
+         * @param fraction: Fraction between 0 and 1
+         * @return value in microseconds, or 0 if nothing was recorded
+         */
+        long percentile(double fraction) {
+            long n = total.sum();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(fraction * n));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max.get());
+            }
+            return max.get();
+        }
+
+        /**
+         * Returns the number of values recorded
+         *
+         * @return count
+         */
+        long count() {
+            return total.sum();
+        }
+
+        /**
+         * Returns the sum of values recorded
+         *
+         * @return sum in microseconds
+         */
+        long sum() {
+            return sum.sum();
+        }
+
+        /**
+         * Returns the largest value recorded
+         *
+         * @return value in microseconds
+         */
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * Returns the bucket holding a value
+         *
+         * @param value: Value, between 0 and MAX_VALUE
+         * @return bucket index
+         */
+        private static int indexOf(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return SUB_BUCKETS + (shift - 1) * HALF + (int) ((value >> shift) - HALF);
+        }
+
+        /**
+         * Returns the largest value held by a bucket
+         *
+         * @param index: Bucket index
+         * @return value
+         */
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int shift = (index - SUB_BUCKETS) / HALF + 1;
+            long lower = (long) ((index - SUB_BUCKETS) % HALF + HALF) << shift;
+            return lower + (1L << shift) - 1;
+        }
+    }
+
+    /**
+     * Numbers kept for one query.
+     */
+    static class Stats {
+        /**
+         * Execution latencies
+         */
+        final Histogram latency = new Histogram();
+
+        /**
+         * Number of executions which failed
+         */
+        final LongAdder errors = new LongAdder();
+
+        /**
+         * Rows read or changed
+         */
+        final LongAdder rows = new LongAdder();
+
+        /**
+         * Approximate bytes read from result sets
+         */
+        final LongAdder bytes = new LongAdder();
+    }
+
+    /**
+     * Quantiles reported by dump()
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Numbers of every query run so far, by query name
+     */
+    private static final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Names of the queries in constants.Statement, by SQL. Loaded on first use.
+     */
+    private static volatile Map<String, String> names = null;
+
+    /**
+     * Names of queries not found in constants.Statement, by SQL
+     */
+    private static final Map<String, String> otherNames = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor of QueryMetrics
+     */
+    private QueryMetrics() {
+    }
+
+    /**
+     * Records an execution of a query
+     *
+     * @param sql:    SQL of query
+     * @param nanos:  Time (in nanoseconds) the execution took
+     * @param failed: true if the execution threw an exception
+     */
+    static void recordExecution(String sql, long nanos, boolean failed) {
+        Stats s = statsOf(sql);
+        s.latency.record(nanos / 1000);
+        if (failed) s.errors.increment();
+    }
+
+    /**
+     * Records rows read or changed by a query
+     *
+     * @param sql:   SQL of query
+     * @param rows:  Number of rows
+     * @param bytes: Approximate bytes read
+     */
+    static void recordRows(String sql, long rows, long bytes) {
+        if (rows == 0 && bytes == 0) return;
+        Stats s = statsOf(sql);
+        s.rows.add(rows);
+        s.bytes.add(bytes);
+    }
+
+    /**
+     * Returns the name of a query: the name of the constant in constants.Statement holding its
+     * SQL, or the start of the SQL for queries not found there.
+     *
+     * @param sql: SQL of query
+     * @return query name
+     */
+    public static String nameOf(String sql) {
+        Map<String, String> n = names;
+        if (n == null) names = n = loadNames();
+        String name = n.get(sql);
+        if (name != null) return name;
+        return otherNames.computeIfAbsent(sql, k -> {
+            String flat = k.replaceAll("\\s+", " ").trim();
+            return flat.length() <= 40 ? flat : flat.substring(0, 40) + "...";
+        });
+    }
+
+    /**
+     * Reads the names of the SQL constants in constants.Statement
+     *
+     * @return names by SQL
+     */
+    private static Map<String, String> loadNames() {
+        Map<String, String> byName = new HashMap<>();
+        for (Field field : constants.Statement.class.getFields()) {
+            if (field.getType() != String.class || !Modifier.isStatic(field.getModifiers())) continue;
+            try {
+                byName.putIfAbsent((String) field.get(null), field.getName());
+            } catch (IllegalAccessException ignored) {
+            }
+        }
+        return byName;
+    }
+
+    /**
+     * Returns the numbers kept for a query, creating them on first use
+     *
+     * @param sql: SQL of query
+     * @return stats
+     */
+    private static Stats statsOf(String sql) {
+        return stats.computeIfAbsent(nameOf(sql), k -> new Stats());
+    }
+
+    /**
+     * Returns every collected number in the Prometheus text format, queries in name order.
+     *
+     * @return metrics
+     */
+    public static String dump() {
+        Map<String, Stats> sorted = new TreeMap<>(stats);
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# HELP alset_query_seconds Execution time of each query.\n");
+        sb.append("# TYPE alset_query_seconds summary\n");
+        for (Map.Entry<String, Stats> e : sorted.entrySet()) {
+            Histogram h = e.getValue().latency;
+            String label = label(e.getKey());
+            for (double q : QUANTILES) {
+                sb.append("alset_query_seconds{").append(label).append(",quantile=\"").append(q).append("\"} ")
+                        .append(seconds(h.percentile(q))).append('\n');
+            }
+            sb.append("alset_query_seconds_sum{").append(label).append("} ").append(seconds(h.sum())).append('\n');
+            sb.append("alset_query_seconds_count{").append(label).append("} ").append(h.count()).append('\n');
+        }
+        appendMetric(sb, sorted, "alset_query_max_seconds", "gauge", "Longest execution of each query.",
+                s -> seconds(s.latency.max()));
+        appendMetric(sb, sorted, "alset_query_errors_total", "counter", "Failed executions of each query.",
+                s -> String.valueOf(s.errors.sum()));
+        appendMetric(sb, sorted, "alset_query_rows_total", "counter", "Rows read or changed by each query.",
+                s -> String.valueOf(s.rows.sum()));
+        appendMetric(sb, sorted, "alset_query_bytes_total", "counter", "Approximate bytes read by each query.",
+                s -> String.valueOf(s.bytes.sum()));
+
+        sb.append("# TYPE alset_statement_cache_hits_total counter\n");
+        sb.append("alset_statement_cache_hits_total ").append(StatementCache.getHits()).append('\n');
+        sb.append("# TYPE alset_statement_cache_misses_total counter\n");
+        sb.append("alset_statement_cache_misses_total ").append(StatementCache.getMisses()).append('\n');
+        sb.append("# TYPE alset_statement_cache_evictions_total counter\n");
+        sb.append("alset_statement_cache_evictions_total ").append(StatementCache.getEvictions()).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Appends one number per query to a dump
+     *
+     * @param sb:     Dump being built
+     * @param sorted: Numbers by query name
+     * @param metric: Metric name
+     * @param type:   Metric type
+     * @param help:   Metric description
+     * @param value:  Number reported for a query
+     */
+    private static void appendMetric(StringBuilder sb, Map<String, Stats> sorted, String metric, String type, String help,
+                                     Function<Stats, String> value) {
+        sb.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+        for (Map.Entry<String, Stats> e : sorted.entrySet()) {
+            String label = label(e.getKey());
+            sb.append(metric).append('{').append(label).append("} ").append(value.apply(e.getValue())).append('\n');
+        }
+    }
+
+    /**
+     * Returns the label identifying a query in a dump
+     *
+     * @param name: Query name
+     * @return label
+     */
+    private static String label(String name) {
+        return "query=\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Formats microseconds as seconds
+     *
+     * @param micros: Microseconds
+     * @return seconds
+     */
+    private static String seconds(long micros) {
+        return String.valueOf(micros / 1e6);
+    }
+}
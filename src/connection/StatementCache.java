@@ -0,0 +1,512 @@
+package connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least-recently-used cache of prepared statements belonging to a single connection.
+ * <p>
+ * Statements are keyed by their SQL (one of the constants in constants.Statement). The statements
+ * handed out by the cache are wrappers whose close() returns the statement to the cache instead of
+ * closing it, so callers keep using the regular prepare/execute/close pattern while repeated
+ * statements skip being parsed again by the database.
+ * <p>
+ * The wrappers also time every execution and count the rows it returns or changes, for
+ * QueryMetrics, and log slow executions with their bind parameters to QueryLog.
+ */
+public class StatementCache {
+
+    /**
+     * Number of statements served from a cache, across all connections
+     */
+    private static final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of statements which had to be prepared, across all connections
+     */
+    private static final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Number of statements closed to make room in a cache, across all connections
+     */
+    private static final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * A statement held by the cache.
+     */
+    private class Entry implements InvocationHandler {
+        /**
+         * SQL of the statement
+         */
+        private final String sql;
+
+        /**
+         * The real, prepared statement
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * Whether the statement is kept in the cache, rather than closed once given back
+         */
+        private final boolean cached;
+
+        /**
+         * Parameters currently bound, by index (index 0 is unused). Only kept for the slow query log.
+         */
+        private final ArrayList<Object> params = new ArrayList<>();
+
+        /**
+         * The wrapper handed out to callers
+         */
+        private final PreparedStatement wrapper;
+
+        /**
+         * Whether the statement is currently handed out
+         */
+        private boolean inUse = false;
+
+        /**
+         * Whether the statement has been evicted while in use, and must be closed once returned
+         */
+        private boolean evicted = false;
+
+        /**
+         * Result set produced by the statement's last query
+         */
+        private ResultSet lastResult = null;
+
+        /**
+         * Constructs a new entry
+         *
+         * @param sql:       SQL of statement
+         * @param statement: Prepared statement to cache
+         * @param cached:    Whether the statement is kept in the cache
+         */
+        private Entry(String sql, PreparedStatement statement, boolean cached) {
+            this.sql = sql;
+            this.statement = statement;
+            this.cached = cached;
+            this.wrapper = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this
+            );
+        }
+
+        /**
+         * Intercepts calls made on the wrapper, forwarding everything except close() to the real statement.
+         *
+         * @param proxy:  Wrapper
+         * @param method: Method called
+         * @param args:   Method arguments
+         * @return result of the call
+         * @throws Throwable if the real statement throws
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    giveBack(this);
+                    return null;
+                case "isClosed":
+                    return !inUse;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (!inUse) throw new SQLException("Statement is closed.");
+                    if (method.getName().startsWith("execute")) return execute(method, args);
+                    if (method.getName().startsWith("set")) bind(method.getName(), args);
+                    try {
+                        return track(method.invoke(statement, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        /**
+         * Runs one of the statement's execute methods, recording how long it took and the
+         * number of rows it changed.
+         *
+         * @param method: Execute method called
+         * @param args:   Method arguments
+         * @return result of the call
+         * @throws Throwable if the real statement throws
+         */
+        private Object execute(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = track(method.invoke(statement, args));
+                failed = false;
+                if (result instanceof Number) {
+                    QueryMetrics.recordRows(sql, Math.max(0, ((Number) result).longValue()), 0);
+                } else if (result instanceof int[]) {
+                    long rows = 0;
+                    for (int count : (int[]) result) rows += Math.max(0, count);
+                    QueryMetrics.recordRows(sql, rows, 0);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                long nanos = System.nanoTime() - start;
+                QueryMetrics.recordExecution(sql, nanos, failed);
+                if (QueryLog.isSlow(nanos)) QueryLog.slowQuery(sql, nanos, params);
+            }
+        }
+
+        /**
+         * Remembers a parameter being bound, for the slow query log.
+         *
+         * @param name: Name of setter called, e.g. setString
+         * @param args: Setter arguments, the parameter index first
+         */
+        private void bind(String name, Object[] args) {
+            if (args == null || args.length < 2 || !(args[0] instanceof Integer)) return;
+            int index = (Integer) args[0];
+            while (params.size() <= index) params.add(null);
+            params.set(index, name.equals("setNull") ? null : args[1]);
+        }
+
+        /**
+         * Wraps a result set returned by the statement, so that the rows read from it are counted.
+         *
+         * @param result: Value returned by the statement
+         * @return wrapped result set, or the value itself if not a result set
+         */
+        private Object track(Object result) {
+            if (!(result instanceof ResultSet)) return result;
+            lastResult = (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    new Rows(sql, (ResultSet) result)
+            );
+            return lastResult;
+        }
+    }
+
+    /**
+     * Counts the rows and bytes read from a result set, and reports them to QueryMetrics
+     * once the result set is exhausted or closed.
+     */
+    private static class Rows implements InvocationHandler {
+        /**
+         * SQL of the query producing the result set
+         */
+        private final String sql;
+
+        /**
+         * The real result set
+         */
+        private final ResultSet result;
+
+        /**
+         * Rows read so far
+         */
+        private long rows = 0;
+
+        /**
+         * Approximate bytes read so far
+         */
+        private long bytes = 0;
+
+        /**
+         * Whether the counts have been reported
+         */
+        private boolean reported = false;
+
+        /**
+         * Constructs a new Rows
+         *
+         * @param sql:    SQL of query
+         * @param result: Result set to count
+         */
+        private Rows(String sql, ResultSet result) {
+            this.sql = sql;
+            this.result = result;
+        }
+
+        /**
+         * Intercepts calls made on the wrapped result set, counting rows and values read.
+         *
+         * @param proxy:  Wrapper
+         * @param method: Method called
+         * @param args:   Method arguments
+         * @return result of the call
+         * @throws Throwable if the real result set throws
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) return proxy == args[0];
+            if (name.equals("hashCode")) return System.identityHashCode(proxy);
+            if (name.equals("close")) report();
+
+            Object value;
+            try {
+                value = method.invoke(result, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (name.equals("next")) {
+                if ((Boolean) value) rows++;
+                else report();
+            } else if (name.startsWith("get") && args != null && args.length > 0
+                    && (args[0] instanceof Integer || args[0] instanceof String)) {
+                bytes += sizeOf(value);
+            }
+            return value;
+        }
+
+        /**
+         * Reports the counts to QueryMetrics, once.
+         */
+        private void report() {
+            if (reported) return;
+            reported = true;
+            QueryMetrics.recordRows(sql, rows, bytes);
+        }
+
+        /**
+         * Estimates the size of a value read from a result set
+         *
+         * @param value: Value read
+         * @return size in bytes
+         */
+        private static long sizeOf(Object value) {
+            if (value == null) return 0;
+            if (value instanceof String) return ((String) value).length();
+            if (value instanceof byte[]) return ((byte[]) value).length;
+            return 8;
+        }
+    }
+
+    /**
+     * Connection which statements are prepared on
+     */
+    private final Connection connection;
+
+    /**
+     * Cached statements, from least to most recently used
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Every statement currently handed out, including uncached ones and ones evicted since
+     */
+    private final Set<Entry> handedOut = new HashSet<>();
+
+    /**
+     * Constructs a new statement cache
+     *
+     * @param connection: Connection to prepare statements on
+     * @param capacity:   Maximum number of statements to keep prepared
+     */
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.entries = new LinkedHashMap<String, Entry>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= capacity) return false;
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one if available.
+     * Closing the returned statement gives it back to the cache.
+     *
+     * @param sql: SQL of statement
+     * @return prepared statement
+     * @throws SQLException if a database access error occurs
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null && !entry.inUse) {
+            hits.incrementAndGet();
+            return handOut(entry);
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement statement = connection.prepareStatement(sql);
+
+        // the cached statement is already in use (e.g. a nested call), so hand out an uncached one
+        if (entry != null) return handOut(new Entry(sql, statement, false));
+
+        entry = new Entry(sql, statement, true);
+        entries.put(sql, entry);
+        return handOut(entry);
+    }
+
+    /**
+     * Closes every statement, cached or handed out. Called when the underlying connection is closed.
+     */
+    public synchronized void closeAll() {
+        for (Entry entry : entries.values()) closeQuietly(entry.statement);
+        for (Entry entry : handedOut) closeQuietly(entry.statement);
+        entries.clear();
+        handedOut.clear();
+    }
+
+    /**
+     * Gives back every statement still handed out, whether cached, uncached or evicted since.
+     * Called when the connection returns to its pool, at which point no caller can still be
+     * using its statements.
+     */
+    public synchronized void reclaim() {
+        for (Entry entry : handedOut.toArray(new Entry[0])) {
+            try {
+                giveBack(entry);
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Returns the number of statements currently cached
+     *
+     * @return cache size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Marks a statement as handed out to a caller
+     *
+     * @param entry: Entry being handed out
+     * @return wrapper of entry
+     */
+    private PreparedStatement handOut(Entry entry) {
+        entry.inUse = true;
+        handedOut.add(entry);
+        return entry.wrapper;
+    }
+
+    /**
+     * Returns a statement to the cache once its caller has closed it.
+     *
+     * @param entry: Entry being returned
+     * @throws SQLException if a database access error occurs
+     */
+    private synchronized void giveBack(Entry entry) throws SQLException {
+        if (!entry.inUse) return;
+        entry.inUse = false;
+        handedOut.remove(entry);
+        entry.params.clear();
+        if (entry.evicted || !entry.cached) {
+            try {
+                if (entry.lastResult != null) entry.lastResult.close();
+            } finally {
+                entry.lastResult = null;
+                entry.statement.close();
+            }
+            return;
+        }
+        try {
+            if (entry.lastResult != null) entry.lastResult.close();
+            entry.statement.clearParameters();
+            entry.statement.clearBatch();
+        } catch (SQLException e) {
+            // the statement can no longer be reused
+            entries.remove(getKey(entry));
+            closeQuietly(entry.statement);
+        } finally {
+            entry.lastResult = null;
+        }
+    }
+
+    /**
+     * Closes a statement which has been pushed out of the cache, or marks it to be closed
+     * once its caller is done with it.
+     *
+     * @param entry: Evicted entry
+     */
+    private void evict(Entry entry) {
+        evictions.incrementAndGet();
+        if (entry.inUse) entry.evicted = true;
+        else closeQuietly(entry.statement);
+    }
+
+    /**
+     * Finds the SQL an entry is cached under.
+     *
+     * @param entry: Cached entry
+     * @return SQL of entry, or null if not cached
+     */
+    private String getKey(Entry entry) {
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue() == entry) return e.getKey();
+        }
+        return null;
+    }
+
+    /**
+     * Closes a statement, ignoring any errors.
+     *
+     * @param statement: Statement to close
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * Returns the number of statements served from a cache
+     *
+     * @return cache hits
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of statements which had to be prepared
+     *
+     * @return cache misses
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of statements pushed out of a cache
+     *
+     * @return cache evictions
+     */
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns a summary of the cache counters across all connections.
+     *
+     * @return cache statistics
+     */
+    public static String getStatistics() {
+        long h = getHits();
+        long m = getMisses();
+        long ratio = h + m == 0 ? 0 : h * 100 / (h + m);
+        return "hits=" + h + " misses=" + m + " hitRatio=" + ratio + "% evictions=" + getEvictions();
+    }
+}
@@ -44,9 +44,9 @@ public class Statement {
      * a given model.
      */
     public static final String GET_BUYABLE_OPTIONS =
-            "SELECT distinct option_name " +
+            "SELECT distinct model_options.option_name " +
                     "FROM model_options " +
-                        "NATURAL JOIN custom_option " +
+                        "JOIN custom_option ON custom_option.option_name = model_options.option_name " +
                     "WHERE option_price IS NOT NULL " +
                         "AND name=? " +
                         "AND year=?";
@@ -69,18 +69,18 @@ public class Statement {
                     "WHERE option_name=?";
 
     /**
-     * Used for obtaining the current max serial number
+     * Used for reserving a block of serial numbers (see sql/sequences.sql)
      */
-    public static final String GET_MAX_SN =
-            "SELECT MAX(serial_num) AS sn " +
-                    "FROM vehicle";
+    public static final String NEXT_SN_BLOCK =
+            "SELECT vehicle_sn_seq.NEXTVAL AS id " +
+                    "FROM dual";
 
     /**
-     * Used for obtaining the current max location id
+     * Used for reserving a block of location ids (see sql/sequences.sql)
      */
-    public static final String GET_NEW_LOCATION_ID =
-            "SELECT (COUNT(location_id) + 1) AS new_id " +
-                    "FROM service_location";
+    public static final String NEXT_LOCATION_ID_BLOCK =
+            "SELECT location_id_seq.NEXTVAL AS id " +
+                    "FROM dual";
 
     /**
      * Used for obtaining a set of all years currently being sold new for
@@ -132,24 +132,37 @@ public class Statement {
 
 
     /**
-     * Used for getting a list of vehicle purchases that a given customer has made
-     */
-    public static final String GET_PURCHASE_HISTORY =
-            "SELECT timestamp, year, name, serial_num, sales_price, card_num " +
-                    "FROM purchases " +
-                    "NATURAL JOIN vehicle " +
-                    "NATURAL JOIN vehicle_model " +
-                    "WHERE email=?";
-
-    /**
-     * Used for getting a list of repair transactions that a given customer has made
-     */
-    public static final String GET_REPAIR_HISTORY =
-            "SELECT start_time, year, name, serial_num, price, repair_type, card_num " +
-                    "FROM repairs " +
-                        "NATURAL JOIN vehicle " +
-                        "NATURAL JOIN vehicle_model " +
-                    "WHERE email=?";
+     * Used for getting a page of a customer's purchases (kind 0) and repairs (kind 1), ordered by
+     * time, kind, serial number, end time and repair type. The last two tell apart repairs of one
+     * vehicle started in the same second; they are 0 and ' ' for purchases and when null.
+     * Parameters: email (twice), then the key of the last row of the previous page as time, time,
+     * kind, kind, serial_num, serial_num, end time, end time, repair type, and finally the page size.
+     */
+    public static final String GET_TRANSACTION_HISTORY =
+            "SELECT txn_time, kind, serial_num, end_key, type_key, year, name, price, repair_type, card_num " +
+                    "FROM (" +
+                        "SELECT purchases.timestamp AS txn_time, 0 AS kind, purchases.serial_num, " +
+                                "0 AS end_key, ' ' AS type_key, year, name, " +
+                                "sales_price AS price, NULL AS repair_type, card_num " +
+                            "FROM purchases " +
+                                "JOIN vehicle ON vehicle.serial_num = purchases.serial_num " +
+                                "JOIN vehicle_model ON vehicle_model.serial_num = purchases.serial_num " +
+                            "WHERE email=? " +
+                        "UNION ALL " +
+                        "SELECT start_time, 1, repairs.serial_num, NVL(end_time, 0), NVL(repair_type, ' '), " +
+                                "year, name, price, repair_type, card_num " +
+                            "FROM repairs " +
+                                "JOIN vehicle ON vehicle.serial_num = repairs.serial_num " +
+                                "JOIN vehicle_model ON vehicle_model.serial_num = repairs.serial_num " +
+                            "WHERE email=?" +
+                    ") " +
+                    "WHERE txn_time > ? " +
+                        "OR (txn_time = ? AND (kind > ? " +
+                        "OR (kind = ? AND (serial_num > ? " +
+                        "OR (serial_num = ? AND (end_key > ? " +
+                        "OR (end_key = ? AND type_key > ?))))))) " +
+                    "ORDER BY txn_time, kind, serial_num, end_key, type_key " +
+                    "FETCH FIRST ? ROWS ONLY";
 
     /**
      * Used for getting a list of vehicles in a given location's showroom.
@@ -159,13 +172,23 @@ public class Statement {
                     "FROM showroom " +
                     "WHERE location_id=?";
 
+    /**
+     * Used for getting a list of manufactured vehicles in a given location's showroom.
+     */
+    public static final String GET_MANUFACTURED_SHOWROOM_VEHICLES =
+            "SELECT showroom.serial_num " +
+                    "FROM showroom " +
+                    "JOIN vehicle ON vehicle.serial_num = showroom.serial_num " +
+                    "WHERE is_manufactured='True' " +
+                    "AND location_id=?";
+
     /**
      * Used for getting a list of ordered showroom vehicles
      */
     public static final String GET_ORDERED_SHOWROOM_VEHICLES =
-            "SELECT serial_num " +
+            "SELECT showroom.serial_num " +
                     "FROM showroom " +
-                    "NATURAL JOIN vehicle " +
+                    "JOIN vehicle ON vehicle.serial_num = showroom.serial_num " +
                     "WHERE is_manufactured='False' " +
                     "AND location_id=?";
 
@@ -182,39 +205,45 @@ public class Statement {
      * Used for fetching the vehicle condition of a vehicle with a given serial number.
      */
     public static final String GET_VEHICLE_CONDITION =
-            "SELECT mileage, last_inspection, has_damage " +
+            "SELECT serial_num AS condition_serial_num, mileage, last_inspection, has_damage " +
                     "FROM vehicle_condition " +
                     "WHERE serial_num=?";
 
     /**
-     * Used for obtaining a set of all vehicles owned by a given customer.
+     * Used for obtaining a set of all vehicles owned by a given customer, along with
+     * each vehicle's condition (a null condition_serial_num if the vehicle has no condition yet).
      */
     public static final String GET_USER_VEHICLES =
-            "SELECT serial_num, year, name, is_manufactured " +
+            "SELECT vehicle.serial_num, year, name, is_manufactured, " +
+                    "vehicle_condition.serial_num AS condition_serial_num, mileage, last_inspection, has_damage " +
                     "FROM owner " +
-                        "NATURAL JOIN vehicle_model " +
-                        "NATURAL JOIN vehicle " +
+                        "JOIN vehicle_model ON vehicle_model.serial_num = owner.serial_num " +
+                        "JOIN vehicle ON vehicle.serial_num = owner.serial_num " +
+                        "LEFT OUTER JOIN vehicle_condition ON vehicle_condition.serial_num = vehicle.serial_num " +
                     "WHERE email=?";
 
     /**
      * Used for obtaining all data of a vehicle given its serial number.
      */
     public static final String GET_VEHICLE =
-            "SELECT serial_num, year, name, is_manufactured " +
+            "SELECT vehicle.serial_num, year, name, is_manufactured, " +
+                    "vehicle_condition.serial_num AS condition_serial_num, mileage, last_inspection, has_damage " +
                     "FROM vehicle_model " +
-                        "NATURAL JOIN vehicle " +
-                    "WHERE serial_num=?";
+                        "JOIN vehicle ON vehicle.serial_num = vehicle_model.serial_num " +
+                        "LEFT OUTER JOIN vehicle_condition ON vehicle_condition.serial_num = vehicle.serial_num " +
+                    "WHERE vehicle.serial_num=?";
 
     /**
-     * Used for getting a set of service locations which can repair a given a model/year.
+     * Used for obtaining all data of several vehicles at once. Must be completed
+     * with a parenthesized list of serial number parameters, e.g. "(?, ?, ?)".
      */
-    public static final String GET_REPAIRABLE_LOCATIONS =
-            "SELECT location_id, location_name, planet, country, state, city, street, zip " +
-                    "FROM service_location " +
-                        "NATURAL JOIN service_address " +
-                        "NATURAL JOIN repairable " +
-                    "WHERE year=? " +
-                        "AND name=?";
+    public static final String GET_VEHICLES_IN =
+            "SELECT vehicle.serial_num, year, name, is_manufactured, " +
+                    "vehicle_condition.serial_num AS condition_serial_num, mileage, last_inspection, has_damage " +
+                    "FROM vehicle_model " +
+                        "JOIN vehicle ON vehicle.serial_num = vehicle_model.serial_num " +
+                        "LEFT OUTER JOIN vehicle_condition ON vehicle_condition.serial_num = vehicle.serial_num " +
+                    "WHERE vehicle.serial_num IN ";
 
     /**
      * Used for fetching all custom options belonging to a given vehicle.
@@ -250,37 +279,48 @@ public class Statement {
      * Used for determining the service location that a given vehicle is currently being serviced at.
      */
     public static final String GET_SERVICE_LOCATION_OF_VEHICLE =
-            "SELECT location_id, location_name, planet, country, state, city, street, zip " +
+            "SELECT location_id " +
                     "FROM pickup " +
-                        "NATURAL JOIN service_location " +
-                        "NATURAL JOIN service_address " +
                     "WHERE serial_num=?";
 
     /**
-     * Used for determining all the models/years that a service location can repair
+     * Used for getting every model/year that every service location can repair
      */
-    public static final String GET_REPAIRABLE_MODELS =
-            "SELECT year, name " +
-                    "FROM repairable " +
-                    "WHERE location_id=?";
+    public static final String GET_ALL_REPAIRABLE =
+            "SELECT location_id, year, name " +
+                    "FROM repairable";
 
     /**
      * Used for getting a set of all vehicles currently being held in a service location's garage,
      * along with relevant service/repair information.
+     * <p>
+     * Only the latest repair of each vehicle by its pickup's customer is joined, picked with a window
+     * function over the repairs of the vehicles at the location, rather than a correlated MAX(start_time)
+     * per row. Parameters: location id (twice).
      */
     public static final String GET_GARAGE_VEHICLES =
             "SELECT pickup.email, pickup.serial_num, start_time, end_time, repair_type, price, ready " +
-                    "FROM repairs " +
-                        "FULL OUTER JOIN pickup " +
-                        "ON repairs.serial_num = pickup.serial_num " +
-                            "AND repairs.email = pickup.email " +
-                    "WHERE location_id=? " +
-                        "AND (start_time = (" +
-                            "SELECT MAX(start_time) " +
-                            "FROM repairs " +
-                            "WHERE serial_num = pickup.serial_num)" +
-                            "OR start_time IS NULL)";
+                    "FROM pickup " +
+                        "LEFT OUTER JOIN (" +
+                            "SELECT email, serial_num, start_time, end_time, repair_type, price, " +
+                                    "ROW_NUMBER() OVER (PARTITION BY serial_num, email ORDER BY start_time DESC) AS rn " +
+                                "FROM repairs " +
+                                "WHERE serial_num IN (" +
+                                    "SELECT serial_num " +
+                                    "FROM pickup " +
+                                    "WHERE location_id=?)" +
+                        ") latest " +
+                        "ON latest.serial_num = pickup.serial_num " +
+                            "AND latest.email = pickup.email " +
+                            "AND latest.rn = 1 " +
+                    "WHERE location_id=?";
 
+    /**
+     * Used for getting the vehicles in a service location's garage which are, or are not,
+     * ready for pickup. Parameters: location id (twice), ready ('True' or 'False').
+     */
+    public static final String GET_GARAGE_VEHICLES_BY_STATUS =
+            GET_GARAGE_VEHICLES + " AND ready=?";
 
     /**
      * Used for getting the garage that a given vehicle is currently being serviced at, along with relevant
@@ -289,7 +329,7 @@ public class Statement {
     public static final String GET_VEHICLE_GARAGE =
             "SELECT repairs.email, repairs.serial_num, start_time, end_time, repair_type, price, ready " +
                     "FROM repairs " +
-                    "FULL OUTER JOIN pickup " +
+                    "JOIN pickup " +
                     "ON repairs.serial_num = pickup.serial_num " +
                     "AND repairs.email = pickup.email " +
                     "WHERE repairs.serial_num=? " +
@@ -307,29 +347,44 @@ public class Statement {
                     "WHERE serial_num=?";
 
     /**
-     * Used for getting a list of emails that meet the recall parameters
+     * Used for getting a page of emails of customers owning a given model/year with all of the
+     * given options, in email order. Must be completed with a parenthesized list of option
+     * parameters, e.g. "(?, ?)", followed by GET_RECALL_EMAILS_PAGE.
+     * Parameters: year, name, last email of previous page (twice, null for the first page).
      */
     public static final String GET_RECALL_EMAILS =
-            "select distinct email " +
-                    "FROM customer " +
-                        "NATURAL JOIN owner " +
-                        "NATURAL JOIN vehicle_model " +
-                        "NATURAL JOIN model_options " +
+            "SELECT DISTINCT email " +
+                    "FROM owner " +
+                        "JOIN vehicle_model ON vehicle_model.serial_num = owner.serial_num " +
+                        "JOIN vehicle_options ON vehicle_options.serial_num = owner.serial_num " +
                     "WHERE year=? " +
                         "AND name=? " +
-                        "AND option_name=?";
+                        "AND (CAST(? AS VARCHAR2(320)) IS NULL OR email > ?) " +
+                        "AND option_name IN ";
 
     /**
-     * Used for getting a list of emails that meet the recall parameters
+     * Completes GET_RECALL_EMAILS, keeping only vehicles with every option.
+     * Parameters: number of distinct options, page size.
+     */
+    public static final String GET_RECALL_EMAILS_PAGE =
+            " GROUP BY email, owner.serial_num " +
+                    "HAVING COUNT(DISTINCT option_name)=? " +
+                    "ORDER BY email " +
+                    "FETCH FIRST ? ROWS ONLY";
+
+    /**
+     * Used for getting a page of emails of customers owning a given model/year, in email order.
+     * Parameters: year, name, last email of previous page (twice, null for the first page), page size.
      */
     public static final String GET_RECALL_EMAILS_NO_OPTION =
-            "select distinct email " +
-                    "FROM customer " +
-                        "NATURAL JOIN owner " +
-                        "NATURAL JOIN vehicle_model " +
-                        "NATURAL JOIN model_options " +
+            "SELECT DISTINCT email " +
+                    "FROM owner " +
+                        "JOIN vehicle_model ON vehicle_model.serial_num = owner.serial_num " +
                     "WHERE year=? " +
-                        "AND name=?";
+                        "AND name=? " +
+                        "AND (CAST(? AS VARCHAR2(320)) IS NULL OR email > ?) " +
+                    "ORDER BY email " +
+                    "FETCH FIRST ? ROWS ONLY";
 
     /**
      * Used for getting all vehicle listings of a given service location
@@ -344,12 +399,15 @@ public class Statement {
      * Used for getting all the cards registered to a given vehicle owner.
      */
     public static final String GET_CARDS =
-            "SELECT first, middle, last, card_num, cvv, exp_month, exp_year, zip, card_type " +
+            "SELECT customer_name.first, customer_name.middle, customer_name.last, " +
+                    "card.card_num, cvv, exp_month, exp_year, zip, card_type " +
                     "FROM customer " +
-                    "NATURAL JOIN customer_name " +
-                    "NATURAL JOIN card_holder " +
-                    "NATURAL JOIN card " +
-                    "WHERE email=?";
+                    "JOIN customer_name ON customer_name.email = customer.email " +
+                    "JOIN card_holder ON card_holder.first = customer_name.first " +
+                        "AND card_holder.middle = customer_name.middle " +
+                        "AND card_holder.last = customer_name.last " +
+                    "JOIN card ON card.card_num = card_holder.card_num " +
+                    "WHERE customer.email=?";
 
     /**
      * Used for checking if a name already exists in the database
@@ -577,6 +635,39 @@ public class Statement {
             "INSERT INTO pickup (location_id, email, serial_num, ready) " +
                     "VALUES (?, ?, ?, ?)";
 
+    /**
+     * The statements making up PURCHASE_VEHICLE, run one at a time on databases without PL/SQL
+     */
+    public static final String[] PURCHASE_VEHICLE_STEPS = {
+            ADD_VEHICLE,
+            ADD_VEHICLE_MODEL,
+            ADD_OWNER,
+            ADD_TRANSACTION,
+            ADD_PURCHASE,
+            ADD_GARAGE_VEHICLE
+    };
+
+    /**
+     * Used for inserting every single-row part of a vehicle purchase in one round trip:
+     * vehicle (2), vehicle_model (3), owner (2), transaction (2), purchases (5) and pickup (4).
+     */
+    public static final String PURCHASE_VEHICLE = block(PURCHASE_VEHICLE_STEPS);
+
+    /**
+     * The statements making up ORDER_SHOWROOM_VEHICLE, run one at a time on databases without PL/SQL
+     */
+    public static final String[] ORDER_SHOWROOM_VEHICLE_STEPS = {
+            ADD_VEHICLE,
+            ADD_VEHICLE_MODEL,
+            ADD_SHOWROOM_VEHICLE
+    };
+
+    /**
+     * Used for inserting every single-row part of a showroom order in one round trip:
+     * vehicle (2), vehicle_model (3) and showroom (2).
+     */
+    public static final String ORDER_SHOWROOM_VEHICLE = block(ORDER_SHOWROOM_VEHICLE_STEPS);
+
     /**
      * Used for inserting a new row into condition
      */
@@ -662,4 +753,75 @@ public class Statement {
     public static final String DELETE_PICKUP =
             "DELETE FROM pickup " +
                     "WHERE serial_num=?";
+
+    /**
+     * Used for exporting every model along with its price
+     */
+    public static final String EXPORT_MODELS =
+            "SELECT year, name, model_price " +
+                    "FROM model " +
+                    "ORDER BY year, name";
+
+    /**
+     * Used for exporting every custom option along with its price
+     */
+    public static final String EXPORT_OPTIONS =
+            "SELECT option_name, option_price " +
+                    "FROM custom_option " +
+                    "ORDER BY option_name";
+
+    /**
+     * Used for exporting which options every model can be bought with
+     */
+    public static final String EXPORT_MODEL_OPTIONS =
+            "SELECT year, name, option_name " +
+                    "FROM model_options " +
+                    "ORDER BY year, name, option_name";
+
+    /**
+     * Used for importing a model: adds it, or updates its price if it already exists
+     */
+    public static final String MERGE_MODEL =
+            "MERGE INTO model m " +
+                    "USING (SELECT CAST(? AS NUMBER(4)) AS year, CAST(? AS VARCHAR2(50)) AS name, " +
+                    "CAST(? AS NUMBER(12)) AS model_price FROM dual) s " +
+                    "ON (m.year = s.year AND m.name = s.name) " +
+                    "WHEN MATCHED THEN UPDATE SET m.model_price = s.model_price " +
+                    "WHEN NOT MATCHED THEN INSERT (year, name, model_price) " +
+                    "VALUES (s.year, s.name, s.model_price)";
+
+    /**
+     * Used for importing a custom option: adds it, or updates its price if it already exists
+     */
+    public static final String MERGE_OPTION =
+            "MERGE INTO custom_option o " +
+                    "USING (SELECT CAST(? AS VARCHAR2(100)) AS option_name, " +
+                    "CAST(? AS NUMBER(12)) AS option_price FROM dual) s " +
+                    "ON (o.option_name = s.option_name) " +
+                    "WHEN MATCHED THEN UPDATE SET o.option_price = s.option_price " +
+                    "WHEN NOT MATCHED THEN INSERT (option_name, option_price) " +
+                    "VALUES (s.option_name, s.option_price)";
+
+    /**
+     * Used for importing a model option: adds it unless it already exists
+     */
+    public static final String MERGE_MODEL_OPTION =
+            "MERGE INTO model_options mo " +
+                    "USING (SELECT CAST(? AS NUMBER(4)) AS year, CAST(? AS VARCHAR2(50)) AS name, " +
+                    "CAST(? AS VARCHAR2(100)) AS option_name FROM dual) s " +
+                    "ON (mo.year = s.year AND mo.name = s.name AND mo.option_name = s.option_name) " +
+                    "WHEN NOT MATCHED THEN INSERT (option_name, year, name) " +
+                    "VALUES (s.option_name, s.year, s.name)";
+
+    /**
+     * Joins statements into an anonymous PL/SQL block, which runs them in a single round trip.
+     *
+     * @param statements: Statements to run, in order
+     * @return PL/SQL block
+     */
+    private static String block(String... statements) {
+        StringBuilder sb = new StringBuilder("BEGIN ");
+        for (String statement : statements) sb.append(statement).append("; ");
+        return sb.append("END;").toString();
+    }
 }
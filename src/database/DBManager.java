@@ -2,6 +2,7 @@ package database;
 
 import card.Card;
 import connection.ConnectionManager;
+import connection.QueryLog;
 import constants.Key;
 import constants.Statement;
 import constants.Strings;
@@ -11,6 +12,7 @@ import location.GarageData;
 import location.ServiceLocation;
 import location.ServiceManager;
 import menu.MenuManager;
+import session.Session;
 import user.User;
 import user.UserManager;
 import vehicle.Condition;
@@ -18,21 +20,131 @@ import vehicle.Model;
 import vehicle.Vehicle;
 
 import java.sql.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.Date;
-import java.util.stream.Collectors;
 
 /**
  * Manages interactions with the Alset database
  */
 public class DBManager {
 
+    /**
+     * Number of serial numbers looked up per query by the bulk vehicle loader, smallest first.
+     * The largest size stays within Oracle's limit of 1000 expressions in an IN list.
+     */
+    private static final int[] IN_LIST_SIZES = {1, 10, 100, 1000};
+
+    /**
+     * Format of transaction times in a customer's history, e.g. "Mon Jan 04 13:05:00 EST 2021"
+     */
+    private static final DateTimeFormatter TRANSACTION_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US).withZone(ZoneId.systemDefault());
+
+    /**
+     * Number of serial numbers reserved at a time. Must match the increment of vehicle_sn_seq.
+     */
+    public static final int SN_BLOCK_SIZE = 50;
+
+    /**
+     * Number of service location ids reserved at a time. Must match the increment of location_id_seq.
+     */
+    public static final int LOCATION_ID_BLOCK_SIZE = 10;
+
+    /**
+     * Allocates vehicle serial numbers
+     */
+    private static final IdAllocator SERIAL_NUMBERS = new IdAllocator(Statement.NEXT_SN_BLOCK, SN_BLOCK_SIZE);
+
+    /**
+     * Allocates service location ids
+     */
+    private static final IdAllocator LOCATION_IDS = new IdAllocator(Statement.NEXT_LOCATION_ID_BLOCK, LOCATION_ID_BLOCK_SIZE);
+
+    /**
+     * Time (in milliseconds) catalog data is cached for, bounding how long catalog
+     * changes made by other processes go unseen
+     */
+    private static final long CATALOG_TTL = 5 * 60_000L;
+
+    /**
+     * Key of the catalog caches which hold a single value
+     */
+    private static final String CATALOG = "catalog";
+
+    /**
+     * Cache of all models
+     */
+    private static final ReadThroughCache<String, Set<Model>> ALL_MODELS =
+            new ReadThroughCache<>(DBManager::loadAllModels, CATALOG_TTL);
+
+    /**
+     * Cache of the names of models being sold new
+     */
+    private static final ReadThroughCache<String, Set<String>> BUYABLE_MODELS =
+            new ReadThroughCache<>(DBManager::loadBuyableModels, CATALOG_TTL);
+
+    /**
+     * Cache of the years each model is being sold new in
+     */
+    private static final ReadThroughCache<String, Set<Integer>> BUYABLE_YEARS =
+            new ReadThroughCache<>(DBManager::loadBuyableYears, CATALOG_TTL);
+
+    /**
+     * Cache of every year of each model
+     */
+    private static final ReadThroughCache<String, Set<Integer>> ALL_YEARS =
+            new ReadThroughCache<>(DBManager::loadAllYears, CATALOG_TTL);
+
+    /**
+     * Cache of the names of all options
+     */
+    private static final ReadThroughCache<String, Set<String>> ALL_OPTIONS =
+            new ReadThroughCache<>(DBManager::loadAllOptions, CATALOG_TTL);
+
+    /**
+     * Cache of the options which can be added to each model
+     */
+    private static final ReadThroughCache<Model, Set<String>> BUYABLE_OPTIONS =
+            new ReadThroughCache<>(DBManager::loadBuyableOptions, CATALOG_TTL);
+
+    /**
+     * Cache of model prices
+     */
+    private static final ReadThroughCache<Model, Long> MODEL_COSTS =
+            new ReadThroughCache<>(DBManager::loadModelCost, CATALOG_TTL);
+
+    /**
+     * Cache of option prices
+     */
+    private static final ReadThroughCache<String, Long> OPTION_COSTS =
+            new ReadThroughCache<>(DBManager::loadOptionCost, CATALOG_TTL);
+
+    /**
+     * Directory of service locations and the models they can repair
+     */
+    private static final LocationDirectory LOCATIONS = new LocationDirectory(CATALOG_TTL);
+
     /**
      * Private constructor of DatabaseManager
      */
     private DBManager() {
     }
 
+    /**
+     * Handles a database error: logs it, then sends the user back to the Edgar1 login menu.
+     * Outside of a session (e.g. in benchmarks), there is no menu to go back to, so the error is only logged.
+     *
+     * @param method: Name of the method which failed
+     * @param e:      Error
+     */
+    private static void handleError(String method, SQLException e) {
+        QueryLog.error("DBManager." + method, e);
+        if (Session.isBound()) MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+    }
+
     /**
      * Checks if the given email and password are correct and correspond to an Alset account
      *
@@ -44,10 +156,7 @@ public class DBManager {
         try {
             // add parameters to statement & execute
             boolean valid;
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.VALID_LOGIN_DATA);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.VALID_LOGIN_DATA);
             s.setString(1, email);
             ResultSet rs = s.executeQuery();
 
@@ -58,7 +167,7 @@ public class DBManager {
             s.close();
             return valid;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("validLoginData", e);
             return false;
         }
     }
@@ -73,10 +182,7 @@ public class DBManager {
     public static ServiceLocation getServiceLocation(String pwd) {
         try {
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.SERVICE_LOCATION_LOGIN);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.SERVICE_LOCATION_LOGIN);
             s.setString(1, pwd);
             ResultSet rs = s.executeQuery();
 
@@ -106,7 +212,7 @@ public class DBManager {
                 return null;
             }
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getServiceLocation", e);
             return null;
         }
     }
@@ -122,10 +228,7 @@ public class DBManager {
             boolean valid;
 
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.EMAIL_EXISTS);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.EMAIL_EXISTS);
             s.setString(1, email);
             ResultSet rs = s.executeQuery();
 
@@ -134,7 +237,7 @@ public class DBManager {
             s.close();
             return valid;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("emailExists", e);
             return false;
         }
     }
@@ -150,10 +253,7 @@ public class DBManager {
             boolean valid;
 
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.ADDRESS_EXISTS);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.ADDRESS_EXISTS);
             s.setString(1, address.getPlanet());
             s.setString(2, address.getCountry());
             s.setString(3, address.getState());
@@ -168,7 +268,7 @@ public class DBManager {
             s.close();
             return valid;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addressExists", e);
             return false;
         }
     }
@@ -184,10 +284,7 @@ public class DBManager {
         try {
 
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.UPDATE_PASSWORD);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.UPDATE_PASSWORD);
             s.setString(1, pass);
             s.setString(2, email);
             s.execute();
@@ -197,7 +294,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("updatePassword", e);
             return false;
         }
     }
@@ -212,10 +309,7 @@ public class DBManager {
         try {
 
             // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_CUSTOMER_NAME);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_CUSTOMER_NAME);
             s.setString(1, email);
             ResultSet rs = s.executeQuery();
 
@@ -233,7 +327,7 @@ public class DBManager {
                 return null;
             }
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getName", e);
             return null;
         }
     }
@@ -247,31 +341,57 @@ public class DBManager {
     public static Condition getCondition(String serialNum) {
         try {
             // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_VEHICLE_CONDITION);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_VEHICLE_CONDITION);
             s.setString(1, serialNum);
             ResultSet rs = s.executeQuery();
 
             // construct condition, close, and return (return null if not found).
-            if (rs.next()) {
-                Condition c = new Condition(
-                        rs.getLong("mileage"),
-                        rs.getLong("last_inspection"),
-                        Boolean.parseBoolean(rs.getString("has_damage"))
-                );
-                s.close();
-                return c;
-            }
+            Condition c = rs.next() ? readCondition(rs) : null;
             s.close();
-            return null;
+            return c;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getCondition", e);
             return null;
         }
     }
 
+    /**
+     * Reads a vehicle's condition from the current row of a result set containing the
+     * condition_serial_num, mileage, last_inspection and has_damage columns. The row has no
+     * condition if condition_serial_num is null, which the primary key of vehicle_condition
+     * never is; null mileage or inspection times of an existing condition read as 0.
+     *
+     * @param rs: Result set positioned on a row
+     * @return condition of vehicle, or null if the row has no condition
+     * @throws SQLException if a database access error occurs
+     */
+    private static Condition readCondition(ResultSet rs) throws SQLException {
+        if (rs.getString("condition_serial_num") == null) return null;
+        return new Condition(
+                rs.getLong("mileage"),
+                rs.getLong("last_inspection"),
+                Boolean.parseBoolean(rs.getString("has_damage"))
+        );
+    }
+
+    /**
+     * Reads a vehicle, including its condition, from the current row of a result set
+     * containing the vehicle and vehicle_condition columns.
+     *
+     * @param rs: Result set positioned on a row
+     * @return vehicle
+     * @throws SQLException if a database access error occurs
+     */
+    private static Vehicle readVehicle(ResultSet rs) throws SQLException {
+        return new Vehicle(
+                rs.getString("serial_num"),
+                rs.getInt("year"),
+                rs.getString("name"),
+                Boolean.parseBoolean(rs.getString("is_manufactured")),
+                readCondition(rs)
+        );
+    }
+
     /**
      * Returns the list of vehicles currently owned by the logged-in user.
      *
@@ -281,32 +401,21 @@ public class DBManager {
     public static Set<Vehicle> getVehicles(String email) {
         try {
             // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_USER_VEHICLES);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_USER_VEHICLES);
             s.setString(1, email);
             ResultSet rs = s.executeQuery();
 
-            // iterate through results & fill vehicles
+            // iterate through results & fill vehicles, conditions come from the same row
             HashSet<Vehicle> vehicles = new HashSet<>();
             while (rs.next()) {
-                String sn = rs.getString("serial_num");
-                Vehicle vehicle = new Vehicle(
-                        sn,
-                        rs.getInt("year"),
-                        rs.getString("name"),
-                        Boolean.parseBoolean(rs.getString("is_manufactured")),
-                        getCondition(sn)
-                );
-                vehicles.add(vehicle);
+                vehicles.add(readVehicle(rs));
             }
 
             // close & return
             s.close();
             return vehicles;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getVehicles", e);
             return null;
         }
     }
@@ -321,22 +430,13 @@ public class DBManager {
         try {
 
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_VEHICLE);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_VEHICLE);
             s.setString(1, serialNum);
             ResultSet rs = s.executeQuery();
 
             // construct vehicle, close, and return
             if (rs.next()) {
-                Vehicle v = new Vehicle(
-                        serialNum,
-                        rs.getInt("year"),
-                        rs.getString("name"),
-                        Boolean.parseBoolean(rs.getString("is_manufactured")),
-                        getCondition(serialNum)
-                );
+                Vehicle v = readVehicle(rs);
                 s.close();
                 return v;
             } else {
@@ -345,11 +445,84 @@ public class DBManager {
                 return null;
             }
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getVehicle", e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates vehicle objects for many serial numbers at once
+     *
+     * @param serialNums: Serial numbers of vehicles
+     * @return map of serial numbers to vehicles, missing serial numbers are left out, or null on error
+     */
+    public static Map<String, Vehicle> getVehicles(Collection<String> serialNums) {
+        try {
+            return loadVehicles(serialNums);
+        } catch (SQLException e) {
+            handleError("getVehicles", e);
             return null;
         }
     }
 
+    /**
+     * Creates vehicle objects for many serial numbers at once.
+     * <p>
+     * Serial numbers are looked up in chunks whose sizes are taken from IN_LIST_SIZES,
+     * padding the last chunk by repeating its final serial number. This keeps the number
+     * of distinct SQL strings small, so the chunked statements stay in the statement cache.
+     *
+     * @param serialNums: Serial numbers of vehicles
+     * @return map of serial numbers to vehicles, missing serial numbers are left out
+     * @throws SQLException if a database access error occurs
+     */
+    private static Map<String, Vehicle> loadVehicles(Collection<String> serialNums) throws SQLException {
+        List<String> remaining = new ArrayList<>(new LinkedHashSet<>(serialNums));
+        Map<String, Vehicle> vehicles = new HashMap<>(remaining.size() * 4 / 3 + 1);
+        int from = 0;
+        while (from < remaining.size()) {
+            // pick the smallest chunk size which fits the rest, or the largest one
+            int left = remaining.size() - from;
+            int size = IN_LIST_SIZES[IN_LIST_SIZES.length - 1];
+            for (int candidate : IN_LIST_SIZES) {
+                if (candidate >= left) {
+                    size = candidate;
+                    break;
+                }
+            }
+            int count = Math.min(size, left);
+
+            // set parameters, padding with the last serial number, & execute
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_VEHICLES_IN + inList(size));
+            for (int i = 0; i < size; i++) {
+                s.setString(i + 1, remaining.get(from + Math.min(i, count - 1)));
+            }
+            ResultSet rs = s.executeQuery();
+            while (rs.next()) {
+                Vehicle v = readVehicle(rs);
+                vehicles.put(v.getSerialNum(), v);
+            }
+            s.close();
+            from += count;
+        }
+        return vehicles;
+    }
+
+    /**
+     * Returns a parenthesized list of parameter markers, e.g. "(?, ?, ?)"
+     *
+     * @param size: Number of parameters
+     * @return parameter list
+     */
+    private static String inList(int size) {
+        StringBuilder sb = new StringBuilder(size * 3 + 1).append('(');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+
     /**
      * Gets a set of models that a given service location cannot repair
      *
@@ -377,32 +550,39 @@ public class DBManager {
      */
     public static Set<Model> getAllModels() {
         try {
-
-            // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_ALL_MODELS);
-            ResultSet rs = s.executeQuery();
-
-            // iterate through results & fill models
-            HashSet<Model> models = new HashSet<>();
-            while (rs.next()) {
-                String name = rs.getString("name");
-                int year = rs.getInt("year");
-                Model model = new Model(year, name);
-                models.add(model);
-            }
-
-            // close & return
-            s.close();
-            return models;
-        }  catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            return new HashSet<>(ALL_MODELS.get(CATALOG));
+        } catch (SQLException e) {
+            handleError("getAllModels", e);
             return new HashSet<>();
         }
     }
 
+    /**
+     * Loads every model from the database
+     *
+     * @param key: Unused
+     * @return set of models
+     * @throws SQLException if a database access error occurs
+     */
+    private static Set<Model> loadAllModels(String key) throws SQLException {
+        // set parameters & execute
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_ALL_MODELS);
+        ResultSet rs = s.executeQuery();
+
+        // iterate through results & fill models
+        HashSet<Model> models = new HashSet<>();
+        while (rs.next()) {
+            String name = rs.getString("name");
+            int year = rs.getInt("year");
+            Model model = new Model(year, name);
+            models.add(model);
+        }
+
+        // close & return
+        s.close();
+        return Collections.unmodifiableSet(models);
+    }
+
     /**
      * Gets a set of models that a given service location is capable of repairing.
      *
@@ -411,159 +591,163 @@ public class DBManager {
      */
     public static Set<Model> getRepairableModels(ServiceLocation location) {
         try {
-            // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_REPAIRABLE_MODELS);
-            s.setString(1, location.getId());
-            ResultSet rs = s.executeQuery();
-
-            // iterate through results & fill models
-            HashSet<Model> models = new HashSet<>();
-            while (rs.next()) {
-                models.add(new Model(rs.getInt("year"), rs.getString("name")));
-            }
-
-            // close and return
-            s.close();
-            return models;
+            return LOCATIONS.getRepairableModels(location.getId());
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getRepairableModels", e);
             return new HashSet<>();
         }
-
     }
 
     public static Set<String> getBuyableModels() {
         try {
-
-            // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_BUYABLE_MODELS);
-            ResultSet rs = s.executeQuery();
-
-            // iterate through results and fill models
-            HashSet<String> models = new HashSet<>();
-            while (rs.next()) models.add(rs.getString("name"));
-
-            // close and return
-            s.close();
-            return models;
+            return new HashSet<>(BUYABLE_MODELS.get(CATALOG));
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getBuyableModels", e);
             return new HashSet<>();
         }
     }
 
+    /**
+     * Loads the names of all models currently being sold new
+     *
+     * @param key: Unused
+     * @return set of model names
+     * @throws SQLException if a database access error occurs
+     */
+    private static Set<String> loadBuyableModels(String key) throws SQLException {
+        // set parameters and execute
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_BUYABLE_MODELS);
+        ResultSet rs = s.executeQuery();
+
+        // iterate through results and fill models
+        HashSet<String> models = new HashSet<>();
+        while (rs.next()) models.add(rs.getString("name"));
 
-    public static Set<Integer> getBuyableYears(String model) {
-        try {
-            // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_BUYABLE_YEARS);
-            s.setString(1, model);
-            ResultSet rs = s.executeQuery();
+        // close and return
+        s.close();
+        return Collections.unmodifiableSet(models);
+    }
 
-            // iterate through results and fill years
-            HashSet<Integer> years = new HashSet<>();
-            while (rs.next()) years.add(rs.getInt("year"));
 
-            // close and return
-            s.close();
-            return years;
+    public static Set<Integer> getBuyableYears(String model) {
+        try {
+            return new HashSet<>(BUYABLE_YEARS.get(model));
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getBuyableYears", e);
             return new HashSet<>();
         }
     }
 
-    public static Set<Integer> getAllYears(String model) {
-        try {
-            // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_ALL_YEARS);
-            s.setString(1, model);
-            ResultSet rs = s.executeQuery();
+    /**
+     * Loads the years a model is currently being sold new in
+     *
+     * @param model: Model name
+     * @return set of years
+     * @throws SQLException if a database access error occurs
+     */
+    private static Set<Integer> loadBuyableYears(String model) throws SQLException {
+        // set parameters and execute
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_BUYABLE_YEARS);
+        s.setString(1, model);
+        ResultSet rs = s.executeQuery();
 
-            // iterate through results and fill years
-            HashSet<Integer> years = new HashSet<>();
-            while (rs.next()) years.add(rs.getInt("year"));
+        // iterate through results and fill years
+        HashSet<Integer> years = new HashSet<>();
+        while (rs.next()) years.add(rs.getInt("year"));
 
-            // close and return
-            s.close();
-            return years;
+        // close and return
+        s.close();
+        return Collections.unmodifiableSet(years);
+    }
+
+    public static Set<Integer> getAllYears(String model) {
+        try {
+            return new HashSet<>(ALL_YEARS.get(model));
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getAllYears", e);
             return new HashSet<>();
         }
     }
 
-    public static List<String> getTransactionList(String email) {
+    /**
+     * Loads every year of a model
+     *
+     * @param model: Model name
+     * @return set of years
+     * @throws SQLException if a database access error occurs
+     */
+    private static Set<Integer> loadAllYears(String model) throws SQLException {
+        // set parameters and execute
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_ALL_YEARS);
+        s.setString(1, model);
+        ResultSet rs = s.executeQuery();
+
+        // iterate through results and fill years
+        HashSet<Integer> years = new HashSet<>();
+        while (rs.next()) years.add(rs.getInt("year"));
+
+        // close and return
+        s.close();
+        return Collections.unmodifiableSet(years);
+    }
+
+    /**
+     * Returns the next page of a customer's purchase and repair history, oldest first,
+     * and advances the cursor past it.
+     *
+     * @param cursor: Position within the history
+     * @return formatted transactions, empty once the history is exhausted, or null on error
+     */
+    public static List<String> getTransactionPage(TransactionCursor cursor) {
+        if (cursor.exhausted) return new ArrayList<>();
         try {
-            // query for vehicle purchase transactions
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_PURCHASE_HISTORY);
-            s.setString(1, email);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_TRANSACTION_HISTORY);
+            s.setString(1, cursor.getEmail());
+            s.setString(2, cursor.getEmail());
+            s.setLong(3, cursor.lastTime);
+            s.setLong(4, cursor.lastTime);
+            s.setInt(5, cursor.lastKind);
+            s.setInt(6, cursor.lastKind);
+            s.setString(7, cursor.lastSerialNum);
+            s.setString(8, cursor.lastSerialNum);
+            s.setLong(9, cursor.lastEndTime);
+            s.setLong(10, cursor.lastEndTime);
+            s.setString(11, cursor.lastRepairType);
+            s.setInt(12, cursor.getPageSize());
             ResultSet rs = s.executeQuery();
-            HashMap<Long, String> transactions = new HashMap<>();
-            while (rs.next()) {
-                long timestamp = rs.getLong("timestamp") * 1000L;
-                int year = rs.getInt("year");
-                String name = rs.getString("name");
-                String sn = rs.getString("serial_num");
-                long price = rs.getLong("sales_price");
-                String cardNum = rs.getString("card_num");
-                String transaction =
-                        "[" + new Date(timestamp).toString() + "] "
-                                + year + " Model " + name + " (SN: " + sn + ") purchased for $"
-                                + price + " (Card: XXXXXXXXXXXX" + cardNum.substring(12, 16) + ")";
-                transactions.put(timestamp, transaction);
-            }
-            s.close();
 
-            // query for repair transactions
-            s =
-                    ConnectionManager
-                    .getCurrentConnection()
-                    .prepareStatement(Statement.GET_REPAIR_HISTORY);
-            s.setString(1, email);
-            rs = s.executeQuery();
+            List<String> page = new ArrayList<>(cursor.getPageSize());
+            StringBuilder sb = new StringBuilder(128);
             while (rs.next()) {
-                long timestamp = rs.getLong("start_time") * 1000L;
-                int year = rs.getInt("year");
-                String name = rs.getString("name");
+                long time = rs.getLong("txn_time");
+                int kind = rs.getInt("kind");
                 String sn = rs.getString("serial_num");
-                long price = rs.getLong("price");
-                String type = rs.getString("repair_type");
-                String cardNum = rs.getString("card_num");
-                String transaction =
-                        "[" + new Date(timestamp).toString() + "] "
-                                + type + " of "
-                                + year + " Model " + name + " (SN: " + sn + ") for $"
-                                + price + " (Card: XXXXXXXXXXXX" + cardNum.substring(12, 16) + ")";
-                transactions.put(timestamp, transaction);
-            }
 
-            // convert to sorted list
-            ArrayList<String> strings = new ArrayList<>();
-            for (Long l : transactions.keySet().stream().sorted(Long::compareTo).collect(Collectors.toList())) {
-                strings.add(transactions.get(l));
+                // format transaction
+                sb.setLength(0);
+                sb.append('[').append(TRANSACTION_TIME_FORMAT.format(Instant.ofEpochSecond(time))).append("] ");
+                if (kind == 1) sb.append(rs.getString("repair_type")).append(" of ");
+                sb.append(rs.getInt("year")).append(" Model ").append(rs.getString("name"))
+                        .append(" (SN: ").append(sn).append(')')
+                        .append(kind == 1 ? " for $" : " purchased for $").append(rs.getLong("price"));
+                String cardNum = rs.getString("card_num");
+                if (cardNum != null && cardNum.length() >= 4) {
+                    sb.append(" (Card: XXXXXXXXXXXX").append(cardNum, cardNum.length() - 4, cardNum.length()).append(')');
+                }
+                page.add(sb.toString());
+
+                // advance cursor
+                cursor.lastTime = time;
+                cursor.lastKind = kind;
+                cursor.lastSerialNum = sn;
+                cursor.lastEndTime = rs.getLong("end_key");
+                cursor.lastRepairType = rs.getString("type_key");
             }
-
-            // close & return
             s.close();
-            return strings;
+            if (page.size() < cursor.getPageSize()) cursor.exhausted = true;
+            return page;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getTransactionPage", e);
             return null;
         }
     }
@@ -577,38 +761,9 @@ public class DBManager {
      */
     public static Set<ServiceLocation> getRepairableLocations(Vehicle vehicle) {
         try {
-
-            // set parameters and execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_REPAIRABLE_LOCATIONS);
-            s.setInt(1, vehicle.getYear());
-            s.setString(2, vehicle.getModelName());
-            ResultSet rs = s.executeQuery();
-            HashSet<ServiceLocation> locations = new HashSet<>();
-
-            // iterate through results and fill locations
-            while (rs.next()) {
-                String id = rs.getString("location_id");
-                String name = rs.getString("location_name");
-                Address address = new Address(
-                        rs.getString("planet"),
-                        rs.getString("country"),
-                        rs.getString("state"),
-                        rs.getString("city"),
-                        rs.getString("street"),
-                        rs.getString("zip"),
-                        null
-                );
-                locations.add(new ServiceLocation(id, name, address));
-            }
-
-            // close and return
-            s.close();
-            return locations;
+            return LOCATIONS.getRepairableLocations(new Model(vehicle.getYear(), vehicle.getModelName()));
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getRepairableLocations", e);
             return null;
         }
     }
@@ -621,10 +776,7 @@ public class DBManager {
      */
     public static Set<String> getOptions(String serialNum) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_OPTIONS);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_OPTIONS);
             s.setString(1, serialNum);
             ResultSet rs = s.executeQuery();
             HashSet<String> options = new HashSet<>();
@@ -635,7 +787,7 @@ public class DBManager {
             s.close();
             return options;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getOptions", e);
             return null;
         }
     }
@@ -647,24 +799,32 @@ public class DBManager {
      */
     public static Set<String> getAllOptions() {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_ALL_OPTIONS);
-            ResultSet rs = s.executeQuery();
-            HashSet<String> options = new HashSet<>();
-
-            while (rs.next()) {
-                options.add(rs.getString("option_name"));
-            }
-            s.close();
-            return options;
+            return new HashSet<>(ALL_OPTIONS.get(CATALOG));
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getAllOptions", e);
             return null;
         }
     }
 
+    /**
+     * Loads the names of every option
+     *
+     * @param key: Unused
+     * @return set of option names
+     * @throws SQLException if a database access error occurs
+     */
+    private static Set<String> loadAllOptions(String key) throws SQLException {
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_ALL_OPTIONS);
+        ResultSet rs = s.executeQuery();
+        HashSet<String> options = new HashSet<>();
+
+        while (rs.next()) {
+            options.add(rs.getString("option_name"));
+        }
+        s.close();
+        return Collections.unmodifiableSet(options);
+    }
+
     /**
      * Returns a set of garage data belonging to vehicles of unfinished services.
      *
@@ -672,15 +832,7 @@ public class DBManager {
      * @return data of unfinished vehicles at location
      */
     public static Set<GarageData> getUnfinishedVehicleGarageData(ServiceLocation location) {
-        // get garage data
-        Set<GarageData> data = getGarageData(location);
-        if (data == null) return null;
-
-        // remove finished vehicle data
-        data.removeIf(GarageData::isReady);
-
-        // return data
-        return data;
+        return getGarageData(location, "False");
     }
 
     /**
@@ -690,15 +842,7 @@ public class DBManager {
      * @return data of finished vehicles at location
      */
     public static Set<GarageData> getFinishedVehicleGarageData(ServiceLocation location) {
-        // get garage data
-        Set<GarageData> data = getGarageData(location);
-        if (data == null) return null;
-
-        // remove unfinished vehicles from set
-        data.removeIf(gd -> !gd.isReady());
-
-        // return data
-        return data;
+        return getGarageData(location, "True");
     }
 
     /**
@@ -709,12 +853,27 @@ public class DBManager {
      * @return hash set of garage data
      */
     public static Set<GarageData> getGarageData(ServiceLocation location) {
+        return getGarageData(location, null);
+    }
+
+    /**
+     * Returns a set of garage data, optionally only of vehicles which are, or are not, ready for pickup.
+     *
+     * @param location: Service location
+     * @param ready:    'True' or 'False' to filter on pickup status, or null for all vehicles
+     * @return hash set of garage data
+     */
+    private static Set<GarageData> getGarageData(ServiceLocation location, String ready) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_GARAGE_VEHICLES);
+            PreparedStatement s;
+            if (ready == null) {
+                s = ConnectionManager.prepareStatement(Statement.GET_GARAGE_VEHICLES);
+            } else {
+                s = ConnectionManager.prepareStatement(Statement.GET_GARAGE_VEHICLES_BY_STATUS);
+                s.setString(3, ready);
+            }
             s.setString(1, location.getId());
+            s.setString(2, location.getId());
             ResultSet rs = s.executeQuery();
             HashSet<GarageData> data = new HashSet<>();
             while (rs.next()) {
@@ -748,7 +907,7 @@ public class DBManager {
             s.close();
             return data;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getGarageData", e);
             return null;
         }
     }
@@ -762,10 +921,7 @@ public class DBManager {
      */
     public static boolean isReadyForPickup(Vehicle vehicle) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_PICKUP_ROW);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_PICKUP_ROW);
             s.setString(1, vehicle.getSerialNum());
             ResultSet rs = s.executeQuery();
             if (rs.next()) {
@@ -777,7 +933,7 @@ public class DBManager {
                 throw new IllegalArgumentException("Vehicle is not at a service location.");
             }
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("isReadyForPickup", e);
             return false;
         }
     }
@@ -791,34 +947,14 @@ public class DBManager {
      */
     public static ServiceLocation getServiceLocation(Vehicle vehicle) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_SERVICE_LOCATION_OF_VEHICLE);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_SERVICE_LOCATION_OF_VEHICLE);
             s.setString(1, vehicle.getSerialNum());
             ResultSet rs = s.executeQuery();
-            if (rs.next()) {
-                ServiceLocation location = new ServiceLocation(
-                        rs.getString("location_id"),
-                        rs.getString("location_name"),
-                        new Address(
-                                rs.getString("planet"),
-                                rs.getString("country"),
-                                rs.getString("state"),
-                                rs.getString("city"),
-                                rs.getString("street"),
-                                rs.getString("zip"),
-                                null
-                        )
-
-                );
-                s.close();
-                return location;
-            } else {
-                return null;
-            }
+            String id = rs.next() ? rs.getString("location_id") : null;
+            s.close();
+            return id == null ? null : LOCATIONS.getLocation(id);
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getServiceLocation", e);
             return null;
         }
     }
@@ -832,10 +968,7 @@ public class DBManager {
      */
     public static boolean isAtGarage(Vehicle vehicle) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_VEHICLE_GARAGE);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_VEHICLE_GARAGE);
             s.setString(1, vehicle.getSerialNum());
             ResultSet rs = s.executeQuery();
             if (rs.next()) {
@@ -846,7 +979,7 @@ public class DBManager {
                 return false;
             }
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("isAtGarage", e);
             return true;
         }
     }
@@ -865,9 +998,7 @@ public class DBManager {
     public static boolean addGarageVehicle(ServiceLocation location, Vehicle vehicle, String type, String email, long price, long length) {
         try {
             // add to repair
-            PreparedStatement s1 = ConnectionManager
-                    .getCurrentConnection()
-                    .prepareStatement(Statement.START_REPAIR);
+            PreparedStatement s1 = ConnectionManager.prepareStatement(Statement.START_REPAIR);
             long start = new Date().getTime() / 1000L;
             s1.setLong(1, start);
             s1.setLong(2, start + length);
@@ -877,9 +1008,7 @@ public class DBManager {
             s1.close();
 
             // add to repairs
-            PreparedStatement s2 = ConnectionManager
-                    .getCurrentConnection()
-                    .prepareStatement(Statement.START_VEHICLE_REPAIR);
+            PreparedStatement s2 = ConnectionManager.prepareStatement(Statement.START_VEHICLE_REPAIR);
             s2.setString(1, email);
             s2.setString(2, vehicle.getSerialNum());
             s2.setLong(3, start);
@@ -890,9 +1019,7 @@ public class DBManager {
             s2.close();
 
             // add to pickup
-            PreparedStatement s3 = ConnectionManager
-                    .getCurrentConnection()
-                    .prepareStatement(Statement.ADD_GARAGE_VEHICLE);
+            PreparedStatement s3 = ConnectionManager.prepareStatement(Statement.ADD_GARAGE_VEHICLE);
             s3.setString(1, location.getId());
             s3.setString(2, email);
             s3.setString(3, vehicle.getSerialNum());
@@ -902,7 +1029,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addGarageVehicle", e);
             return false;
         }
     }
@@ -915,10 +1042,7 @@ public class DBManager {
      */
     public static String getEmail(Vehicle vehicle) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_VEHICLE_OWNER_EMAIL);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_VEHICLE_OWNER_EMAIL);
             s.setString(1, vehicle.getSerialNum());
             ResultSet rs = s.executeQuery();
             if (rs.next()) {
@@ -930,7 +1054,7 @@ public class DBManager {
                 return null;
             }
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getEmail", e);
             return null;
         }
     }
@@ -943,10 +1067,7 @@ public class DBManager {
      */
     public static Set<Card> getCards(String email) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_CARDS);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_CARDS);
             s.setString(1, email);
             ResultSet rs = s.executeQuery();
             HashSet<Card> cards = new HashSet<>();
@@ -968,7 +1089,7 @@ public class DBManager {
             s.close();
             return cards;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getCards", e);
             return null;
         }
     }
@@ -982,8 +1103,7 @@ public class DBManager {
     public static boolean addNewCard(Card card) {
         try {
             // Check if name is in database
-            Connection current = ConnectionManager.getCurrentConnection();
-            PreparedStatement s1 = current.prepareStatement(Statement.GET_NAME);
+            PreparedStatement s1 = ConnectionManager.prepareStatement(Statement.GET_NAME);
             s1.setString(1, card.getFirst());
             s1.setString(2, card.getMiddle());
             s1.setString(3, card.getLast());
@@ -993,7 +1113,7 @@ public class DBManager {
 
             // add name if not in database
             if (!hasName) {
-                PreparedStatement s1b = current.prepareStatement(Statement.INSERT_NAME);
+                PreparedStatement s1b = ConnectionManager.prepareStatement(Statement.INSERT_NAME);
                 s1b.setString(1, card.getFirst());
                 s1b.setString(2, card.getMiddle());
                 s1b.setString(3, card.getLast());
@@ -1002,14 +1122,15 @@ public class DBManager {
             }
 
             // Check if card is in the database
-            PreparedStatement s2 = current.prepareStatement(Statement.GET_CARD);
+            PreparedStatement s2 = ConnectionManager.prepareStatement(Statement.GET_CARD);
             s2.setString(1, card.getNum());
             ResultSet rs2 = s2.executeQuery();
             boolean hasCard = rs2.next();
+            s2.close();
 
             // add card if not in database
             if (!hasCard) {
-                PreparedStatement s2b = current.prepareStatement(Statement.INSERT_CARD);
+                PreparedStatement s2b = ConnectionManager.prepareStatement(Statement.INSERT_CARD);
                 s2b.setString(1, card.getNum());
                 s2b.setString(2, card.getCvv());
                 s2b.setInt(3, card.getExpMonth());
@@ -1022,7 +1143,7 @@ public class DBManager {
 
             // add card_holder relationship if not in database
             if (!hasCard || !hasName) {
-                PreparedStatement s3 = current.prepareStatement(Statement.INSERT_CARD_HOLDER);
+                PreparedStatement s3 = ConnectionManager.prepareStatement(Statement.INSERT_CARD_HOLDER);
                 s3.setString(1, card.getNum());
                 s3.setString(2, card.getFirst());
                 s3.setString(3, card.getMiddle());
@@ -1034,7 +1155,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addNewCard", e);
             return false;
         }
     }
@@ -1048,16 +1169,15 @@ public class DBManager {
      */
     public static boolean finishManufactured(String serialNum) {
         try {
-            Connection current = ConnectionManager.getCurrentConnection();
             // update pickup status
-            PreparedStatement s1 = current.prepareStatement(Statement.UPDATE_PICKUP_STATUS);
+            PreparedStatement s1 = ConnectionManager.prepareStatement(Statement.UPDATE_PICKUP_STATUS);
             s1.setString(1, "True");
             s1.setString(2, serialNum);
             s1.execute();
             s1.close();
 
             // update isManufactured
-            PreparedStatement s2 = current.prepareStatement(Statement.UPDATE_IS_MANUFACTURED);
+            PreparedStatement s2 = ConnectionManager.prepareStatement(Statement.UPDATE_IS_MANUFACTURED);
             s2.setString(1, "True");
             s2.setString(2, serialNum);
             s2.execute();
@@ -1065,7 +1185,7 @@ public class DBManager {
 
             // insert condition
             long time = new Date().getTime() / 1000L;
-            PreparedStatement s3 = current.prepareStatement(Statement.INSERT_CONDITION);
+            PreparedStatement s3 = ConnectionManager.prepareStatement(Statement.INSERT_CONDITION);
             s3.setLong(1, 0);
             s3.setLong(2, time);
             s3.setString(3, "False");
@@ -1073,7 +1193,7 @@ public class DBManager {
             s3.close();
 
             // insert vehicle condition
-            PreparedStatement s4 = current.prepareStatement(Statement.INSERT_VEHICLE_CONDITION);
+            PreparedStatement s4 = ConnectionManager.prepareStatement(Statement.INSERT_VEHICLE_CONDITION);
             s4.setString(1, serialNum);
             s4.setLong(2, 0);
             s4.setLong(3, time);
@@ -1084,7 +1204,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("finishManufactured", e);
             return false;
         }
     }
@@ -1105,9 +1225,8 @@ public class DBManager {
             else hasDamage = "False";
 
             String sn = vehicle.getSerialNum();
-            Connection current = ConnectionManager.getCurrentConnection();
             // update pickup status
-            PreparedStatement s1 = current.prepareStatement(Statement.UPDATE_PICKUP_STATUS);
+            PreparedStatement s1 = ConnectionManager.prepareStatement(Statement.UPDATE_PICKUP_STATUS);
             s1.setString(1, "True");
             s1.setString(2, sn);
             s1.execute();
@@ -1118,7 +1237,7 @@ public class DBManager {
             Condition condition = vehicle.getCondition();
             long oldTime = condition.getLastInspection();
             long mileage = condition.getMileage();
-            PreparedStatement s3 = current.prepareStatement(Statement.INSERT_CONDITION);
+            PreparedStatement s3 = ConnectionManager.prepareStatement(Statement.INSERT_CONDITION);
             s3.setLong(1, mileage);
             s3.setLong(2, time);
             s3.setString(3, hasDamage);
@@ -1126,7 +1245,7 @@ public class DBManager {
             s3.close();
 
             // update vehicle condition
-            PreparedStatement s4 = current.prepareStatement(Statement.UPDATE_VEHICLE_CONDITION);
+            PreparedStatement s4 = ConnectionManager.prepareStatement(Statement.UPDATE_VEHICLE_CONDITION);
             s4.setLong(1, vehicle.getCondition().getMileage());
             s4.setLong(2, time);
             s4.setString(3, hasDamage);
@@ -1135,7 +1254,7 @@ public class DBManager {
             s4.close();
 
             // remove old condition
-            PreparedStatement s5 = current.prepareStatement(Statement.DELETE_CONDITION);
+            PreparedStatement s5 = ConnectionManager.prepareStatement(Statement.DELETE_CONDITION);
             s5.setLong(1, mileage);
             s5.setLong(2, oldTime);
             s5.execute();
@@ -1144,7 +1263,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("finishInspection", e);
             return false;
         }
     }
@@ -1160,10 +1279,9 @@ public class DBManager {
         try {
 
             String sn = vehicle.getSerialNum();
-            Connection current = ConnectionManager.getCurrentConnection();
 
             // update pickup status
-            PreparedStatement s1 = current.prepareStatement(Statement.UPDATE_PICKUP_STATUS);
+            PreparedStatement s1 = ConnectionManager.prepareStatement(Statement.UPDATE_PICKUP_STATUS);
             s1.setString(1, "True");
             s1.setString(2, sn);
             s1.execute();
@@ -1173,7 +1291,7 @@ public class DBManager {
             Condition condition = vehicle.getCondition();
             boolean oldDamage = condition.hasDamage();
             if (oldDamage) {
-                PreparedStatement s2 = current.prepareStatement(Statement.INSERT_CONDITION);
+                PreparedStatement s2 = ConnectionManager.prepareStatement(Statement.INSERT_CONDITION);
                 s2.setLong(1, condition.getMileage());
                 s2.setLong(2, condition.getLastInspection());
                 s2.setString(3, "False");
@@ -1181,7 +1299,7 @@ public class DBManager {
                 s2.close();
 
                 // update vehicle condition
-                PreparedStatement s3 = current.prepareStatement(Statement.INSERT_VEHICLE_CONDITION);
+                PreparedStatement s3 = ConnectionManager.prepareStatement(Statement.INSERT_VEHICLE_CONDITION);
                 s3.setString(1, sn);
                 s3.setLong(2, condition.getMileage());
                 s3.setLong(3, condition.getLastInspection());
@@ -1190,7 +1308,7 @@ public class DBManager {
                 s3.close();
 
                 // remove old vehicle condition
-                PreparedStatement s4 = current.prepareStatement(Statement.DELETE_CONDITION_HAS_DAMAGE);
+                PreparedStatement s4 = ConnectionManager.prepareStatement(Statement.DELETE_CONDITION_HAS_DAMAGE);
                 s4.setLong(1, condition.getMileage());
                 s4.setLong(2, condition.getLastInspection());
                 s4.setString(3, "True");
@@ -1201,7 +1319,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("finishServicing", e);
             return false;
         }
     }
@@ -1217,10 +1335,9 @@ public class DBManager {
     public static boolean removeGarageVehicle(GarageData gd, Card card) {
         try {
             boolean isPurchase = gd.getReason().equals("Vehicle Purchase");
-            Connection current = ConnectionManager.getCurrentConnection();
             if (!isPurchase) {
                 // add credit card to repairs row
-                PreparedStatement s = current.prepareStatement(Statement.ADD_REPAIRS_CARD_NUM);
+                PreparedStatement s = ConnectionManager.prepareStatement(Statement.ADD_REPAIRS_CARD_NUM);
                 s.setString(1, card.getNum());
                 s.setString(2, gd.getSerialNum());
                 s.setLong(3, gd.getStartTime());
@@ -1229,14 +1346,14 @@ public class DBManager {
             }
 
             // remove vehicle from pickup
-            PreparedStatement s = current.prepareStatement(Statement.DELETE_PICKUP);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.DELETE_PICKUP);
             s.setString(1, gd.getSerialNum());
             s.execute();
             s.close();
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("removeGarageVehicle", e);
             return false;
         }
     }
@@ -1248,37 +1365,28 @@ public class DBManager {
      */
     public static Set<ServiceLocation> getServiceLocations() {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_SERVICE_LOCATIONS);
-            ResultSet rs = s.executeQuery();
-            HashSet<ServiceLocation> locations = new HashSet<>();
-            while (rs.next()) {
-                locations.add(
-                        new ServiceLocation(
-                                rs.getString("location_id"),
-                                rs.getString("location_name"),
-                                new Address(
-                                        rs.getString("planet"),
-                                        rs.getString("country"),
-                                        rs.getString("state"),
-                                        rs.getString("city"),
-                                        rs.getString("street"),
-                                        rs.getString("zip"),
-                                        null
-                                )
-                        )
-                );
-            }
-            s.close();
-            return locations;
+            return LOCATIONS.getLocations();
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getServiceLocations", e);
             return new HashSet<>();
         }
     }
 
+    /**
+     * Returns the service location at a given address
+     *
+     * @param address: Address
+     * @return service location, or null if there is none
+     */
+    public static ServiceLocation getServiceLocationAt(Address address) {
+        try {
+            return LOCATIONS.getLocationAt(address);
+        } catch (SQLException e) {
+            handleError("getServiceLocationAt", e);
+            return null;
+        }
+    }
+
     /**
      * Returns a set of options that a given model can have
      *
@@ -1287,23 +1395,31 @@ public class DBManager {
      */
     public static Set<String> getBuyableOptions(Model model) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_BUYABLE_OPTIONS);
-            s.setString(1, model.getName());
-            s.setInt(2, model.getYear());
-            ResultSet rs = s.executeQuery();
-            HashSet<String> options = new HashSet<>();
-            while (rs.next()) options.add(rs.getString("option_name"));
-            s.close();
-            return options;
+            return new HashSet<>(BUYABLE_OPTIONS.get(model));
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getBuyableOptions", e);
             return new HashSet<>();
         }
     }
 
+    /**
+     * Loads the options which can be added to a model
+     *
+     * @param model: Model
+     * @return set of option names
+     * @throws SQLException if a database access error occurs
+     */
+    private static Set<String> loadBuyableOptions(Model model) throws SQLException {
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_BUYABLE_OPTIONS);
+        s.setString(1, model.getName());
+        s.setInt(2, model.getYear());
+        ResultSet rs = s.executeQuery();
+        HashSet<String> options = new HashSet<>();
+        while (rs.next()) options.add(rs.getString("option_name"));
+        s.close();
+        return Collections.unmodifiableSet(options);
+    }
+
     /**
      * Returns the cost to purchase a given model
      *
@@ -1312,26 +1428,34 @@ public class DBManager {
      */
     public static Long getModelCost(Model model) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_MODEL_COST);
-            s.setInt(1, model.getYear());
-            s.setString(2, model.getName());
-            ResultSet rs = s.executeQuery();
-            if (rs.next()) {
-                long l = rs.getLong("model_price");
-                s.close();
-                return l;
-            }
-            s.close();
-            return null;
+            return MODEL_COSTS.get(model);
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getModelCost", e);
             return null;
         }
     }
 
+    /**
+     * Loads the price of a model
+     *
+     * @param model: Model
+     * @return price of model, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    private static Long loadModelCost(Model model) throws SQLException {
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_MODEL_COST);
+        s.setInt(1, model.getYear());
+        s.setString(2, model.getName());
+        ResultSet rs = s.executeQuery();
+        if (rs.next()) {
+            long l = rs.getLong("model_price");
+            s.close();
+            return l;
+        }
+        s.close();
+        return null;
+    }
+
     /**
      * Returns the cost to add a given option to a vehicle
      *
@@ -1340,24 +1464,33 @@ public class DBManager {
      */
     public static Long getOptionCost(String option) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_OPTION_COST);
-            s.setString(1, option);
-            ResultSet rs = s.executeQuery();
-            if (rs.next()) {
-                long l = rs.getLong("option_price");
-                s.close();
-                return l;
-            }
-            return null;
+            return OPTION_COSTS.get(option);
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getOptionCost", e);
             return null;
         }
     }
 
+    /**
+     * Loads the price of an option
+     *
+     * @param option: Option
+     * @return price of option, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    private static Long loadOptionCost(String option) throws SQLException {
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_OPTION_COST);
+        s.setString(1, option);
+        ResultSet rs = s.executeQuery();
+        if (rs.next()) {
+            long l = rs.getLong("option_price");
+            s.close();
+            return l;
+        }
+        s.close();
+        return null;
+    }
+
     /**
      * Generates a new, unused serial number
      *
@@ -1365,22 +1498,11 @@ public class DBManager {
      */
     public static String getNewSN() {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_MAX_SN);
-            ResultSet rs = s.executeQuery();
-            if (rs.next()) {
-                StringBuilder sn = new StringBuilder(rs.getString("sn"));
-                long l = Long.parseLong(sn.toString()) + 1;
-                sn = new StringBuilder(String.valueOf(l));
-                while (sn.length() < 9) sn.insert(0, "0");
-                s.close();
-                return sn.toString();
-            }
-            return null;
+            StringBuilder sn = new StringBuilder(String.valueOf(SERIAL_NUMBERS.next()));
+            while (sn.length() < 9) sn.insert(0, "0");
+            return sn.toString();
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getNewSN", e);
             return null;
         }
     }
@@ -1393,20 +1515,9 @@ public class DBManager {
      */
     public static String getNewLocationID() {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_NEW_LOCATION_ID);
-            ResultSet rs = s.executeQuery();
-            if (rs.next()) {
-                String id = String.valueOf(rs.getInt("new_id"));
-                s.close();
-                return id;
-            }
-            s.close();
-            return null;
+            return String.valueOf(LOCATION_IDS.next());
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getNewLocationID", e);
             return null;
         }
     }
@@ -1431,65 +1542,18 @@ public class DBManager {
             // get timestamp
             long timestamp = new Date().getTime() / 1000L;
 
-            // get connection
-            Connection current = ConnectionManager.getCurrentConnection();
-
-            // insert vehicle into database
-            PreparedStatement s = current.prepareStatement(Statement.ADD_VEHICLE);
-            s.setString(1, sn);
-            s.setString(2, "False");
-            s.execute();
-            s.close();
 
-            // add vehicle model relation to database
-            s = current.prepareStatement(Statement.ADD_VEHICLE_MODEL);
-            s.setString(1, sn);
-            s.setInt(2, model.getYear());
-            s.setString(3, model.getName());
-            s.execute();
-            s.close();
+            // insert vehicle, model, owner, transaction, purchase & pickup rows in one round trip
+            executeSteps(Statement.PURCHASE_VEHICLE, Statement.PURCHASE_VEHICLE_STEPS,
+                    sn, "False",
+                    sn, model.getYear(), model.getName(),
+                    user.getEmail(), sn,
+                    timestamp, price,
+                    user.getEmail(), sn, timestamp, price, card.getNum(),
+                    location.getId(), user.getEmail(), sn, "False");
 
             // add custom option relations to database (sn, option_name)
-            for (String option : options) {
-                s = current.prepareStatement(Statement.ADD_VEHICLE_OPTION);
-                s.setString(1, option);
-                s.setString(2, sn);
-                s.execute();
-                s.close();
-            }
-
-            // add owner relation (email, sn)
-            s = current.prepareStatement(Statement.ADD_OWNER);
-            s.setString(1, user.getEmail());
-            s.setString(2, sn);
-            s.execute();
-            s.close();
-
-            // add transaction to database (timestamp, price)
-            s = current.prepareStatement(Statement.ADD_TRANSACTION);
-            s.setLong(1, timestamp);
-            s.setLong(2, price);
-            s.execute();
-            s.close();
-
-            // add purchase to database (email, sn, timestamp, price, card)
-            s = current.prepareStatement(Statement.ADD_PURCHASE);
-            s.setString(1, user.getEmail());
-            s.setString(2, sn);
-            s.setLong(3, timestamp);
-            s.setLong(4, price);
-            s.setString(5, card.getNum());
-            s.execute();
-            s.close();
-
-            // add vehicle to pickup
-            s = current.prepareStatement(Statement.ADD_GARAGE_VEHICLE);
-            s.setString(1, location.getId());
-            s.setString(2, user.getEmail());
-            s.setString(3, sn);
-            s.setString(4, "False");
-            s.execute();
-            s.close();
+            addVehicleOptions(sn, options);
 
             // commit
             ConnectionManager.commit();
@@ -1500,11 +1564,58 @@ public class DBManager {
             currentUser.addVehicle(v);
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("purchaseVehicle", e);
             return false;
         }
     }
 
+    /**
+     * Runs a sequence of statements as a single PL/SQL block, or one statement at a time on
+     * databases without PL/SQL. Parameters are numbered across the whole sequence, as in the block.
+     *
+     * @param block:  PL/SQL block running every statement
+     * @param steps:  Statements of the block, in order
+     * @param params: Parameters of every statement, in order
+     * @throws SQLException if a database access error occurs
+     */
+    private static void executeSteps(String block, String[] steps, Object... params) throws SQLException {
+        if (ConnectionManager.supportsPlsql()) {
+            PreparedStatement s = ConnectionManager.prepareStatement(block);
+            for (int i = 0; i < params.length; i++) s.setObject(i + 1, params[i]);
+            s.execute();
+            s.close();
+            return;
+        }
+
+        int next = 0;
+        for (String step : steps) {
+            PreparedStatement s = ConnectionManager.prepareStatement(step);
+            int count = (int) step.chars().filter(c -> c == '?').count();
+            for (int i = 1; i <= count; i++) s.setObject(i, params[next++]);
+            s.execute();
+            s.close();
+        }
+    }
+
+    /**
+     * Adds a vehicle's custom options to the database as a single batch.
+     *
+     * @param sn:      Serial number of vehicle
+     * @param options: Options of vehicle
+     * @throws SQLException if a database access error occurs
+     */
+    private static void addVehicleOptions(String sn, Set<String> options) throws SQLException {
+        if (options.isEmpty()) return;
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.ADD_VEHICLE_OPTION);
+        for (String option : options) {
+            s.setString(1, option);
+            s.setString(2, sn);
+            s.addBatch();
+        }
+        s.executeBatch();
+        s.close();
+    }
+
     /**
      * Orders a new vehicle for a service location's showroom
      *
@@ -1520,45 +1631,21 @@ public class DBManager {
             String sn = getNewSN();
             if (sn == null) return false;
 
-            // get connection
-            Connection current = ConnectionManager.getCurrentConnection();
-
-            // insert vehicle into database
-            PreparedStatement s = current.prepareStatement(Statement.ADD_VEHICLE);
-            s.setString(1, sn);
-            s.setString(2, "False");
-            s.execute();
-            s.close();
 
-            // add vehicle model relation to database
-            s = current.prepareStatement(Statement.ADD_VEHICLE_MODEL);
-            s.setString(1, sn);
-            s.setInt(2, model.getYear());
-            s.setString(3, model.getName());
-            s.execute();
-            s.close();
+            // insert vehicle, model & showroom rows in one round trip
+            executeSteps(Statement.ORDER_SHOWROOM_VEHICLE, Statement.ORDER_SHOWROOM_VEHICLE_STEPS,
+                    sn, "False",
+                    sn, model.getYear(), model.getName(),
+                    location.getId(), sn);
 
             // add custom option relations to database (sn, option_name)
-            for (String option : options) {
-                s = current.prepareStatement(Statement.ADD_VEHICLE_OPTION);
-                s.setString(1, option);
-                s.setString(2, sn);
-                s.execute();
-                s.close();
-            }
-
-            // add vehicle to showroom
-            s = current.prepareStatement(Statement.ADD_SHOWROOM_VEHICLE);
-            s.setString(1, location.getId());
-            s.setString(2, sn);
-            s.execute();
-            s.close();
+            addVehicleOptions(sn, options);
 
             // commit & return
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("orderShowroomVehicle", e);
             return false;
         }
     }
@@ -1570,23 +1657,29 @@ public class DBManager {
      * @return set of showroom vehicles
      */
     public static Set<Vehicle> getShowroomVehicles(ServiceLocation loc) {
+        return getShowroomVehicles(loc, Statement.GET_SHOWROOM_VEHICLES);
+    }
+
+    /**
+     * Gets the showroom vehicles at a given service location which are selected by a query
+     *
+     * @param loc: Service location
+     * @param sql: Query selecting serial_num, given the location id
+     * @return set of showroom vehicles
+     */
+    private static Set<Vehicle> getShowroomVehicles(ServiceLocation loc, String sql) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_SHOWROOM_VEHICLES);
+            PreparedStatement s = ConnectionManager.prepareStatement(sql);
             s.setString(1, loc.getId());
             ResultSet rs = s.executeQuery();
-            HashSet<Vehicle> vehicles = new HashSet<>();
+            List<String> serialNums = new ArrayList<>();
             while (rs.next()) {
-                String sn = rs.getString("serial_num");
-                Vehicle v = DBManager.getVehicle(sn);
-                if (v != null) vehicles.add(v);
+                serialNums.add(rs.getString("serial_num"));
             }
             s.close();
-            return vehicles;
+            return new HashSet<>(loadVehicles(serialNums).values());
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getShowroomVehicles", e);
             return new HashSet<>();
         }
     }
@@ -1598,9 +1691,7 @@ public class DBManager {
      * @return set of vehicles
      */
     public static Set<Vehicle> getManufacturedShowroomVehicles(ServiceLocation loc) {
-        Set<Vehicle> vehicles = getShowroomVehicles(loc);
-        vehicles.removeIf(v -> !v.isManufactured());
-        return vehicles;
+        return getShowroomVehicles(loc, Statement.GET_MANUFACTURED_SHOWROOM_VEHICLES);
     }
 
     /**
@@ -1610,25 +1701,18 @@ public class DBManager {
      * @return set of vehicles
      */
     public static Set<Vehicle> getOrderedVehicles() {
-        try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_ORDERED_SHOWROOM_VEHICLES);
-            s.setString(1, ServiceManager.getCurrent().getId());
-            ResultSet rs = s.executeQuery();
-            HashSet<Vehicle> vehicles = new HashSet<>();
-            while (rs.next()) {
-                String sn = rs.getString("serial_num");
-                Vehicle v = DBManager.getVehicle(sn);
-                if (v != null) vehicles.add(v);
-            }
-            s.close();
-            return vehicles;
-        } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
-            return new HashSet<>();
-        }
+        return getOrderedVehicles(ServiceManager.getCurrent());
+    }
+
+    /**
+     * Returns a set of vehicles that a given service location has ordered, but that have not
+     * yet arrived to the showroom
+     *
+     * @param loc: Service location
+     * @return set of vehicles
+     */
+    public static Set<Vehicle> getOrderedVehicles(ServiceLocation loc) {
+        return getShowroomVehicles(loc, Statement.GET_ORDERED_SHOWROOM_VEHICLES);
     }
 
     /**
@@ -1639,9 +1723,8 @@ public class DBManager {
      */
     public static boolean addShowroomVehicle(Vehicle v) {
         try {
-            Connection current = ConnectionManager.getCurrentConnection();
             // update isManufactured
-            PreparedStatement s2 = current.prepareStatement(Statement.UPDATE_IS_MANUFACTURED);
+            PreparedStatement s2 = ConnectionManager.prepareStatement(Statement.UPDATE_IS_MANUFACTURED);
             s2.setString(1, "True");
             s2.setString(2, v.getSerialNum());
             s2.execute();
@@ -1649,7 +1732,7 @@ public class DBManager {
 
             // insert condition
             long time = new Date().getTime() / 1000L;
-            PreparedStatement s3 = current.prepareStatement(Statement.INSERT_CONDITION);
+            PreparedStatement s3 = ConnectionManager.prepareStatement(Statement.INSERT_CONDITION);
             s3.setLong(1, 0);
             s3.setLong(2, time);
             s3.setString(3, "False");
@@ -1657,7 +1740,7 @@ public class DBManager {
             s3.close();
 
             // insert vehicle condition
-            PreparedStatement s4 = current.prepareStatement(Statement.INSERT_VEHICLE_CONDITION);
+            PreparedStatement s4 = ConnectionManager.prepareStatement(Statement.INSERT_VEHICLE_CONDITION);
             s4.setString(1, v.getSerialNum());
             s4.setLong(2, 0);
             s4.setLong(3, time);
@@ -1669,7 +1752,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addShowroomVehicle", e);
             return false;
         }
     }
@@ -1686,14 +1769,13 @@ public class DBManager {
         // add to listing
         try {
             // remove from showroom
-            Connection current = ConnectionManager.getCurrentConnection();
-            PreparedStatement s = current.prepareStatement(Statement.DELETE_SHOWROOM_VEHICLE);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.DELETE_SHOWROOM_VEHICLE);
             s.setString(1, v.getSerialNum());
             s.execute();
             s.close();
 
             // add price listing
-            s = current.prepareStatement(Statement.ADD_LISTING);
+            s = ConnectionManager.prepareStatement(Statement.ADD_LISTING);
             s.setString(1, v.getSerialNum());
             s.setString(2, ServiceManager.getCurrent().getId());
             s.setLong(3, price);
@@ -1704,7 +1786,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("removeShowroomVehicle", e);
             return false;
         }
 
@@ -1716,23 +1798,34 @@ public class DBManager {
      * @return map of vehicles to long prices
      */
     public static Map<Vehicle, Long> getVehicleListings() {
+        return getVehicleListings(ServiceManager.getCurrent());
+    }
+
+    /**
+     * Returns a map of vehicles and their listed prices for a given service location
+     *
+     * @param loc: Service location
+     * @return map of vehicles to long prices
+     */
+    public static Map<Vehicle, Long> getVehicleListings(ServiceLocation loc) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.GET_LISTINGS);
-            s.setString(1, ServiceManager.getCurrent().getId());
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_LISTINGS);
+            s.setString(1, loc.getId());
             ResultSet rs = s.executeQuery();
-            Map<Vehicle, Long> listings = new HashMap<>();
+            Map<String, Long> prices = new HashMap<>();
             while (rs.next()) {
-                String sn = rs.getString("serial_num");
-                Vehicle v = getVehicle(sn);
-                Long price = rs.getLong("price");
-                listings.put(v, price);
+                prices.put(rs.getString("serial_num"), rs.getLong("price"));
+            }
+            s.close();
+
+            // load all listed vehicles at once
+            Map<Vehicle, Long> listings = new HashMap<>();
+            for (Vehicle v : loadVehicles(prices.keySet()).values()) {
+                listings.put(v, prices.get(v.getSerialNum()));
             }
             return listings;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("getVehicleListings", e);
             return new HashMap<>();
         }
     }
@@ -1746,10 +1839,7 @@ public class DBManager {
      */
     public static boolean updatePriceListing(Vehicle v, Long price) {
         try {
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.UPDATE_LISTING);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.UPDATE_LISTING);
             s.setLong(1, price);
             s.setString(2, v.getSerialNum());
             s.execute();
@@ -1757,7 +1847,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("updatePriceListing", e);
             return false;
         }
     }
@@ -1776,29 +1866,28 @@ public class DBManager {
             String sn = v.getSerialNum();
 
             // insert transaction
-            Connection current = ConnectionManager.getCurrentConnection();
             long timestamp = new Date().getTime() / 1000L;
-            PreparedStatement s = current.prepareStatement(Statement.ADD_TRANSACTION);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.ADD_TRANSACTION);
             s.setLong(1, timestamp);
             s.setLong(2, price);
             s.execute();
             s.close();
 
             // insert owner
-            s = current.prepareStatement(Statement.ADD_OWNER);
+            s = ConnectionManager.prepareStatement(Statement.ADD_OWNER);
             s.setString(1, email);
             s.setString(2, sn);
             s.execute();
             s.close();
 
             // delete vehicle listing
-            s = current.prepareStatement(Statement.DELETE_LISTING);
+            s = ConnectionManager.prepareStatement(Statement.DELETE_LISTING);
             s.setString(1, sn);
             s.execute();
             s.close();
 
             // insert purchase
-            s = current.prepareStatement(Statement.ADD_PURCHASE);
+            s = ConnectionManager.prepareStatement(Statement.ADD_PURCHASE);
             s.setString(1, email);
             s.setString(2, sn);
             s.setLong(3, timestamp);
@@ -1811,7 +1900,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("sellListedVehicle", e);
             return false;
         }
     }
@@ -1824,10 +1913,7 @@ public class DBManager {
     public static boolean addRepairableModel(Model model) {
         try {
             // create statement
-            PreparedStatement s =
-                    ConnectionManager
-                    .getCurrentConnection()
-                    .prepareStatement(Statement.ADD_REPAIRABLE_MODEL);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.ADD_REPAIRABLE_MODEL);
             s.setString(1, ServiceManager.getCurrent().getId());
             s.setInt(2, model.getYear());
             s.setString(3, model.getName());
@@ -1836,9 +1922,10 @@ public class DBManager {
             s.execute();
             s.close();
             ConnectionManager.commit();
+            LOCATIONS.addRepairable(ServiceManager.getCurrent().getId(), model);
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addRepairableModel", e);
             return false;
         }
     }
@@ -1852,10 +1939,7 @@ public class DBManager {
     public static boolean removeRepairableModel(Model model) {
         try {
         // create statement
-        PreparedStatement s =
-                ConnectionManager
-                        .getCurrentConnection()
-                        .prepareStatement(Statement.REMOVE_REPAIRABLE_MODEL);
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.REMOVE_REPAIRABLE_MODEL);
         s.setString(1, ServiceManager.getCurrent().getId());
         s.setInt(2, model.getYear());
         s.setString(3, model.getName());
@@ -1864,26 +1948,26 @@ public class DBManager {
         s.execute();
         s.close();
         ConnectionManager.commit();
+        LOCATIONS.removeRepairable(ServiceManager.getCurrent().getId(), model);
         return true;
     } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("removeRepairableModel", e);
             return false;
         }
     }
 
     public static boolean createAccount(String email, String first, String middle, String last, Address address, String password) {
         try {
-            Connection current = ConnectionManager.getCurrentConnection();
 
             // insert customer
-            PreparedStatement s = current.prepareStatement(Statement.INSERT_CUSTOMER);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.INSERT_CUSTOMER);
             s.setString(1, email);
             s.setString(2, password);
             s.execute();
             s.close();
 
             // insert name
-            s = current.prepareStatement(Statement.INSERT_NAME);
+            s = ConnectionManager.prepareStatement(Statement.INSERT_NAME);
             s.setString(1, first);
             s.setString(2, middle);
             s.setString(3, last);
@@ -1891,7 +1975,7 @@ public class DBManager {
             s.close();
 
             // insert customer_name
-            s = current.prepareStatement(Statement.INSERT_CUSTOMER_NAME);
+            s = ConnectionManager.prepareStatement(Statement.INSERT_CUSTOMER_NAME);
             s.setString(1, email);
             s.setString(2, first);
             s.setString(3, middle);
@@ -1901,7 +1985,7 @@ public class DBManager {
 
             // insert address
             if (!addressExists(address)) {
-                s = current.prepareStatement(Statement.INSERT_ADDRESS);
+                s = ConnectionManager.prepareStatement(Statement.INSERT_ADDRESS);
                 s.setString(1, address.getPlanet());
                 s.setString(2, address.getCountry());
                 s.setString(3, address.getState());
@@ -1914,7 +1998,7 @@ public class DBManager {
             }
 
             // insert customer_address
-            s = current.prepareStatement(Statement.INSERT_CUSTOMER_ADDRESS);
+            s = ConnectionManager.prepareStatement(Statement.INSERT_CUSTOMER_ADDRESS);
             s.setString(1, email);
             s.setString(2, address.getPlanet());
             s.setString(3, address.getCountry());
@@ -1930,7 +2014,7 @@ public class DBManager {
             ConnectionManager.commit();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("createAccount", e);
             return false;
         }
     }
@@ -1939,10 +2023,7 @@ public class DBManager {
         try {
             boolean valid;
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.CORRECT_PRODUCT_MANAGER_PASSWORD);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.CORRECT_PRODUCT_MANAGER_PASSWORD);
             s.setString(1, password);
             ResultSet rs = s.executeQuery();
 
@@ -1951,7 +2032,7 @@ public class DBManager {
             s.close();
             return valid;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("correctProductManagerPassword", e);
             return false;
         }
     }
@@ -1959,10 +2040,7 @@ public class DBManager {
     public static boolean addModel(Integer year, String name, Long price) {
         try {
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.ADD_MODEL);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.ADD_MODEL);
             s.setInt(1, year);
             s.setString(2, name);
             if (price == null) s.setNull(3, Types.NUMERIC);
@@ -1972,9 +2050,10 @@ public class DBManager {
 
             // commit & return
             ConnectionManager.commit();
+            invalidateCatalog();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addModel", e);
             return false;
         }
     }
@@ -1982,10 +2061,7 @@ public class DBManager {
     public static boolean addOption(String name, Long price) {
         try {
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.ADD_OPTION);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.ADD_OPTION);
             s.setString(1, name);
             if (price == null) s.setNull(2, Types.NUMERIC);
             else s.setLong(2, price);
@@ -1994,9 +2070,10 @@ public class DBManager {
 
             // commit & return
             ConnectionManager.commit();
+            invalidateCatalog();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addOption", e);
             return false;
         }
     }
@@ -2004,9 +2081,8 @@ public class DBManager {
     public static boolean addLocation(String name, String password, Address address) {
         try {
             String id = getNewLocationID();
-            Connection current = ConnectionManager.getCurrentConnection();
             // insert location row
-            PreparedStatement s = current.prepareStatement(Statement.INSERT_LOCATION);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.INSERT_LOCATION);
             s.setString(1, name);
             s.setString(2, id);
             s.setString(3, password);
@@ -2015,7 +2091,7 @@ public class DBManager {
 
             // insert address row
             if (!addressExists(address)) {
-                s = current.prepareStatement(Statement.INSERT_ADDRESS);
+                s = ConnectionManager.prepareStatement(Statement.INSERT_ADDRESS);
                 s.setString(1, address.getPlanet());
                 s.setString(2, address.getCountry());
                 s.setString(3, address.getState());
@@ -2028,7 +2104,7 @@ public class DBManager {
             }
 
             // insert service_address row
-            s = current.prepareStatement(Statement.INSERT_SERVICE_ADDRESS);
+            s = ConnectionManager.prepareStatement(Statement.INSERT_SERVICE_ADDRESS);
             s.setString(1, id);
             s.setString(2, address.getPlanet());
             s.setString(3, address.getCountry());
@@ -2041,11 +2117,12 @@ public class DBManager {
             s.close();
 
 
-            // commit & return
+            // commit, record in directory & return
             ConnectionManager.commit();
+            LOCATIONS.addLocation(new ServiceLocation(id, name, address));
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addLocation", e);
             return false;
         }
     }
@@ -2053,10 +2130,7 @@ public class DBManager {
     public static boolean updateModelPrice(Model model, Long price) {
             try {
                 // set parameters & execute
-                PreparedStatement s =
-                        ConnectionManager
-                                .getCurrentConnection()
-                                .prepareStatement(Statement.UPDATE_MODEL_PRICE);
+                PreparedStatement s = ConnectionManager.prepareStatement(Statement.UPDATE_MODEL_PRICE);
                 if (price == null) s.setNull(1, Types.NUMERIC);
                 else s.setLong(1, price);
                 s.setInt(2, model.getYear());
@@ -2066,9 +2140,10 @@ public class DBManager {
 
                 // commit & return
                 ConnectionManager.commit();
+                invalidateCatalog();
                 return true;
             } catch (SQLException e) {
-                MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+                handleError("updateModelPrice", e);
                 return false;
             }
     }
@@ -2076,10 +2151,7 @@ public class DBManager {
     public static boolean updateOptionPrice(String option, Long price) {
             try {
                 // set parameters & execute
-                PreparedStatement s =
-                        ConnectionManager
-                                .getCurrentConnection()
-                                .prepareStatement(Statement.UPDATE_OPTION_PRICE);
+                PreparedStatement s = ConnectionManager.prepareStatement(Statement.UPDATE_OPTION_PRICE);
 
                 if (price == null) s.setNull(1, Types.NUMERIC);
                 else s.setLong(1, price);
@@ -2089,9 +2161,10 @@ public class DBManager {
 
                 // commit & return
                 ConnectionManager.commit();
+                invalidateCatalog();
                 return true;
             } catch (SQLException e) {
-                MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+                handleError("updateOptionPrice", e);
                 return false;
             }
     }
@@ -2099,10 +2172,7 @@ public class DBManager {
     public static boolean addModelOption(Model model, String option) {
         try {
             // set parameters & execute
-            PreparedStatement s =
-                    ConnectionManager
-                            .getCurrentConnection()
-                            .prepareStatement(Statement.INSERT_MODEL_OPTION);
+            PreparedStatement s = ConnectionManager.prepareStatement(Statement.INSERT_MODEL_OPTION);
             s.setString(1, option);
             s.setInt(2, model.getYear());
             s.setString(3, model.getName());
@@ -2111,43 +2181,104 @@ public class DBManager {
 
             // commit & return
             ConnectionManager.commit();
+            invalidateCatalog();
             return true;
         } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
+            handleError("addModelOption", e);
             return false;
         }
     }
 
-    public static Set<String> getRecallEmails(Model model, Set<String> options) {
+    /**
+     * Clears every cached catalog value. Called after a change to models, options or their prices.
+     */
+    public static void invalidateCatalog() {
+        ALL_MODELS.invalidateAll();
+        BUYABLE_MODELS.invalidateAll();
+        BUYABLE_YEARS.invalidateAll();
+        ALL_YEARS.invalidateAll();
+        ALL_OPTIONS.invalidateAll();
+        BUYABLE_OPTIONS.invalidateAll();
+        MODEL_COSTS.invalidateAll();
+        OPTION_COSTS.invalidateAll();
+    }
+
+    /**
+     * Forgets the cached service locations and the models they repair, so that they are reloaded
+     * on next use. Changes made through DBManager are recorded without reloading; this is for
+     * changes made elsewhere.
+     */
+    public static void invalidateLocations() {
+        LOCATIONS.invalidate();
+    }
+
+    /**
+     * Returns a page of emails of customers owning the given model with all the given options,
+     * in email order. Pass the last email of the previous page to get the next one.
+     *
+     * @param model:    Recalled model
+     * @param options:  Options a vehicle must all have to be recalled
+     * @param after:    Last email of the previous page, or null for the first page
+     * @param pageSize: Maximum number of emails to return
+     * @return page of emails, or null if a database error occurred
+     */
+    public static List<String> getRecallEmails(Model model, Set<String> options, String after, int pageSize) {
         try {
-            Connection current = ConnectionManager.getCurrentConnection();
-            Set<String> emails = new HashSet<>();
-            if (options.isEmpty()) {
-                PreparedStatement s = current.prepareStatement(Statement.GET_RECALL_EMAILS_NO_OPTION);
-                s.setInt(1, model.getYear());
-                s.setString(2, model.getName());
-                ResultSet rs = s.executeQuery();
-                while (rs.next()) {
-                    emails.add(rs.getString("email"));
-                }
-                s.close();
-            } else {
-                for (String option : options) {
-                    PreparedStatement s = current.prepareStatement(Statement.GET_RECALL_EMAILS);
-                    s.setInt(1, model.getYear());
-                    s.setString(2, model.getName());
-                    s.setString(3, option);
-                    ResultSet rs = s.executeQuery();
-                    while (rs.next()) {
-                        emails.add(rs.getString("email"));
-                    }
-                    s.close();
+            return queryRecallEmails(model, options, after, pageSize);
+        } catch (SQLException e) {
+            handleError("getRecallEmails", e);
+            return null;
+        }
+    }
+
+    /**
+     * Queries a page of recall emails, see getRecallEmails.
+     *
+     * @param model:    Recalled model
+     * @param options:  Options a vehicle must all have to be recalled
+     * @param after:    Last email of the previous page, or null for the first page
+     * @param pageSize: Maximum number of emails to return
+     * @return page of emails
+     * @throws SQLException if a database access error occurs
+     */
+    private static List<String> queryRecallEmails(Model model, Set<String> options, String after, int pageSize) throws SQLException {
+        PreparedStatement s;
+        if (options.isEmpty()) {
+            s = ConnectionManager.prepareStatement(Statement.GET_RECALL_EMAILS_NO_OPTION);
+            s.setInt(1, model.getYear());
+            s.setString(2, model.getName());
+            s.setString(3, after);
+            s.setString(4, after);
+            s.setInt(5, pageSize);
+        } else {
+            // pad the option list to a fixed size, duplicates do not change the distinct count
+            List<String> list = new ArrayList<>(options);
+            int size = list.size();
+            for (int candidate : IN_LIST_SIZES) {
+                if (candidate >= list.size()) {
+                    size = candidate;
+                    break;
                 }
             }
-            return emails;
-        } catch (SQLException e) {
-            MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, Strings.DB_ERROR);
-            return new HashSet<>();
+            s = ConnectionManager.prepareStatement(
+                    Statement.GET_RECALL_EMAILS + inList(size) + Statement.GET_RECALL_EMAILS_PAGE);
+            s.setInt(1, model.getYear());
+            s.setString(2, model.getName());
+            s.setString(3, after);
+            s.setString(4, after);
+            for (int i = 0; i < size; i++) {
+                s.setString(5 + i, list.get(Math.min(i, list.size() - 1)));
+            }
+            s.setInt(5 + size, list.size());
+            s.setInt(6 + size, pageSize);
         }
+
+        ResultSet rs = s.executeQuery();
+        List<String> emails = new ArrayList<>(pageSize);
+        while (rs.next()) {
+            emails.add(rs.getString("email"));
+        }
+        s.close();
+        return emails;
     }
 }
@@ -0,0 +1,81 @@
+package database;
+
+import connection.ConnectionManager;
+import connection.ConnectionPool;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Hands out unique numeric IDs from blocks reserved in the database.
+ * <p>
+ * Each block is reserved by a single query returning the next value of a database
+ * sequence whose increment equals the block size, so the IDs value .. value + blockSize - 1
+ * belong to this process alone. IDs are then handed out from memory until the block runs
+ * out. Since the sequence is shared, IDs stay unique across every running CLI process;
+ * unused IDs of a block are simply skipped.
+ */
+public class IdAllocator {
+
+    /**
+     * Query returning the first ID of a newly reserved block, in a column named "id"
+     */
+    private final String nextBlockSql;
+
+    /**
+     * Number of IDs in a block, must equal the increment of the sequence
+     */
+    private final int blockSize;
+
+    /**
+     * Next ID to hand out
+     */
+    private long next = 0;
+
+    /**
+     * First ID past the current block
+     */
+    private long limit = 0;
+
+    /**
+     * Pool the current block was reserved from
+     */
+    private ConnectionPool reservedFrom = null;
+
+    /**
+     * Constructs a new IdAllocator
+     *
+     * @param nextBlockSql: Query returning the first ID of a new block in a column named "id"
+     * @param blockSize:    Number of IDs per block
+     */
+    public IdAllocator(String nextBlockSql, int blockSize) {
+        if (blockSize < 1) throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        this.nextBlockSql = nextBlockSql;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns a new, unused ID, reserving a new block first if needed.
+     *
+     * @return unused ID
+     * @throws SQLException if a new block cannot be reserved
+     */
+    public synchronized long next() throws SQLException {
+        // a block reserved from another database is of no use
+        ConnectionPool pool = ConnectionManager.getPool();
+        if (next >= limit || pool != reservedFrom) {
+            PreparedStatement s = ConnectionManager.prepareStatement(nextBlockSql);
+            ResultSet rs = s.executeQuery();
+            if (!rs.next()) {
+                s.close();
+                throw new SQLException("Unable to reserve a block of IDs.");
+            }
+            next = rs.getLong("id");
+            limit = next + blockSize;
+            reservedFrom = pool;
+            s.close();
+        }
+        return next++;
+    }
+}
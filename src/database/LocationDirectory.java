@@ -0,0 +1,352 @@
+package database;
+
+import connection.ConnectionManager;
+import connection.ConnectionPool;
+import constants.Statement;
+import location.Address;
+import location.ServiceLocation;
+import vehicle.Model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory directory of every service location, and of the models each location can repair.
+ * <p>
+ * The directory is loaded with two queries and then kept up to date by the write paths
+ * which change it (adding a location, adding or removing a repairable model), so looking up
+ * locations never touches the database. It is reloaded after a while anyway, so that changes
+ * made by other processes are picked up.
+ * <p>
+ * Lookups only hold the directory's lock while reading the in-memory indexes: a reload runs
+ * its queries outside of the lock and swaps the new indexes in once they are built.
+ */
+public class LocationDirectory {
+
+    /**
+     * The directory as loaded at one point in time, along with the changes recorded since.
+     */
+    private static final class Snapshot {
+        /**
+         * Locations by id
+         */
+        private final Map<String, ServiceLocation> byId = new LinkedHashMap<>();
+
+        /**
+         * Locations by name
+         */
+        private final Map<String, ServiceLocation> byName = new HashMap<>();
+
+        /**
+         * Locations by address, see addressKey
+         */
+        private final Map<String, ServiceLocation> byAddress = new HashMap<>();
+
+        /**
+         * Ids of the locations able to repair each model
+         */
+        private final Map<Model, Set<String>> repairableBy = new HashMap<>();
+
+        /**
+         * Models each location is able to repair, by location id
+         */
+        private final Map<String, Set<Model>> repairableAt = new HashMap<>();
+
+        /**
+         * Time (in milliseconds) the snapshot was loaded
+         */
+        private final long loadedAt;
+
+        /**
+         * Pool the snapshot was loaded from
+         */
+        private final ConnectionPool loadedFrom;
+
+        /**
+         * Constructs a new, empty snapshot
+         *
+         * @param loadedAt:   Time (in milliseconds) the snapshot is loaded
+         * @param loadedFrom: Pool the snapshot is loaded from
+         */
+        private Snapshot(long loadedAt, ConnectionPool loadedFrom) {
+            this.loadedAt = loadedAt;
+            this.loadedFrom = loadedFrom;
+        }
+
+        /**
+         * Adds a location to the indexes
+         *
+         * @param location: Location
+         */
+        private void index(ServiceLocation location) {
+            byId.put(location.getId(), location);
+            byName.put(location.getName(), location);
+            byAddress.put(addressKey(location.getAddress()), location);
+        }
+
+        /**
+         * Adds a repairable model to the indexes
+         *
+         * @param id:    Location id
+         * @param model: Model
+         */
+        private void link(String id, Model model) {
+            repairableBy.computeIfAbsent(model, m -> new HashSet<>()).add(id);
+            repairableAt.computeIfAbsent(id, i -> new HashSet<>()).add(model);
+        }
+
+        /**
+         * Removes a repairable model from the indexes
+         *
+         * @param id:    Location id
+         * @param model: Model
+         */
+        private void unlink(String id, Model model) {
+            Set<String> ids = repairableBy.get(model);
+            if (ids != null) ids.remove(id);
+            Set<Model> models = repairableAt.get(id);
+            if (models != null) models.remove(model);
+        }
+    }
+
+    /**
+     * Time (in milliseconds) the directory is kept before being reloaded
+     */
+    private final long ttl;
+
+    /**
+     * The directory in use, or null if it needs to be loaded. Guarded by this directory's lock,
+     * as are the snapshot's indexes.
+     */
+    private Snapshot snapshot = null;
+
+    /**
+     * Number of changes recorded (including invalidations), used to tell whether a snapshot
+     * loaded outside of the lock may have missed one
+     */
+    private long changes = 0;
+
+    /**
+     * Constructs a new, empty directory
+     *
+     * @param ttl: Time (in milliseconds) the directory is kept before being reloaded
+     */
+    public LocationDirectory(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns every service location
+     *
+     * @return set of locations
+     * @throws SQLException if the directory had to be loaded and could not be
+     */
+    public Set<ServiceLocation> getLocations() throws SQLException {
+        Snapshot d = current();
+        synchronized (this) {
+            return new HashSet<>(d.byId.values());
+        }
+    }
+
+    /**
+     * Returns the service location with the given id
+     *
+     * @param id: Location id
+     * @return location, or null if none exists
+     * @throws SQLException if the directory had to be loaded and could not be
+     */
+    public ServiceLocation getLocation(String id) throws SQLException {
+        Snapshot d = current();
+        synchronized (this) {
+            return d.byId.get(id);
+        }
+    }
+
+    /**
+     * Returns the service location with the given name
+     *
+     * @param name: Location name
+     * @return location, or null if none exists
+     * @throws SQLException if the directory had to be loaded and could not be
+     */
+    public ServiceLocation getLocationByName(String name) throws SQLException {
+        Snapshot d = current();
+        synchronized (this) {
+            return d.byName.get(name);
+        }
+    }
+
+    /**
+     * Returns the service location at the given address
+     *
+     * @param address: Address
+     * @return location, or null if none exists
+     * @throws SQLException if the directory had to be loaded and could not be
+     */
+    public ServiceLocation getLocationAt(Address address) throws SQLException {
+        Snapshot d = current();
+        synchronized (this) {
+            return d.byAddress.get(addressKey(address));
+        }
+    }
+
+    /**
+     * Returns the service locations able to repair a model
+     *
+     * @param model: Model
+     * @return set of locations
+     * @throws SQLException if the directory had to be loaded and could not be
+     */
+    public Set<ServiceLocation> getRepairableLocations(Model model) throws SQLException {
+        Snapshot d = current();
+        synchronized (this) {
+            Set<ServiceLocation> locations = new HashSet<>();
+            for (String id : d.repairableBy.getOrDefault(model, Collections.emptySet())) {
+                ServiceLocation location = d.byId.get(id);
+                if (location != null) locations.add(location);
+            }
+            return locations;
+        }
+    }
+
+    /**
+     * Returns the models a service location is able to repair
+     *
+     * @param id: Location id
+     * @return set of models
+     * @throws SQLException if the directory had to be loaded and could not be
+     */
+    public Set<Model> getRepairableModels(String id) throws SQLException {
+        Snapshot d = current();
+        synchronized (this) {
+            return new HashSet<>(d.repairableAt.getOrDefault(id, Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Records a newly added service location
+     *
+     * @param location: New location
+     */
+    public synchronized void addLocation(ServiceLocation location) {
+        changes++;
+        if (snapshot != null) snapshot.index(location);
+    }
+
+    /**
+     * Records that a service location is now able to repair a model
+     *
+     * @param id:    Location id
+     * @param model: Model
+     */
+    public synchronized void addRepairable(String id, Model model) {
+        changes++;
+        if (snapshot != null) snapshot.link(id, model);
+    }
+
+    /**
+     * Records that a service location is no longer able to repair a model
+     *
+     * @param id:    Location id
+     * @param model: Model
+     */
+    public synchronized void removeRepairable(String id, Model model) {
+        changes++;
+        if (snapshot != null) snapshot.unlink(id, model);
+    }
+
+    /**
+     * Forgets the directory, so that it is reloaded on next use
+     */
+    public synchronized void invalidate() {
+        changes++;
+        snapshot = null;
+    }
+
+    /**
+     * Returns the directory, loading it if it has not been loaded, has expired, or was loaded from
+     * another database. Loading runs outside of the lock, so lookups by other threads are not held
+     * up by the queries; the loaded snapshot is then swapped in under the lock. If a change was
+     * recorded meanwhile, the snapshot may have missed it: it is still returned, since it is no
+     * older than the change, but not kept, so that the next lookup loads the directory again.
+     *
+     * @return directory
+     * @throws SQLException if a database access error occurs
+     */
+    private Snapshot current() throws SQLException {
+        ConnectionPool pool = ConnectionManager.getPool();
+        long now = System.currentTimeMillis();
+        long seen;
+        synchronized (this) {
+            Snapshot d = snapshot;
+            if (d != null && now - d.loadedAt < ttl && d.loadedFrom == pool) return d;
+            seen = changes;
+        }
+
+        Snapshot loaded = load(now, pool);
+        synchronized (this) {
+            if (changes == seen) snapshot = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * Loads the directory from the database into a new snapshot
+     *
+     * @param now:  Current time (in milliseconds)
+     * @param pool: Pool connected to
+     * @return loaded snapshot
+     * @throws SQLException if a database access error occurs
+     */
+    private static Snapshot load(long now, ConnectionPool pool) throws SQLException {
+        Snapshot d = new Snapshot(now, pool);
+
+        // load locations
+        PreparedStatement s = ConnectionManager.prepareStatement(Statement.GET_SERVICE_LOCATIONS);
+        ResultSet rs = s.executeQuery();
+        while (rs.next()) {
+            d.index(new ServiceLocation(
+                    rs.getString("location_id"),
+                    rs.getString("location_name"),
+                    new Address(
+                            rs.getString("planet"),
+                            rs.getString("country"),
+                            rs.getString("state"),
+                            rs.getString("city"),
+                            rs.getString("street"),
+                            rs.getString("zip"),
+                            null
+                    )
+            ));
+        }
+        s.close();
+
+        // load repairable models
+        s = ConnectionManager.prepareStatement(Statement.GET_ALL_REPAIRABLE);
+        rs = s.executeQuery();
+        while (rs.next()) {
+            d.link(rs.getString("location_id"), new Model(rs.getInt("year"), rs.getString("name")));
+        }
+        s.close();
+        return d;
+    }
+
+    /**
+     * Returns the key an address is indexed under. Apartments are left out,
+     * since they are not part of a service address.
+     *
+     * @param address: Address
+     * @return key of address
+     */
+    private static String addressKey(Address address) {
+        return address.getPlanet() + '\n' + address.getCountry() + '\n' + address.getState() + '\n'
+                + address.getCity() + '\n' + address.getStreet() + '\n' + address.getZip();
+    }
+}
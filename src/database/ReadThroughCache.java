@@ -0,0 +1,126 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory cache which loads missing values from the database on demand.
+ * <p>
+ * Values are kept until they are invalidated by a write to the data they were loaded
+ * from, or until they expire, which bounds how long writes made by other processes go unseen.
+ * Null values are cached as well.
+ *
+ * @param <K> key type
+ * @param <V> value type, which should be immutable since it is shared by all readers
+ */
+public class ReadThroughCache<K, V> {
+
+    /**
+     * Loads a value from the database.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        /**
+         * Loads the value of a key
+         *
+         * @param key: Key to load
+         * @return value of key, possibly null
+         * @throws SQLException if a database access error occurs
+         */
+        V load(K key) throws SQLException;
+    }
+
+    /**
+     * A cached value along with the time it expires.
+     *
+     * @param <V> value type
+     */
+    private static class Entry<V> {
+        /**
+         * Cached value
+         */
+        private final V value;
+
+        /**
+         * Time (in milliseconds) after which the value must be loaded again
+         */
+        private final long expires;
+
+        /**
+         * Constructs a new entry
+         *
+         * @param value:   Cached value
+         * @param expires: Expiry time in milliseconds
+         */
+        private Entry(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Cached entries
+     */
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Loads values which are not cached
+     */
+    private final Loader<K, V> loader;
+
+    /**
+     * Time (in milliseconds) values are kept
+     */
+    private final long ttl;
+
+    /**
+     * Incremented on every invalidation, so that loads which raced with an invalidation are not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructs a new cache
+     *
+     * @param loader: Loads values which are not cached
+     * @param ttl:    Time (in milliseconds) values are kept
+     */
+    public ReadThroughCache(Loader<K, V> loader, long ttl) {
+        this.loader = loader;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the value of a key, loading it if it is not cached or has expired.
+     *
+     * @param key: Key
+     * @return value of key
+     * @throws SQLException if the value had to be loaded and could not be
+     */
+    public V get(K key) throws SQLException {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expires > now) return entry.value;
+
+        long gen = generation.get();
+        V value = loader.load(key);
+        if (generation.get() == gen) {
+            Entry<V> loaded = new Entry<>(value, now + ttl);
+            entries.put(key, loaded);
+            // an invalidation between the check and the put would otherwise be lost
+            if (generation.get() != gen) entries.remove(key, loaded);
+        }
+        return value;
+    }
+
+    /**
+     * Removes every cached value.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+}
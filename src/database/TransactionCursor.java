@@ -0,0 +1,92 @@
+package database;
+
+/**
+ * Position within a customer's transaction history, used to fetch the history one page at a time.
+ * <p>
+ * Transactions are ordered by (time, kind, serial number, end time, repair type), where kind is
+ * 0 for purchases and 1 for repairs. The last two keys tell apart repairs of the same vehicle
+ * started in the same second, so no transaction is skipped or repeated at a page boundary;
+ * only a repair entered twice with the same times and type can still tie. The cursor remembers
+ * the key of the last transaction returned, so each page is fetched with a keyset condition
+ * rather than an offset, and costs the same no matter how deep into the history it is.
+ */
+public class TransactionCursor {
+
+    /**
+     * Email of customer
+     */
+    private final String email;
+
+    /**
+     * Maximum number of transactions per page
+     */
+    private final int pageSize;
+
+    /**
+     * Time (in seconds) of the last transaction returned, -1 before the first page
+     */
+    long lastTime = -1;
+
+    /**
+     * Kind of the last transaction returned
+     */
+    int lastKind = 0;
+
+    /**
+     * Serial number of the last transaction returned
+     */
+    String lastSerialNum = "";
+
+    /**
+     * End time (in seconds) of the last transaction returned, 0 for purchases
+     */
+    long lastEndTime = 0;
+
+    /**
+     * Repair type of the last transaction returned, " " for purchases
+     */
+    String lastRepairType = " ";
+
+    /**
+     * Whether the last page has been returned
+     */
+    boolean exhausted = false;
+
+    /**
+     * Constructs a new cursor positioned before the first transaction
+     *
+     * @param email:    Email of customer
+     * @param pageSize: Maximum number of transactions per page
+     */
+    public TransactionCursor(String email, int pageSize) {
+        this.email = email;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the email of the customer
+     *
+     * @return email
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Returns the maximum number of transactions per page
+     *
+     * @return page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns true if there are no more transactions to fetch
+     *
+     * @return true if exhausted, otherwise false
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
@@ -0,0 +1,69 @@
+package io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes lines of comma-separated fields. Fields holding commas, quotes, or leading
+ * or trailing spaces are double-quoted, with doubled quotes standing for a quote.
+ */
+public class Csv {
+
+    /**
+     * Private constructor of Csv
+     */
+    private Csv() {
+    }
+
+    /**
+     * Splits a line into its fields. Unquoted fields are trimmed.
+     *
+     * @param line: Line to split
+     * @return fields
+     */
+    public static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') field.append(line.charAt(++i));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(wasQuoted ? field.toString() : field.toString().trim());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(wasQuoted ? field.toString() : field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Joins fields into a line, quoting the fields which need it.
+     *
+     * @param fields: Fields to join, where null is written as an empty field
+     * @return line
+     */
+    public static String join(Object... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append(',');
+            if (fields[i] == null) continue;
+            String field = fields[i].toString();
+            boolean quote = field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+                    || !field.equals(field.trim());
+            if (quote) sb.append('"').append(field.replace("\"", "\"\"")).append('"');
+            else sb.append(field);
+        }
+        return sb.toString();
+    }
+}
@@ -1,18 +1,96 @@
 package io;
 
+import connection.ConnectionManager;
 import constants.Strings;
+import session.Session;
 
+import java.io.BufferedWriter;
+import java.io.Console;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.Scanner;
 
 /**
  * Manages the user inputs and outputs
+ * <p>
+ * Output is rendered in frames: everything printed is appended to a reusable frame buffer,
+ * and the frame is written to the console in a single write right before the user is asked
+ * for input, or right away for a status message announcing slow work (see printStatus). A
+ * screen such as a menu redraw therefore costs one write, no matter how many lines it has.
+ * <p>
+ * Input is read from, and frames are written to, the streams of the session bound to the
+ * calling thread.
  */
 public class IOManager {
 
     /**
-     * Scanner used for reading the user inputs
+     * Escape sequence which clears the console and moves the cursor to the top left
      */
-    private static final Scanner scanner = new Scanner(System.in);
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+    /**
+     * The Alset logo with every line already prefixed, as printed by clear()
+     */
+    private static final String PREFIXED_LOGO = prefix(Strings.ALSET_LOGO);
+
+    /**
+     * Telnet command asking the client to stop echoing what the user types (IAC WILL ECHO)
+     */
+    private static final byte[] HIDE_INPUT = {(byte) 255, (byte) 251, 1};
+
+    /**
+     * Telnet command asking the client to echo what the user types again (IAC WONT ECHO)
+     */
+    private static final byte[] SHOW_INPUT = {(byte) 255, (byte) 252, 1};
+
+    /**
+     * The console of each session
+     */
+    private static final class State {
+        /**
+         * Buffer holding the frame being rendered
+         */
+        private final StringBuilder frame = new StringBuilder(8192);
+
+        /**
+         * Reusable array used for copying a frame to the console
+         */
+        private char[] chars = new char[8192];
+
+        /**
+         * Console output, only written to once per frame
+         */
+        private final Writer out;
+
+        /**
+         * Stream underneath out, used for sending terminal commands
+         */
+        private final OutputStream raw;
+
+        /**
+         * Scanner used for reading the user inputs
+         */
+        private final Scanner scanner;
+
+        /**
+         * Whether the session is served over the network
+         */
+        private final boolean remote;
+
+        /**
+         * Constructs the console of the current session
+         */
+        private State() {
+            Session session = Session.current();
+            this.raw = session.getOutput();
+            this.out = new BufferedWriter(new OutputStreamWriter(raw, Charset.defaultCharset()), 8192);
+            this.scanner = new Scanner(session.getInput());
+            this.remote = session.isRemote();
+        }
+    }
 
     /**
      * Fetches a String input from the user
@@ -21,11 +99,8 @@ public class IOManager {
      * @return the user input
      */
     public static String getStringInput(String message) {
-        print(message + " ");
-        StringBuilder sb = new StringBuilder(scanner.next());
-        String nextLine = scanner.nextLine();
-        if (!nextLine.isEmpty()) sb.append(nextLine);
-        return sb.toString();
+        prompt(message);
+        return readLine(state().scanner);
     }
 
     /**
@@ -40,8 +115,9 @@ public class IOManager {
      * @param message: Message to print
      */
     public static void print(String message) {
-        message = message.replace("\n", "\n[Alset] ");
-        System.out.print(Strings.ALSET_PREFIX + message);
+        StringBuilder frame = state().frame;
+        frame.append(Strings.ALSET_PREFIX);
+        appendPrefixed(frame, message);
     }
 
     /**
@@ -57,8 +133,8 @@ public class IOManager {
      * @param message: Message to print out
      */
     public static void println(String message) {
-        message = message.replace("\n", "\n[Alset] ");
-        System.out.println(Strings.ALSET_PREFIX + message);
+        print(message);
+        state().frame.append(System.lineSeparator());
     }
 
     /**
@@ -68,6 +144,17 @@ public class IOManager {
         println("");
     }
 
+    /**
+     * Prints a status message such as "Connecting..." and writes the frame to the console right
+     * away, so that the message shows while the slow work it announces runs.
+     *
+     * @param message: Message to print out
+     */
+    public static void printStatus(String message) {
+        println(message);
+        flush();
+    }
+
     /**
      * Fetches an Integer input from the user
      *
@@ -77,8 +164,8 @@ public class IOManager {
      * @return the user input
      */
     public static Integer getIntInput(String message, int min, int max) {
-        IOManager.print(message + " ");
-        String s = scanner.next();
+        prompt(message);
+        String s = state().scanner.next();
         try {
             int i = Integer.parseInt(s);
             if (i < min || i > max) return null;
@@ -97,8 +184,8 @@ public class IOManager {
      * @return the user input
      */
     public static Double getDoubleInput(String message, double min, double max) {
-        IOManager.print(message + " ");
-        String s = scanner.next();
+        prompt(message);
+        String s = state().scanner.next();
         try {
             double i = Double.parseDouble(s);
             if (i < min || i > max) return null;
@@ -117,8 +204,8 @@ public class IOManager {
      * @return the user input
      */
     public static Long getLongInput(String message, long min, long max) {
-        IOManager.print(message + " ");
-        String s = scanner.next();
+        prompt(message);
+        String s = state().scanner.next();
         try {
             long i = Long.parseLong(s);
             if (i < min || i > max) return null;
@@ -135,13 +222,29 @@ public class IOManager {
      * @return the user input
      */
     public static String getPasswordInput(String message) {
-        print(message + " ");
-        char[] pwd = System.console().readPassword();
-        StringBuilder sb = new StringBuilder();
-        for (char c : pwd) {
-            sb.append(c);
+        prompt(message);
+        State state = state();
+        Console console = System.console();
+        if (!state.remote && console != null) {
+            char[] pwd = console.readPassword();
+            StringBuilder sb = new StringBuilder();
+            for (char c : pwd) {
+                sb.append(c);
+            }
+            return sb.toString();
+        }
+
+        // ask a telnet client not to echo the password, a plain console cannot be asked
+        if (state.remote) sendCommand(state, HIDE_INPUT);
+        try {
+            return readLine(state.scanner);
+        } finally {
+            if (state.remote) {
+                sendCommand(state, SHOW_INPUT);
+                // the user's enter key was not echoed either
+                println();
+            }
         }
-        return sb.toString();
     }
 
     /**
@@ -150,9 +253,11 @@ public class IOManager {
      * @param message: Message to print
      */
     public static void clear(String message) {
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
-        IOManager.println(Strings.ALSET_LOGO);
+        // anything not yet written would be cleared right away, so start a new frame
+        StringBuilder frame = state().frame;
+        frame.setLength(0);
+        frame.append(CLEAR_SCREEN);
+        frame.append(PREFIXED_LOGO).append(System.lineSeparator());
         IOManager.println();
         IOManager.println(message);
         IOManager.println();
@@ -162,12 +267,102 @@ public class IOManager {
      * Clears the console without printing a message.
      */
     public static void clear() {
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
-        IOManager.println(Strings.ALSET_LOGO);
-        IOManager.println();
-        IOManager.println();
-        IOManager.println();
+        clear("");
+    }
+
+    /**
+     * Writes the current frame to the console.
+     */
+    public static void flush() {
+        State state = state();
+        int length = state.frame.length();
+        if (length == 0) return;
+        if (state.chars.length < length) state.chars = new char[Math.max(length, state.chars.length * 2)];
+        state.frame.getChars(0, length, state.chars, 0);
+        state.frame.setLength(0);
+        try {
+            state.out.write(state.chars, 0, length);
+            state.out.flush();
+        } catch (IOException ignored) {
+            // the console is gone, there is nobody left to tell
+        }
+    }
+
+    /**
+     * Prints a message asking for input, and writes the frame to the console. A remote session
+     * returns its database connection to the shared pool while waiting for the user, so that
+     * idle terminals do not hold on to connections.
+     *
+     * @param message: Message asking for input
+     */
+    private static void prompt(String message) {
+        print(message + " ");
+        flush();
+        if (state().remote) ConnectionManager.releaseConnection();
+    }
+
+    /**
+     * Reads a line of input, skipping any leading whitespace and empty lines.
+     *
+     * @param scanner: Scanner to read from
+     * @return line read
+     */
+    private static String readLine(Scanner scanner) {
+        StringBuilder sb = new StringBuilder(scanner.next());
+        String nextLine = scanner.nextLine();
+        if (!nextLine.isEmpty()) sb.append(nextLine);
+        return sb.toString();
+    }
+
+    /**
+     * Sends a terminal command to a remote session's client.
+     *
+     * @param state:   Console of session
+     * @param command: Command bytes
+     */
+    private static void sendCommand(State state, byte[] command) {
+        try {
+            state.out.flush();
+            state.raw.write(command);
+            state.raw.flush();
+        } catch (IOException ignored) {
+            // the client is gone, the next read will end the session
+        }
+    }
+
+    /**
+     * Appends text to a frame, prefixing every line after the first.
+     *
+     * @param frame: Frame to append to
+     * @param text:  Text to append
+     */
+    private static void appendPrefixed(StringBuilder frame, String text) {
+        int start = 0;
+        int newline;
+        while ((newline = text.indexOf('\n', start)) >= 0) {
+            frame.append(text, start, newline + 1).append(Strings.ALSET_PREFIX);
+            start = newline + 1;
+        }
+        frame.append(text, start, text.length());
+    }
+
+    /**
+     * Returns the console of the current session
+     *
+     * @return state
+     */
+    private static State state() {
+        return Session.current().getState(State.class, State::new);
+    }
+
+    /**
+     * Prefixes every line of a text, as print() does.
+     *
+     * @param text: Text to prefix
+     * @return prefixed text
+     */
+    private static String prefix(String text) {
+        return Strings.ALSET_PREFIX + text.replace("\n", "\n" + Strings.ALSET_PREFIX);
     }
 
     /**
@@ -1,18 +1,25 @@
 package location;
 
+import session.Session;
+
 /**
  * Manages service locations within this program
  */
 public class ServiceManager {
     /**
-     * Service location currently being managed
+     * The service data held by each session
      */
-    private static ServiceLocation current = null;
+    private static final class State {
+        /**
+         * Service location currently being managed
+         */
+        private ServiceLocation current = null;
 
-    /**
-     * Email currently being serviced
-     */
-    private static String currentEmail = null;
+        /**
+         * Email currently being serviced
+         */
+        private String currentEmail = null;
+    }
 
     /**
      * Sets the service location to be managed
@@ -20,7 +27,7 @@ public class ServiceManager {
      * @param location: Service location
      */
     public static void setCurrent(ServiceLocation location) {
-        current = location;
+        state().current = location;
     }
 
     /**
@@ -29,7 +36,7 @@ public class ServiceManager {
      * @param email: Email
      */
     public static void setCurrentEmail(String email) {
-        currentEmail = email;
+        state().currentEmail = email;
     }
 
     /**
@@ -38,7 +45,7 @@ public class ServiceManager {
      * @return service location
      */
     public static ServiceLocation getCurrent() {
-        return current;
+        return state().current;
     }
 
     /**
@@ -47,23 +54,31 @@ public class ServiceManager {
      * @return email
      */
     public static String getCurrentEmail() {
-        return currentEmail;
+        return state().currentEmail;
     }
 
     /**
      * Logs the program out of the current service location.
      */
     public static void logout() {
-        current = null;
-        currentEmail = null;
+        State state = state();
+        state.current = null;
+        state.currentEmail = null;
     }
 
     /**
      * Logs the program out of the current email
      */
     public static void logoutEmail() {
-        currentEmail = null;
+        state().currentEmail = null;
     }
 
-
+    /**
+     * Returns the service data of the current session
+     *
+     * @return state
+     */
+    private static State state() {
+        return Session.current().getState(State.class, State::new);
+    }
 }
@@ -1,8 +1,24 @@
 package main;
 
+import batch.BatchRunner;
+import catalog.CatalogTransfer;
+import connection.ConnectionManager;
+import connection.DataSourceConfig;
 import constants.Key;
 import menu.MenuInitializer;
 import menu.MenuManager;
+import server.MetricsServer;
+import server.TerminalServer;
+import session.Session;
+
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 
 /**
  * Main class of the Alset CLI program. Initializes and starts the program.
@@ -11,16 +27,58 @@ public class Main {
 
     /**
      * The main method which starts all other processes in the program.
+     * <p>
+     * Started with "--server &lt;port&gt; [oracle id]", the program connects to the database once and
+     * serves sessions to telnet clients on the given port instead of running on its own console.
+     * The oracle id may be left out if credentials are configured (see DataSourceConfig).
+     * <p>
+     * Started with "--batch &lt;file&gt; [oracle id]", the program runs the product manager commands
+     * of the given file (see BatchRunner) instead of the menus, and exits with status 1 if any failed.
+     * <p>
+     * Started with "--catalog &lt;export|import&gt; &lt;file&gt; [oracle id]", the program copies the
+     * catalog of models, options and prices to or from the given file (see CatalogTransfer).
+     * <p>
+     * If the alset.metrics.port system property is set, query metrics are served over HTTP on that port.
      *
      * @param args: Arguments provided by the user upon calling the program to start
      */
     public static void main(String[] args) {
-        initialize();
-        startSequence();
+        startMetrics();
+        if (args.length > 0 && args[0].equals("--server")) {
+            serve(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            batch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--catalog")) {
+            transferCatalog(args);
+            return;
+        }
+
+        Session console = new Session(System.in, new FileOutputStream(FileDescriptor.out));
+        console.run(() -> {
+            initialize();
+            startSequence();
+        });
+    }
+
+    /**
+     * Starts serving query metrics, if a port is configured for them
+     */
+    private static void startMetrics() {
+        String port = System.getProperty("alset.metrics.port");
+        if (port == null) return;
+        try {
+            new MetricsServer(Integer.parseInt(port)).start();
+        } catch (NumberFormatException | IOException e) {
+            System.err.println("Could not serve metrics on port " + port + ": " + e.getMessage());
+        }
     }
 
     /**
-     * Initializes the program
+     * Initializes the current session
      */
     private static void initialize() {
         MenuInitializer.initializeMenus();
@@ -33,4 +91,135 @@ public class Main {
     private static void startSequence() {
         MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, "Welcome to Alset, please connect to the database.");
     }
+
+    /**
+     * Connects to the configured database and serves sessions over the network until the
+     * program is stopped.
+     *
+     * @param args: Arguments provided by the user upon calling the program to start
+     */
+    private static void serve(String[] args) {
+        DataSourceConfig config = ConnectionManager.getConfig();
+        if (args.length < 2 || (args.length < 3 && !config.hasCredentials())) {
+            System.err.println("Usage: --server <port> [oracle id]");
+            System.exit(1);
+        }
+        int port;
+        try {
+            port = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid port: " + args[1]);
+            System.exit(1);
+            return;
+        }
+
+        // connect the pool shared by every session
+        connect(config, args.length >= 3 ? args[2] : null);
+        ConnectionManager.releaseConnection();
+
+        try {
+            new TerminalServer(port).run();
+        } catch (IOException e) {
+            System.err.println("Could not serve on port " + port + ": " + e.getMessage());
+        } finally {
+            ConnectionManager.closeConnection();
+        }
+    }
+
+    /**
+     * Connects to the configured database and runs the commands of a batch file.
+     *
+     * @param args: Arguments provided by the user upon calling the program to start
+     */
+    private static void batch(String[] args) {
+        DataSourceConfig config = ConnectionManager.getConfig();
+        if (args.length < 2 || (args.length < 3 && !config.hasCredentials())) {
+            System.err.println("Usage: --batch <file> [oracle id]");
+            System.exit(1);
+        }
+
+        connect(config, args.length >= 3 ? args[2] : null);
+        boolean success;
+        try {
+            success = BatchRunner.run(Paths.get(args[1]));
+        } catch (IOException e) {
+            System.err.println("Could not read " + args[1] + ": " + e.getMessage());
+            success = false;
+        } finally {
+            ConnectionManager.closeConnection();
+        }
+        System.exit(success ? 0 : 1);
+    }
+
+    /**
+     * Connects to the configured database and exports its catalog to a file, or imports it from one.
+     *
+     * @param args: Arguments provided by the user upon calling the program to start
+     */
+    private static void transferCatalog(String[] args) {
+        DataSourceConfig config = ConnectionManager.getConfig();
+        boolean export = args.length > 1 && args[1].equals("export");
+        boolean valid = export || (args.length > 1 && args[1].equals("import"));
+        if (!valid || args.length < 3 || (args.length < 4 && !config.hasCredentials())) {
+            System.err.println("Usage: --catalog <export|import> <file> [oracle id]");
+            System.exit(1);
+        }
+
+        connect(config, args.length >= 4 ? args[3] : null);
+        boolean success = false;
+        long start = System.nanoTime();
+        try {
+            CatalogTransfer.Counts counts = export
+                    ? CatalogTransfer.exportCatalog(Paths.get(args[2]))
+                    : CatalogTransfer.importCatalog(Paths.get(args[2]));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println((export ? "Exported " : "Imported ") + counts + " in " + millis + " ms.");
+            success = true;
+        } catch (IOException | SQLException e) {
+            System.err.println("Catalog " + args[1] + " failed: " + e.getMessage());
+        } finally {
+            ConnectionManager.closeConnection();
+        }
+        System.exit(success ? 0 : 1);
+    }
+
+    /**
+     * Connects to a database, asking for the password of the given oracle id if there is one.
+     * Exits the program if the connection fails.
+     *
+     * @param config: Database to connect to
+     * @param id:     Oracle id to connect as, or null to use the configured credentials
+     */
+    private static void connect(DataSourceConfig config, String id) {
+        if (id != null) {
+            config = config.withCredentials(id, readPassword("Enter the Oracle password for " + id + ":"));
+        }
+        System.out.println("Connecting to " + config + "...");
+        if (ConnectionManager.createConnection(config) == null) {
+            System.err.println("Unable to connect to " + config + ".");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a password from the program's console, without echoing it if possible.
+     *
+     * @param message: Message to print
+     * @return password, or an empty string if none could be read
+     */
+    private static String readPassword(String message) {
+        Console console = System.console();
+        if (console != null) {
+            char[] pwd = console.readPassword("%s ", message);
+            return pwd == null ? "" : new String(pwd);
+        }
+        System.out.print(message + " ");
+        System.out.flush();
+        try {
+            String line = new BufferedReader(new InputStreamReader(System.in)).readLine();
+            return line == null ? "" : line;
+        } catch (IOException e) {
+            return "";
+        }
+    }
 }
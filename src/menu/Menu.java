@@ -1,12 +1,20 @@
 package menu;
 
+import constants.Key;
+
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * A class which is used for creating command-line interface menus.
  */
 class Menu {
+    /**
+     * Number of options room is made for when a menu with no room left first grows
+     */
+    private static final int MIN_CAPACITY = 8;
+
     /**
      * The title of the menu. When the menu gets displayed, the title
      * is displayed as the first line in the menu.
@@ -14,13 +22,34 @@ class Menu {
     String title;
 
     /**
-     * An array of selectable options in the menu. Each option's description
-     * is displayed on its own line in the menu for the user to select from.
+     * An array of selectable options in the menu, of which the first size are in use. Each option's
+     * description is displayed on its own line in the menu for the user to select from.
+     * <p>
+     * The array has room to spare, and doubles in length when it runs out, so that adding options
+     * one at a time, or rebuilding the menu on every reload, does not copy the array every time.
      */
     MenuOption[] options;
 
+    /**
+     * Number of options in the menu
+     */
+    int size;
+
     Runnable reloadFunction;
 
+    /**
+     * Function which starts loading the menu's data in the background (see Prefetcher),
+     * so that reloading the menu once it is shown does not wait on the database.
+     */
+    Runnable prefetchFunction = () -> {
+    };
+
+    /**
+     * Keys of the menus likely to be shown after this one. Their data is prefetched
+     * while this menu is being displayed.
+     */
+    Key[] next = new Key[0];
+
     /**
      * Constructs a new menu with parameters title and options.
      *
@@ -30,6 +59,7 @@ class Menu {
     Menu(String title, MenuOption... options) {
         this.title = title;
         this.options = options;
+        this.size = options.length;
         this.reloadFunction = () -> {
         };
     }
@@ -44,6 +74,7 @@ class Menu {
     Menu(String title, Runnable reloadFunction, MenuOption... options) {
         this.title = title;
         this.options = options;
+        this.size = options.length;
         this.reloadFunction = reloadFunction;
     }
 
@@ -53,9 +84,42 @@ class Menu {
      * @param option: New menu option
      */
     void addOption(MenuOption option) {
-        MenuOption[] temp = Arrays.copyOf(options, options.length + 1);
-        temp[options.length] = option;
-        options = temp;
+        if (size == options.length) options = Arrays.copyOf(options, Math.max(MIN_CAPACITY, size * 2));
+        options[size++] = option;
+    }
+
+    /**
+     * Replaces every option from the given index on with new options, written into the existing
+     * array. The array only grows when the new options do not fit, and it shrinks once most of it
+     * goes unused.
+     *
+     * @param from:       Index of first option to replace, options before it are kept
+     * @param newOptions: New options
+     */
+    void setOptions(int from, List<MenuOption> newOptions) {
+        Objects.checkIndex(from, size + 1);
+        int newSize = from + newOptions.size();
+        if (newSize > options.length) {
+            options = Arrays.copyOf(options, Math.max(newSize, options.length * 2));
+        } else if (newSize < options.length / 4 && options.length > MIN_CAPACITY) {
+            options = Arrays.copyOf(options, Math.max(MIN_CAPACITY, newSize * 2));
+        }
+
+        // overwrite the options, then clear those no longer used
+        for (int i = 0; i < newOptions.size(); i++) options[from + i] = newOptions.get(i);
+        if (newSize < size) Arrays.fill(options, newSize, Math.min(size, options.length), null);
+        size = newSize;
+    }
+
+    /**
+     * Returns the option at the given index
+     *
+     * @param index: Index of option
+     * @return option
+     */
+    MenuOption getOption(int index) {
+        Objects.checkIndex(index, size);
+        return options[index];
     }
 
     /**
@@ -81,6 +145,7 @@ class Menu {
      * @param option: New option
      */
     void setOption(int index, MenuOption option) {
+        Objects.checkIndex(index, size);
         options[index] = option;
     }
 
@@ -90,14 +155,9 @@ class Menu {
      * @param index: Index to remove
      */
     void removeOption(int index) {
-        MenuOption[] temp = new MenuOption[options.length - 1];
-        int i = 0;
-        for (int j = 0; j < options.length; j++) {
-            if (j == index) continue;
-            temp[i] = options[j];
-            i++;
-        }
-        options = temp;
+        Objects.checkIndex(index, size);
+        System.arraycopy(options, index + 1, options, index, size - index - 1);
+        options[--size] = null;
     }
 
     /**
@@ -106,14 +166,13 @@ class Menu {
      * @param option: MenuOption to remove
      */
     void removeOption(MenuOption option) {
-        MenuOption[] temp = new MenuOption[options.length - 1];
         int i = 0;
-        for (MenuOption menuOption : options) {
-            if (menuOption.equals(option)) continue;
-            temp[i] = menuOption;
-            i++;
+        for (int j = 0; j < size; j++) {
+            if (options[j].equals(option)) continue;
+            options[i++] = options[j];
         }
-        options = temp;
+        Arrays.fill(options, i, size, null);
+        size = i;
     }
 
     /**
@@ -122,7 +181,7 @@ class Menu {
      * @return size of menu
      */
     int size() {
-        return options.length;
+        return size;
     }
 
     /**
@@ -132,6 +191,13 @@ class Menu {
         reloadFunction.run();
     }
 
+    /**
+     * Starts loading the menu's data in the background
+     */
+    void prefetch() {
+        prefetchFunction.run();
+    }
+
     /**
      * Returns a formatted string containing the menu title and a list of its options. The formatted
      * string is designed to be printed to the console so that the user can read and select from the
@@ -142,9 +208,8 @@ class Menu {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("\n").append(title);
-        int count = 0;
-        for (MenuOption option : options) {
-            sb.append("\n\t").append("[").append(count++).append("]").append("\t").append(option.getDescription());
+        for (int i = 0; i < size; i++) {
+            sb.append("\n\t").append("[").append(i).append("]").append("\t").append(options[i].getDescription());
         }
         return sb.append("\n").toString();
     }
@@ -161,7 +226,7 @@ class Menu {
         if (o == null || getClass() != o.getClass()) return false;
         Menu menu = (Menu) o;
         return Objects.equals(title, menu.title) &&
-                Arrays.equals(options, menu.options);
+                Arrays.equals(options, 0, size, menu.options, 0, menu.size);
     }
 
     /**
@@ -172,7 +237,7 @@ class Menu {
     @Override
     public int hashCode() {
         int result = Objects.hash(title);
-        result = 31 * result + Arrays.hashCode(options);
+        for (int i = 0; i < size; i++) result = 31 * result + Objects.hashCode(options[i]);
         return result;
     }
 }
@@ -16,6 +16,7 @@ import vehicle.Vehicle;
 import vehicle.VehicleSelections;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -24,16 +25,11 @@ import java.util.stream.Collectors;
 public class MenuInitializer {
 
     /**
-     * Whether or not the menus have been initialized
-     */
-    private static boolean initialized = false;
-
-    /**
-     * Initializes all the menus by calling the initializers for all the
-     * individual menus.
+     * Initializes all the menus of the current session by calling the
+     * initializers for all the individual menus.
      */
     public static void initializeMenus() {
-        if (!initialized) {
+        if (!MenuManager.isInitialized()) {
             initializeEdgar1Menu();
             initializeAlsetLoginMenu();
             initializeMainMenu();
@@ -66,10 +62,67 @@ public class MenuInitializer {
             initializeProductManagerMenu();
             initializeSelectAllYearsMenu();
             initializeSelectAllModelsMenu();
-            initialized = true;
+            initializePrefetching();
+            MenuManager.setInitialized();
         }
     }
 
+    /**
+     * Sets up prefetching: which data each menu can load in the background, and which
+     * menus usually follow each menu, so that their data is loaded while it is displayed.
+     */
+    private static void initializePrefetching() {
+        // data of each menu
+        MenuManager.setPrefetchFunction(Key.BROWSE_LOCATIONS_MENU,
+                () -> Prefetcher.prefetch(Key.BROWSE_LOCATIONS_MENU, null, DBManager::getServiceLocations));
+        MenuManager.setPrefetchFunction(Key.SELECT_MODEL_MENU,
+                () -> Prefetcher.prefetch(Key.SELECT_MODEL_MENU, null, DBManager::getBuyableModels));
+        MenuManager.setPrefetchFunction(Key.SELECT_YEAR_MENU, MenuInitializer::prefetchSelectYearMenu);
+        MenuManager.setPrefetchFunction(Key.SELECT_OPTIONS_MENU, MenuInitializer::prefetchSelectOptionsMenu);
+        MenuManager.setPrefetchFunction(Key.SELECT_LOCATION_MENU, MenuInitializer::prefetchSelectLocationMenu);
+        MenuManager.setPrefetchFunction(Key.COMPLETE_ORDER_MENU, MenuInitializer::prefetchCompleteOrderMenu);
+        MenuManager.setPrefetchFunction(Key.SELECT_CARD_MENU, MenuInitializer::prefetchSelectCardMenu);
+        MenuManager.setPrefetchFunction(Key.VIEW_GARAGE_MENU,
+                () -> prefetchGarage(Key.VIEW_GARAGE_MENU, DBManager::getGarageData));
+        MenuManager.setPrefetchFunction(Key.REMOVE_GARAGE_VEHICLE_MENU,
+                () -> prefetchGarage(Key.REMOVE_GARAGE_VEHICLE_MENU, DBManager::getFinishedVehicleGarageData));
+        MenuManager.setPrefetchFunction(Key.FINISH_GARAGE_VEHICLE_MENU,
+                () -> prefetchGarage(Key.FINISH_GARAGE_VEHICLE_MENU, DBManager::getUnfinishedVehicleGarageData));
+        MenuManager.setPrefetchFunction(Key.VIEW_SHOWROOM_MENU,
+                () -> prefetchShowroom(Key.VIEW_SHOWROOM_MENU, DBManager::getShowroomVehicles));
+        MenuManager.setPrefetchFunction(Key.ADD_SHOWROOM_VEHICLE_MENU,
+                () -> prefetchShowroom(Key.ADD_SHOWROOM_VEHICLE_MENU, DBManager::getOrderedVehicles));
+        MenuManager.setPrefetchFunction(Key.RETIRE_SHOWROOM_VEHICLE_MENU,
+                () -> prefetchShowroom(Key.RETIRE_SHOWROOM_VEHICLE_MENU, DBManager::getManufacturedShowroomVehicles));
+
+        // the listing menus all show the same listings, which are loaded once for all of them
+        MenuManager.setPrefetchFunction(Key.VIEW_LISTINGS_MENU, MenuInitializer::prefetchListings);
+        MenuManager.setPrefetchFunction(Key.UPDATE_LISTINGS_MENU, MenuInitializer::prefetchListings);
+        MenuManager.setPrefetchFunction(Key.SELL_LISTING_MENU, MenuInitializer::prefetchListings);
+        MenuManager.setPrefetchFunction(Key.SELECT_ALL_MODELS_MENU,
+                () -> Prefetcher.prefetch(Key.SELECT_ALL_MODELS_MENU, null, DBManager::getAllModels));
+        MenuManager.setPrefetchFunction(Key.SELECT_ALL_YEARS_MENU, MenuInitializer::prefetchSelectAllYearsMenu);
+        MenuManager.setPrefetchFunction(Key.SELECT_ALL_OPTIONS_MENU,
+                () -> Prefetcher.prefetch(Key.SELECT_ALL_OPTIONS_MENU, null, DBManager::getAllOptions));
+
+        // menus usually shown next
+        MenuManager.setNextMenus(Key.ALSET_LOGIN_MENU, Key.BROWSE_LOCATIONS_MENU);
+        MenuManager.setNextMenus(Key.CUSTOMER_MENU, Key.SELECT_MODEL_MENU, Key.BROWSE_LOCATIONS_MENU);
+        MenuManager.setNextMenus(Key.SELECT_MODEL_MENU, Key.SELECT_YEAR_MENU);
+        MenuManager.setNextMenus(Key.SELECT_YEAR_MENU, Key.SELECT_OPTIONS_MENU);
+        MenuManager.setNextMenus(Key.SELECT_OPTIONS_MENU, Key.SELECT_LOCATION_MENU);
+        MenuManager.setNextMenus(Key.SELECT_LOCATION_MENU, Key.COMPLETE_ORDER_MENU);
+        MenuManager.setNextMenus(Key.COMPLETE_ORDER_MENU, Key.SELECT_CARD_MENU);
+        MenuManager.setNextMenus(Key.MANAGE_GARAGE_MENU,
+                Key.VIEW_GARAGE_MENU, Key.FINISH_GARAGE_VEHICLE_MENU, Key.REMOVE_GARAGE_VEHICLE_MENU);
+        MenuManager.setNextMenus(Key.MANAGE_SHOWROOM_MENU,
+                Key.VIEW_SHOWROOM_MENU, Key.ADD_SHOWROOM_VEHICLE_MENU, Key.RETIRE_SHOWROOM_VEHICLE_MENU);
+        MenuManager.setNextMenus(Key.MANAGE_LISTINGS_MENU,
+                Key.VIEW_LISTINGS_MENU, Key.UPDATE_LISTINGS_MENU, Key.SELL_LISTING_MENU);
+        MenuManager.setNextMenus(Key.PRODUCT_MANAGER_MENU, Key.SELECT_ALL_MODELS_MENU, Key.SELECT_ALL_OPTIONS_MENU);
+        MenuManager.setNextMenus(Key.SELECT_ALL_MODELS_MENU, Key.SELECT_ALL_YEARS_MENU);
+    }
+
     /**
      * Initializes the start menu
      */
@@ -99,6 +152,7 @@ public class MenuInitializer {
                 new MenuOption("Set Option Price", Sequences::setOptionPrice),
                 new MenuOption("Add Model Option", Sequences::addModelOptionSequence),
                 new MenuOption("Recall a Product", Sequences::recallSequence),
+                new MenuOption("View Recall Progress", Sequences::recallProgressSequence),
                 new MenuOption("Log Out", () -> MenuManager.showMenu(Key.ALSET_LOGIN_MENU))
         );
     }
@@ -146,15 +200,14 @@ public class MenuInitializer {
      * Reloads the select model menu
      */
     private static void reloadSelectModelMenu() {
-        int size = MenuManager.getSize(Key.SELECT_MODEL_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_MODEL_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<String> buyable = DBManager.getBuyableModels();
         for (String s : buyable) {
-            MenuManager.addOption(
-                    Key.SELECT_MODEL_MENU,
+            menuOptions.add(
                     new MenuOption("Model " + s, () -> VehicleSelections.setModel(s))
             );
         }
+        MenuManager.setOptions(Key.SELECT_MODEL_MENU, 0, menuOptions);
     }
 
     /**
@@ -172,15 +225,14 @@ public class MenuInitializer {
      * Reloads the select model menu
      */
     private static void reloadSelectAllModelsMenu() {
-        int size = MenuManager.getSize(Key.SELECT_ALL_MODELS_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_ALL_MODELS_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<String> models = DBManager.getAllModels().stream().map(Model::getName).collect(Collectors.toSet());
         for (String m : models) {
-            MenuManager.addOption(
-                    Key.SELECT_ALL_MODELS_MENU,
+            menuOptions.add(
                     new MenuOption("Model " + m, () -> VehicleSelections.setModel(m))
             );
         }
+        MenuManager.setOptions(Key.SELECT_ALL_MODELS_MENU, 0, menuOptions);
     }
 
     /**
@@ -198,8 +250,7 @@ public class MenuInitializer {
      * Reloads the select unrepairable model menu
      */
     private static void reloadSelectUnrepairableModelMenu() {
-        int size = MenuManager.getSize(Key.SELECT_UNREPAIRABLE_MODEL_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_UNREPAIRABLE_MODEL_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<String> unrepairable =
                 DBManager
                         .getUnrepairableModels(ServiceManager.getCurrent())
@@ -207,11 +258,11 @@ public class MenuInitializer {
                         .map(Model::getName)
                         .collect(Collectors.toSet());
         for (String s : unrepairable) {
-            MenuManager.addOption(
-                    Key.SELECT_UNREPAIRABLE_MODEL_MENU,
+            menuOptions.add(
                     new MenuOption("Model " + s, () -> VehicleSelections.setModel(s))
             );
         }
+        MenuManager.setOptions(Key.SELECT_UNREPAIRABLE_MODEL_MENU, 0, menuOptions);
     }
 
     /**
@@ -229,8 +280,7 @@ public class MenuInitializer {
      * Reloads the select repairable model menu
      */
     private static void reloadSelectRepairableModelMenu() {
-        int size = MenuManager.getSize(Key.SELECT_REPAIRABLE_MODEL_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_REPAIRABLE_MODEL_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<String> repairable =
                 DBManager
                         .getRepairableModels(ServiceManager.getCurrent())
@@ -238,11 +288,11 @@ public class MenuInitializer {
                         .map(Model::getName)
                         .collect(Collectors.toSet());
         for (String s : repairable) {
-            MenuManager.addOption(
-                    Key.SELECT_REPAIRABLE_MODEL_MENU,
+            menuOptions.add(
                     new MenuOption("Model " + s, () -> VehicleSelections.setModel(s))
             );
         }
+        MenuManager.setOptions(Key.SELECT_REPAIRABLE_MODEL_MENU, 0, menuOptions);
     }
 
     /**
@@ -260,8 +310,7 @@ public class MenuInitializer {
      * Initializes the select repairable year menu
      */
     private static void reloadSelectRepairableYearMenu() {
-        int size = MenuManager.getSize(Key.SELECT_REPAIRABLE_YEAR_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_REPAIRABLE_YEAR_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
 
         String name = VehicleSelections.getModelName();
         Set<Integer> repairable =
@@ -272,11 +321,11 @@ public class MenuInitializer {
                         .map(Model::getYear)
                         .collect(Collectors.toSet());
         for (Integer i : repairable) {
-            MenuManager.addOption(
-                    Key.SELECT_REPAIRABLE_YEAR_MENU,
+            menuOptions.add(
                     new MenuOption(i.toString(), () -> VehicleSelections.setYear(i))
             );
         }
+        MenuManager.setOptions(Key.SELECT_REPAIRABLE_YEAR_MENU, 0, menuOptions);
     }
 
     /**
@@ -294,8 +343,7 @@ public class MenuInitializer {
      * Reloads the select unrepairable year menu
      */
     private static void reloadSelectUnrepairableYearMenu() {
-        int size = MenuManager.getSize(Key.SELECT_UNREPAIRABLE_YEAR_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_UNREPAIRABLE_YEAR_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         String name = VehicleSelections.getModelName();
         Set<Integer> unrepairable =
                 DBManager
@@ -305,11 +353,11 @@ public class MenuInitializer {
                         .map(Model::getYear)
                         .collect(Collectors.toSet());
         for (Integer i : unrepairable) {
-            MenuManager.addOption(
-                    Key.SELECT_UNREPAIRABLE_YEAR_MENU,
+            menuOptions.add(
                     new MenuOption(i.toString(), () -> VehicleSelections.setYear(i))
             );
         }
+        MenuManager.setOptions(Key.SELECT_UNREPAIRABLE_YEAR_MENU, 0, menuOptions);
     }
 
     /**
@@ -327,8 +375,7 @@ public class MenuInitializer {
      * Reloads the select location menu
      */
     private static void reloadSelectLocationMenu() {
-        int size = MenuManager.getSize(Key.SELECT_LOCATION_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_LOCATION_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         String name = VehicleSelections.getModelName();
         int year = VehicleSelections.getYear();
         Vehicle v = new Vehicle("temp", year, name, false, null);
@@ -336,11 +383,11 @@ public class MenuInitializer {
         if (locations == null) locations = new HashSet<>();
         List<ServiceLocation> sorted = locations.stream().sorted(Comparator.comparing(ServiceLocation::getName)).collect(Collectors.toList());
         for (ServiceLocation s : sorted) {
-            MenuManager.addOption(
-                    Key.SELECT_LOCATION_MENU,
+            menuOptions.add(
                     new MenuOption(s.getName(), () -> VehicleSelections.setLocation(s))
             );
         }
+        MenuManager.setOptions(Key.SELECT_LOCATION_MENU, 0, menuOptions);
     }
 
     /**
@@ -383,41 +430,39 @@ public class MenuInitializer {
      * Reloads the select options menu
      */
     private static void reloadSelectAllOptionsMenu() {
-        int size = MenuManager.getSize(Key.SELECT_ALL_OPTIONS_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_ALL_OPTIONS_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<String> options = DBManager.getAllOptions();
         if (options == null) {
             MenuManager.showMenu(Key.PRODUCT_MANAGER_MENU, "Failed to load data, please try again.");
             return;
         }
         for (String option : options) {
-            MenuManager.addOption(
-                    Key.SELECT_ALL_OPTIONS_MENU,
+            menuOptions.add(
                     new MenuOption(option, () -> VehicleSelections.addCustomOption(option))
             );
         }
+        MenuManager.setOptions(Key.SELECT_ALL_OPTIONS_MENU, 0, menuOptions);
     }
 
     /**
      * Reloads the select options menu
      */
     private static void reloadSelectOptionsMenu() {
-        int size = MenuManager.getSize(Key.SELECT_OPTIONS_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.SELECT_OPTIONS_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         String name = VehicleSelections.getModelName();
         int year = VehicleSelections.getYear();
         Model model = new Model(year, name);
         Set<String> buyable = DBManager.getBuyableOptions(model);
         buyable.removeAll(VehicleSelections.getOptions());
         for (String s : buyable) {
-            MenuManager.addOption(
-                    Key.SELECT_OPTIONS_MENU,
+            menuOptions.add(
                     new MenuOption(s, () -> {
                         VehicleSelections.addCustomOption(s);
                         MenuManager.showMenuOnce(Key.SELECT_OPTIONS_MENU, s + " has been added.");
                     })
             );
         }
+        MenuManager.setOptions(Key.SELECT_OPTIONS_MENU, 1, menuOptions);
     }
 
     /**
@@ -435,15 +480,14 @@ public class MenuInitializer {
      * Reloads the Select Year Menu
      */
     private static void reloadSelectYearMenu() {
-        int size = MenuManager.getSize(Key.SELECT_YEAR_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_YEAR_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<Integer> buyable = DBManager.getBuyableYears(VehicleSelections.getModelName());
         for (int i : buyable) {
-            MenuManager.addOption(
-                    Key.SELECT_YEAR_MENU,
+            menuOptions.add(
                     new MenuOption(String.valueOf(i), () -> VehicleSelections.setYear(i))
             );
         }
+        MenuManager.setOptions(Key.SELECT_YEAR_MENU, 0, menuOptions);
     }
 
     /**
@@ -461,15 +505,14 @@ public class MenuInitializer {
      * Reloads the Select Year Menu
      */
     private static void reloadSelectAllYearsMenu() {
-        int size = MenuManager.getSize(Key.SELECT_ALL_YEARS_MENU);
-        for (int i = size - 1; i >= 0; i--) MenuManager.removeOption(Key.SELECT_ALL_YEARS_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<Integer> years = DBManager.getAllYears(VehicleSelections.getModelName());
         for (int i : years) {
-            MenuManager.addOption(
-                    Key.SELECT_ALL_YEARS_MENU,
+            menuOptions.add(
                     new MenuOption(String.valueOf(i), () -> VehicleSelections.setYear(i))
             );
         }
+        MenuManager.setOptions(Key.SELECT_ALL_YEARS_MENU, 0, menuOptions);
     }
 
     /**
@@ -520,12 +563,12 @@ public class MenuInitializer {
      * Reloads the retire vehicle menu
      */
     private static void reloadRetireVehicleMenu() {
-        int size = MenuManager.getSize(Key.RETIRE_SHOWROOM_VEHICLE_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.RETIRE_SHOWROOM_VEHICLE_MENU, i);
-        Set<Vehicle> vehicles = DBManager.getManufacturedShowroomVehicles(ServiceManager.getCurrent());
+        List<MenuOption> menuOptions = new ArrayList<>();
+        ServiceLocation loc = ServiceManager.getCurrent();
+        Set<Vehicle> vehicles = Prefetcher.take(Key.RETIRE_SHOWROOM_VEHICLE_MENU, loc.getId(),
+                () -> DBManager.getManufacturedShowroomVehicles(loc));
         for (Vehicle v : vehicles) {
-            MenuManager.addOption(
-                    Key.RETIRE_SHOWROOM_VEHICLE_MENU,
+            menuOptions.add(
                     new MenuOption(v.getYear() + " " + v.getModelName() + " (SN: " + v.getSerialNum() + ")",
                             () -> {
                                 IOManager.clear();
@@ -546,6 +589,7 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.RETIRE_SHOWROOM_VEHICLE_MENU, 1, menuOptions);
     }
 
     /**
@@ -564,12 +608,11 @@ public class MenuInitializer {
      * Reloads the 'Add showroom Vehicle' menu
      */
     private static void reloadAddShowroomVehicleMenu() {
-        int size = MenuManager.getSize(Key.ADD_SHOWROOM_VEHICLE_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.ADD_SHOWROOM_VEHICLE_MENU, i);
-        Set<Vehicle> ordered = DBManager.getOrderedVehicles();
+        List<MenuOption> menuOptions = new ArrayList<>();
+        ServiceLocation loc = ServiceManager.getCurrent();
+        Set<Vehicle> ordered = Prefetcher.take(Key.ADD_SHOWROOM_VEHICLE_MENU, loc.getId(), () -> DBManager.getOrderedVehicles(loc));
         for (Vehicle v : ordered) {
-            MenuManager.addOption(
-                    Key.ADD_SHOWROOM_VEHICLE_MENU,
+            menuOptions.add(
                     new MenuOption(v.getYear() + " " + v.getModelName() + " (SN: " + v.getSerialNum() + ")",
                             () -> {
                                 boolean success = DBManager.addShowroomVehicle(v);
@@ -583,6 +626,7 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.ADD_SHOWROOM_VEHICLE_MENU, 1, menuOptions);
     }
 
     /**
@@ -600,20 +644,19 @@ public class MenuInitializer {
      * Reloads the 'Remove Garage Vehicle' Menu
      */
     private static void reloadRemoveGarageVehicleMenu() {
-        int size = MenuManager.getSize(Key.REMOVE_GARAGE_VEHICLE_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.REMOVE_GARAGE_VEHICLE_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         ServiceLocation loc = ServiceManager.getCurrent();
-        Set<GarageData> data = DBManager.getFinishedVehicleGarageData(loc);
-        if (data == null) return;
-        for (GarageData gd : data) {
-            String sn = gd.getSerialNum();
-            Vehicle v = DBManager.getVehicle(sn);
-            if (v == null) {
-                MenuManager.setNextMessage("Unable to load info.");
-                return;
-            }
-            MenuManager.addOption(//todo optimize
-                    Key.REMOVE_GARAGE_VEHICLE_MENU,
+        Map<GarageData, Vehicle> garage = Prefetcher.take(Key.REMOVE_GARAGE_VEHICLE_MENU, loc.getId(),
+                () -> loadGarageVehicles(DBManager.getFinishedVehicleGarageData(loc)));
+        if (garage == null) {
+            MenuManager.setNextMessage("Unable to load info.");
+            MenuManager.setOptions(Key.REMOVE_GARAGE_VEHICLE_MENU, 1, menuOptions);
+            return;
+        }
+        for (Map.Entry<GarageData, Vehicle> entry : garage.entrySet()) {
+            GarageData gd = entry.getKey();
+            Vehicle v = entry.getValue();
+            menuOptions.add(
                     new MenuOption(
                             v.getYear() + " " + v.getModelName() + " (SN: " + v.getSerialNum() + ")",
                             () -> {
@@ -726,6 +769,7 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.REMOVE_GARAGE_VEHICLE_MENU, 1, menuOptions);
     }
 
     /**
@@ -757,8 +801,7 @@ public class MenuInitializer {
      * Reloads the 'My Vehicles' Menu
      */
     private static void reloadMyVehiclesMenu() {
-        int size = MenuManager.getSize(Key.CUSTOMER_VEHICLES_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.CUSTOMER_VEHICLES_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         User current = UserManager.getCurrent();
 
         // Load in the user's vehicles to the vehicle manager menu.
@@ -768,8 +811,9 @@ public class MenuInitializer {
             String s = v.getYear() + " Model " + v.getModelName() + " (SN: " + num + ")";
 
             // Add menu option to access the vehicle's menu
-            MenuManager.addOption(Key.CUSTOMER_VEHICLES_MENU, new MenuOption(s, () -> Sequences.vehicleOverviewSequence(v)));
+            menuOptions.add(new MenuOption(s, () -> Sequences.vehicleOverviewSequence(v)));
         }
+        MenuManager.setOptions(Key.CUSTOMER_VEHICLES_MENU, 1, menuOptions);
     }
 
     /**
@@ -822,20 +866,20 @@ public class MenuInitializer {
      * Reloads the 'Sell Listing' Menu
      */
     private static void reloadSellListingMenu() {
-        int size = MenuManager.getSize(Key.SELL_LISTING_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.SELL_LISTING_MENU, i);
-        Map<Vehicle, Long> list = DBManager.getVehicleListings();
+        List<MenuOption> menuOptions = new ArrayList<>();
+        ServiceLocation loc = ServiceManager.getCurrent();
+        Map<Vehicle, Long> list = Prefetcher.take(Key.VIEW_LISTINGS_MENU, loc.getId(), () -> DBManager.getVehicleListings(loc));
 
         for (Vehicle v : list.keySet()) {
             String sn = v.getSerialNum();
-            MenuManager.addOption(
-                    Key.SELL_LISTING_MENU,
+            menuOptions.add(
                     new MenuOption(
                             v.getYear() + " " + v.getModelName() + " (SN: " + sn + ")",
                             () -> Sequences.sellListedVehicleSequence(v, list.get(v))
                     )
             );
         }
+        MenuManager.setOptions(Key.SELL_LISTING_MENU, 1, menuOptions);
     }
 
     /**
@@ -854,14 +898,13 @@ public class MenuInitializer {
      * Reloads the 'Update Listings' Menu
      */
     private static void reloadUpdateListingsMenu() {
-        int size = MenuManager.getSize(Key.UPDATE_LISTINGS_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.UPDATE_LISTINGS_MENU, i);
-        Map<Vehicle, Long> list = DBManager.getVehicleListings();
+        List<MenuOption> menuOptions = new ArrayList<>();
+        ServiceLocation loc = ServiceManager.getCurrent();
+        Map<Vehicle, Long> list = Prefetcher.take(Key.VIEW_LISTINGS_MENU, loc.getId(), () -> DBManager.getVehicleListings(loc));
 
         for (Vehicle v : list.keySet()) {
             String sn = v.getSerialNum();
-            MenuManager.addOption(
-                    Key.UPDATE_LISTINGS_MENU,
+            menuOptions.add(
                     new MenuOption(
                             v.getYear() + " " + v.getModelName() + " (SN: " + sn + ")",
                             () -> {
@@ -883,6 +926,7 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.UPDATE_LISTINGS_MENU, 1, menuOptions);
     }
 
     /**
@@ -901,15 +945,14 @@ public class MenuInitializer {
      * Reloads the 'View Listings' Menu
      */
     private static void reloadViewListingsMenu() {
-        int size = MenuManager.getSize(Key.VIEW_LISTINGS_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.VIEW_LISTINGS_MENU, i);
-        Map<Vehicle, Long> list = DBManager.getVehicleListings();
+        List<MenuOption> menuOptions = new ArrayList<>();
+        ServiceLocation loc = ServiceManager.getCurrent();
+        Map<Vehicle, Long> list = Prefetcher.take(Key.VIEW_LISTINGS_MENU, loc.getId(), () -> DBManager.getVehicleListings(loc));
 
 
         for (Vehicle v : list.keySet()) {
             String sn = v.getSerialNum();
-            MenuManager.addOption(
-                    Key.VIEW_LISTINGS_MENU,
+            menuOptions.add(
                     new MenuOption(
                             v.getYear() + " " + v.getModelName() + " (SN: " + sn + ")",
                             () -> {
@@ -940,6 +983,7 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.VIEW_LISTINGS_MENU, 1, menuOptions);
     }
 
     /**
@@ -958,21 +1002,21 @@ public class MenuInitializer {
      * Reloads the 'View Garage' Menu
      */
     private static void reloadViewGarageMenu() {
-        int size = MenuManager.getSize(Key.VIEW_GARAGE_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.VIEW_GARAGE_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         ServiceLocation loc = ServiceManager.getCurrent();
-        Set<GarageData> data = DBManager.getGarageData(loc);
-        if (data == null) return;
+        Map<GarageData, Vehicle> garage = Prefetcher.take(Key.VIEW_GARAGE_MENU, loc.getId(),
+                () -> loadGarageVehicles(DBManager.getGarageData(loc)));
+        if (garage == null) {
+            MenuManager.setNextMessage("Unable to load info.");
+            MenuManager.setOptions(Key.VIEW_GARAGE_MENU, 1, menuOptions);
+            return;
+        }
 
-        for (GarageData gd : data) {
+        for (Map.Entry<GarageData, Vehicle> entry : garage.entrySet()) {
+            GarageData gd = entry.getKey();
+            Vehicle v = entry.getValue();
             String sn = gd.getSerialNum();
-            Vehicle v = DBManager.getVehicle(sn);
-            if (v == null) {
-                MenuManager.setNextMessage("Unable to load info.");
-                return;
-            }
-            MenuManager.addOption(
-                    Key.VIEW_GARAGE_MENU,
+            menuOptions.add(
                     new MenuOption(
                             v.getYear() + " " + v.getModelName() + " (SN: " + sn + ")",
                             () -> {
@@ -1019,6 +1063,7 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.VIEW_GARAGE_MENU, 1, menuOptions);
     }
 
     /**
@@ -1037,15 +1082,13 @@ public class MenuInitializer {
      * Reloads the 'View Showroom' Menu
      */
     private static void reloadViewShowroomMenu() {
-        int size = MenuManager.getSize(Key.VIEW_SHOWROOM_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.VIEW_SHOWROOM_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         ServiceLocation loc = ServiceManager.getCurrent();
-        Set<Vehicle> vehicles = DBManager.getShowroomVehicles(loc);
+        Set<Vehicle> vehicles = Prefetcher.take(Key.VIEW_SHOWROOM_MENU, loc.getId(), () -> DBManager.getShowroomVehicles(loc));
 
         for (Vehicle v : vehicles) {
             String sn = v.getSerialNum();
-            MenuManager.addOption(
-                    Key.VIEW_SHOWROOM_MENU,
+            menuOptions.add(
                     new MenuOption(
                             v.getYear() + " " + v.getModelName() + " (SN: " + sn + ")",
                             () -> {
@@ -1078,6 +1121,7 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.VIEW_SHOWROOM_MENU, 1, menuOptions);
     }
 
     /**
@@ -1096,17 +1140,19 @@ public class MenuInitializer {
      * Reloads the 'Browse Locations' Menu
      */
     private static void reloadBrowseLocationsMenu() {
-        int size = MenuManager.getSize(Key.BROWSE_LOCATIONS_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.BROWSE_LOCATIONS_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         Set<ServiceLocation> locations = DBManager.getServiceLocations();
-        if (locations == null) return;
+        if (locations == null) {
+            MenuManager.setOptions(Key.BROWSE_LOCATIONS_MENU, 1, menuOptions);
+            return;
+        }
         List<ServiceLocation> sorted = locations.stream().sorted(Comparator.comparing(ServiceLocation::getName)).collect(Collectors.toList());
         for (ServiceLocation s : sorted) {
-            MenuManager.addOption(
-                    Key.BROWSE_LOCATIONS_MENU,
+            menuOptions.add(
                     new MenuOption(s.getName(), () -> Sequences.viewLocationOverview(s))
             );
         }
+        MenuManager.setOptions(Key.BROWSE_LOCATIONS_MENU, 1, menuOptions);
     }
 
     /**
@@ -1125,44 +1171,44 @@ public class MenuInitializer {
      * Reloads the 'Select Card' Menu
      */
     private static void reloadSelectCardMenu() {
-        int size = MenuManager.getSize(Key.SELECT_CARD_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.SELECT_CARD_MENU, i);
+        List<MenuOption> menuOptions = new ArrayList<>();
         String email = ServiceManager.getCurrentEmail();
-        Set<Card> cards = DBManager.getCards(email);
-        if (cards == null) return;
+        Set<Card> cards = Prefetcher.take(Key.SELECT_CARD_MENU, email, () -> DBManager.getCards(email));
+        if (cards == null) {
+            MenuManager.setOptions(Key.SELECT_CARD_MENU, 1, menuOptions);
+            return;
+        }
         for (Card card : cards) {
-            MenuManager.addOption(
-                    Key.SELECT_CARD_MENU,
+            menuOptions.add(
                     new MenuOption(
                             card.getNumCensored(),
                             () -> CardManager.setSelected(card)
                     )
             );
         }
+        MenuManager.setOptions(Key.SELECT_CARD_MENU, 1, menuOptions);
     }
 
     /**
      * Reloads the 'Finish Garage Vehicle' Menu
      */
     private static void reloadFinishGarageVehicleMenu() {
-        int size = MenuManager.getSize(Key.FINISH_GARAGE_VEHICLE_MENU);
-        for (int i = size - 1; i > 0; i--) MenuManager.removeOption(Key.SELECT_CARD_MENU, i);
-
-
+        List<MenuOption> menuOptions = new ArrayList<>();
         ServiceLocation loc = ServiceManager.getCurrent();
-        if (loc == null) return;
-
-        Set<GarageData> data = DBManager.getUnfinishedVehicleGarageData(loc);
-        if (data == null) return;
+        Map<GarageData, Vehicle> garage = loc == null ? null : Prefetcher.take(Key.FINISH_GARAGE_VEHICLE_MENU, loc.getId(),
+                () -> loadGarageVehicles(DBManager.getUnfinishedVehicleGarageData(loc)));
+        if (garage == null) {
+            MenuManager.setOptions(Key.FINISH_GARAGE_VEHICLE_MENU, 1, menuOptions);
+            return;
+        }
 
-        for (GarageData gd : data) {
+        for (Map.Entry<GarageData, Vehicle> entry : garage.entrySet()) {
+            GarageData gd = entry.getKey();
+            Vehicle v = entry.getValue();
             String sn = gd.getSerialNum();
-            Vehicle v = DBManager.getVehicle(sn);
-            if (v == null) return;
             boolean isManufactured = v.isManufactured();
             boolean isInspection = gd.getReason().equals("Inspection");
-            MenuManager.addOption(
-                    Key.FINISH_GARAGE_VEHICLE_MENU,
+            menuOptions.add(
                     new MenuOption(
                             v.getYear() + " " + v.getModelName() + " - " + gd.getReason() + " (SN: " + sn + ")",
                             () -> {
@@ -1218,5 +1264,138 @@ public class MenuInitializer {
                     )
             );
         }
+        MenuManager.setOptions(Key.FINISH_GARAGE_VEHICLE_MENU, 1, menuOptions);
+    }
+
+    /**
+     * Loads the vehicle of every entry of garage data
+     *
+     * @param data: Garage data, or null if it could not be loaded
+     * @return map of garage data to vehicles, or null if any of them could not be loaded
+     */
+    private static Map<GarageData, Vehicle> loadGarageVehicles(Set<GarageData> data) {
+        if (data == null) return null;
+
+        // load every vehicle at once
+        List<String> serialNums = new ArrayList<>(data.size());
+        for (GarageData gd : data) serialNums.add(gd.getSerialNum());
+        Map<String, Vehicle> vehicles = DBManager.getVehicles(serialNums);
+        if (vehicles == null) return null;
+
+        Map<GarageData, Vehicle> garage = new LinkedHashMap<>();
+        for (GarageData gd : data) {
+            Vehicle v = vehicles.get(gd.getSerialNum());
+            if (v == null) return null;
+            garage.put(gd, v);
+        }
+        return garage;
+    }
+
+    /**
+     * Prefetches the years of every buyable model, since the model is yet to be selected
+     */
+    private static void prefetchSelectYearMenu() {
+        Prefetcher.prefetch(Key.SELECT_YEAR_MENU, null, () -> {
+            Set<String> models = DBManager.getBuyableModels();
+            if (models == null) return null;
+            for (String model : models) DBManager.getBuyableYears(model);
+            return models;
+        });
+    }
+
+    /**
+     * Prefetches the options of every buyable year of the selected model, since the year is yet to be selected
+     */
+    private static void prefetchSelectOptionsMenu() {
+        String name = VehicleSelections.getModelName();
+        if (name == null) return;
+        Prefetcher.prefetch(Key.SELECT_OPTIONS_MENU, name, () -> {
+            Set<Integer> years = DBManager.getBuyableYears(name);
+            if (years == null) return null;
+            for (int year : years) DBManager.getBuyableOptions(new Model(year, name));
+            return years;
+        });
+    }
+
+    /**
+     * Prefetches the locations which can repair the selected model
+     */
+    private static void prefetchSelectLocationMenu() {
+        String name = VehicleSelections.getModelName();
+        Integer year = VehicleSelections.getYear();
+        if (name == null || year == null) return;
+        Vehicle v = new Vehicle("temp", year, name, false, null);
+        Prefetcher.prefetch(Key.SELECT_LOCATION_MENU, new Model(year, name), () -> DBManager.getRepairableLocations(v));
+    }
+
+    /**
+     * Prefetches the prices shown with the order: those of the selected model and options
+     */
+    private static void prefetchCompleteOrderMenu() {
+        String name = VehicleSelections.getModelName();
+        Integer year = VehicleSelections.getYear();
+        if (name == null || year == null) return;
+        Model model = new Model(year, name);
+        Set<String> options = VehicleSelections.getOptions();
+        Prefetcher.prefetch(Key.COMPLETE_ORDER_MENU, model, () -> {
+            Long cost = DBManager.getModelCost(model);
+            for (String option : options) DBManager.getOptionCost(option);
+            return cost;
+        });
+    }
+
+    /**
+     * Prefetches the cards of the customer who is logged in
+     */
+    private static void prefetchSelectCardMenu() {
+        User user = UserManager.getCurrent();
+        if (user == null) return;
+        String email = user.getEmail();
+        Prefetcher.prefetch(Key.SELECT_CARD_MENU, email, () -> DBManager.getCards(email));
+    }
+
+    /**
+     * Prefetches the years of every model
+     */
+    private static void prefetchSelectAllYearsMenu() {
+        Prefetcher.prefetch(Key.SELECT_ALL_YEARS_MENU, null, () -> {
+            Set<Model> models = DBManager.getAllModels();
+            if (models == null) return null;
+            for (String name : models.stream().map(Model::getName).collect(Collectors.toSet())) DBManager.getAllYears(name);
+            return models;
+        });
+    }
+
+    /**
+     * Prefetches the garage vehicles of the managed location shown by a garage menu
+     *
+     * @param key:    Key of garage menu
+     * @param loader: Loads the menu's garage data of a location
+     */
+    private static void prefetchGarage(Key key, Function<ServiceLocation, Set<GarageData>> loader) {
+        ServiceLocation loc = ServiceManager.getCurrent();
+        if (loc == null) return;
+        Prefetcher.prefetch(key, loc.getId(), () -> loadGarageVehicles(loader.apply(loc)));
+    }
+
+    /**
+     * Prefetches the showroom vehicles of the managed location shown by a showroom menu
+     *
+     * @param key:    Key of showroom menu
+     * @param loader: Loads the menu's vehicles of a location
+     */
+    private static void prefetchShowroom(Key key, Function<ServiceLocation, Set<Vehicle>> loader) {
+        ServiceLocation loc = ServiceManager.getCurrent();
+        if (loc == null) return;
+        Prefetcher.prefetch(key, loc.getId(), () -> loader.apply(loc));
+    }
+
+    /**
+     * Prefetches the listings of the managed location
+     */
+    private static void prefetchListings() {
+        ServiceLocation loc = ServiceManager.getCurrent();
+        if (loc == null) return;
+        Prefetcher.prefetch(Key.VIEW_LISTINGS_MENU, loc.getId(), () -> DBManager.getVehicleListings(loc));
     }
 }
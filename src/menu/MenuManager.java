@@ -2,36 +2,106 @@ package menu;
 
 import constants.Key;
 import io.IOManager;
+import session.Session;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.Stack;
 
 /**
  * Singleton-style class which manages all of the different menus
  * in the Alset program.
+ * <p>
+ * Menus are driven by a single loop which displays the current menu, reads the user's
+ * selection, and runs the selected option. Navigating to another menu from within an option
+ * (or a sequence it started) does not display the menu right away: the navigation is recorded,
+ * the rest of the option is abandoned, and the loop displays the new menu. Navigation therefore
+ * never adds stack frames, and the history of previous menus is bounded, so a session can run
+ * indefinitely in constant stack and heap.
+ * <p>
+ * The menus, their history and the menu loop belong to the session bound to the calling thread.
  */
 public class MenuManager {
 
     /**
-     * Maps a set of IDs to corresponding menus.
+     * Maximum number of menus kept in history. The oldest menus are forgotten first.
      */
-    private static final HashMap<Key, Menu> menus = new HashMap<>();
-
+    private static final int MAX_HISTORY = 32;
 
     /**
-     * Contains a history of all the menus the user has viewed. Every time the user
-     * views a new menu, the old menu is added to history.
+     * The menus and menu loop of each session. Menus are reloaded with session specific
+     * options, so every session has its own set.
      */
-    private static final Stack<Menu> history = new Stack<>();
+    private static final class State {
+        /**
+         * Maps a set of IDs to corresponding menus.
+         */
+        private final HashMap<Key, Menu> menus = new HashMap<>();
+
+        /**
+         * Contains a history of the menus the user has recently viewed, most recent first.
+         * Every time the user views a new menu, the old menu is added to history.
+         */
+        private final Deque<Menu> history = new ArrayDeque<>(MAX_HISTORY);
+
+        /**
+         * The menu currently being displayed to the user.
+         */
+        private Menu current = null;
+
+        /**
+         * The menu to display next, or null if the current menu stays displayed.
+         */
+        private Menu pending = null;
+
+        /**
+         * Whether the pending menu should be reloaded before being displayed.
+         */
+        private boolean reloadPending = false;
+
+        /**
+         * Whether the menu loop is running.
+         */
+        private boolean running = false;
+
+        /**
+         * Whether the menu loop has been asked to stop.
+         */
+        private boolean stopped = false;
+
+        /**
+         * Whether the menus have been initialized
+         */
+        private boolean initialized = false;
+
+        private String nextMessage = "";
+    }
 
     /**
-     * The menu currently being displayed to the user.
+     * Thrown by navigation methods to abandon the option being run and return to the menu loop.
+     * A single instance without a stack trace is reused, so navigating costs nothing.
      */
-    private static Menu current = null;
+    private static final class Navigation extends RuntimeException {
+        /**
+         * Version of the serialized form
+         */
+        private static final long serialVersionUID = 1L;
 
-    private static String nextMessage = "";
+        /**
+         * Constructs a new Navigation
+         */
+        private Navigation() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Shared navigation signal
+     */
+    private static final Navigation NAVIGATION = new Navigation();
 
     /**
      * Private constructor of MenuManager
@@ -48,6 +118,7 @@ public class MenuManager {
      * @throws IllegalArgumentException if a menu with the given ID already exists.
      */
     public static void createMenu(Key key, String title, MenuOption... options) throws IllegalArgumentException {
+        HashMap<Key, Menu> menus = state().menus;
         if (menus.containsKey(key)) {
             throw new IllegalArgumentException("A menu with key " + key + "already exists.");
         } else {
@@ -66,6 +137,7 @@ public class MenuManager {
      * @throws IllegalArgumentException if a menu with the given ID already exists.
      */
     public static void createMenu(Key key, Runnable reloadFunction, String title, MenuOption... options) throws IllegalArgumentException {
+        HashMap<Key, Menu> menus = state().menus;
         if (menus.containsKey(key)) {
             throw new IllegalArgumentException("A menu with key " + key + "already exists.");
         } else {
@@ -82,13 +154,28 @@ public class MenuManager {
      * @throws NoSuchElementException if no menus exist with the given ID
      */
     public static void addOption(Key key, MenuOption option) throws NoSuchElementException {
-        Menu menu = menus.get(key);
+        Menu menu = state().menus.get(key);
         if (menu == null) throw new NoSuchElementException("No menu exists with id " + key.toString());
         else {
             menu.addOption(option);
         }
     }
 
+    /**
+     * Replaces the options of a menu from the given index on with new options, changing
+     * the menu in place. Used by reload functions to rebuild a menu's options.
+     *
+     * @param key:     Key of menu
+     * @param from:    Index of first option to replace, options before it are kept
+     * @param options: New options
+     * @throws NoSuchElementException if no menus exist with the given ID
+     */
+    public static void setOptions(Key key, int from, List<MenuOption> options) throws NoSuchElementException {
+        Menu menu = state().menus.get(key);
+        if (menu == null) throw new NoSuchElementException("No menu exists with key " + key.toString());
+        menu.setOptions(from, options);
+    }
+
     /**
      * Removes a menu option from a menu
      *
@@ -97,7 +184,7 @@ public class MenuManager {
      * @throws NoSuchElementException if no menus exist with the given ID
      */
     public static void removeOption(Key key, int index) throws NoSuchElementException {
-        Menu menu = menus.get(key);
+        Menu menu = state().menus.get(key);
         if (menu == null) throw new NoSuchElementException("No menu exists with key " + key.toString());
         else {
             menu.removeOption(index);
@@ -112,7 +199,7 @@ public class MenuManager {
      * @throws NoSuchElementException if no menus exist with the given ID
      */
     public static void removeOption(Key key, MenuOption option) throws NoSuchElementException {
-        Menu menu = menus.get(key);
+        Menu menu = state().menus.get(key);
         if (menu == null) throw new NoSuchElementException("No menu exists with key " + key.toString());
         else {
             menu.removeOption(option);
@@ -121,16 +208,23 @@ public class MenuManager {
 
     /**
      * Shows the user the menu with the given ID, and prints a message.
+     * <p>
+     * If called while a menu option is running, the rest of the option is abandoned
+     * and the menu loop moves on to the new menu. Otherwise, the menu loop is started.
      *
      * @param key     Key of menu to show
      * @param message Message to print
      * @throws NoSuchElementException if no menu exists with the given ID
      */
     public static void showMenu(Key key, String message) throws NoSuchElementException {
-        Menu menu = menus.get(key);
+        Menu menu = state().menus.get(key);
         if (menu == null) throw new NoSuchElementException("No menu with key of " + key.toString() + " exists.");
-        history.push(current);
-        showMenu(menu, message);
+        State state = state();
+        if (state.current != null && state.current != menu) {
+            if (state.history.size() == MAX_HISTORY) state.history.removeLast();
+            state.history.push(state.current);
+        }
+        navigate(menu, true, message);
     }
 
     /**
@@ -144,16 +238,16 @@ public class MenuManager {
     }
 
     /**
-     * Shows the user the menu with the given ID once, and prints a message.
+     * Shows the user the menu with the given ID once, and prints a message. Returns once
+     * the user has selected an option and it has run, after which the previous menu is current again.
      *
      * @param key     Key of menu to show
      * @param message Message to print
      * @throws NoSuchElementException if no menu exists with the given ID
      */
     public static void showMenuOnce(Key key, String message) throws NoSuchElementException {
-        Menu menu = menus.get(key);
+        Menu menu = state().menus.get(key);
         if (menu == null) throw new NoSuchElementException("No menu with key of " + key.toString() + " exists.");
-        history.push(current);
         showMenuOnce(menu, message);
     }
 
@@ -169,21 +263,25 @@ public class MenuManager {
     }
 
     /**
-     * Pops the top menu in the history stack and
-     * displays it to the user.
+     * Removes the most recent menu from history, reloads it,
+     * and displays it to the user along with a message.
+     *
+     * @param message: Message to print
      */
     public static void showPrevious(String message) {
-        Menu previous = history.pop();
-        showMenu(previous, message);
+        State state = state();
+        Menu previous = state.history.isEmpty() ? state.current : state.history.pop();
+        navigate(previous, true, message);
     }
 
     /**
-     * Pops the top menu in the history stack and
+     * Removes the most recent menu from history and
      * displays it to the user.
      */
     public static void showPrevious() {
-        Menu previous = history.pop();
-        showMenu(previous);
+        State state = state();
+        Menu previous = state.history.isEmpty() ? state.current : state.history.pop();
+        navigate(previous, false, state.nextMessage);
     }
 
     /**
@@ -194,40 +292,108 @@ public class MenuManager {
      * @throws NoSuchElementException if no menus exist with the given ID
      */
     public static int getSize(Key key) throws NoSuchElementException {
-        Menu menu = menus.get(key);
+        Menu menu = state().menus.get(key);
         if (menu == null) throw new NoSuchElementException("No menu with key of " + key + " exists.");
         return menu.size();
     }
 
+    /**
+     * Sets the function which prefetches the data of a menu. It runs on the menu loop while
+     * one of the menus leading to this menu is displayed, so it may read the session's state,
+     * but must leave the loading itself to Prefetcher and must not navigate.
+     *
+     * @param key:              Key of menu
+     * @param prefetchFunction: Function starting to load the menu's data
+     * @throws NoSuchElementException if no menu exists with the given ID
+     */
+    public static void setPrefetchFunction(Key key, Runnable prefetchFunction) throws NoSuchElementException {
+        Menu menu = state().menus.get(key);
+        if (menu == null) throw new NoSuchElementException("No menu with key of " + key + " exists.");
+        menu.prefetchFunction = prefetchFunction;
+    }
+
+    /**
+     * Sets the menus likely to be shown after a menu. While the menu is displayed,
+     * the data of each of these menus is prefetched.
+     *
+     * @param key:  Key of menu
+     * @param next: Keys of the menus likely to be shown next
+     * @throws NoSuchElementException if no menu exists with the given ID
+     */
+    public static void setNextMenus(Key key, Key... next) throws NoSuchElementException {
+        Menu menu = state().menus.get(key);
+        if (menu == null) throw new NoSuchElementException("No menu with key of " + key + " exists.");
+        menu.next = next;
+    }
+
     public static void setTitle(Key key, String title) throws NoSuchElementException {
-        Menu menu = menus.get(key);
+        Menu menu = state().menus.get(key);
         if (menu == null) throw new NoSuchElementException("No menu with key of " + key + " exists.");
         menu.setTitle(title);
     }
 
     /**
-     * Displays the provided menu to the user.
+     * Makes a menu the next one to be displayed. Abandons the running option if the menu
+     * loop is running, and starts the menu loop otherwise.
      *
-     * @param menu: Menu to display to the user
+     * @param menu:    Menu to display
+     * @param reload:  Whether to reload the menu before displaying it
+     * @param message: Message to print
      */
-    private static void showMenu(Menu menu, String message) {
-        menu.reload();
-        current = menu;
-        nextMessage = message;
-        while (current == menu) {
-            IOManager.clear(nextMessage);
-            nextMessage = "";
-            IOManager.println(menu.toString());
-            int l = menu.options.length;
-            Integer input = IOManager.getIntInput("Select an option:", 0, l - 1);
-            if (input == null) {
-                MenuManager.setNextMessage("Input is invalid.");
-            } else {
-                menu.options[input].runAction();
+    private static void navigate(Menu menu, boolean reload, String message) {
+        State state = state();
+        state.pending = menu;
+        state.reloadPending = reload;
+        state.nextMessage = message;
+        if (state.running) throw NAVIGATION;
+        run(state);
+    }
+
+    /**
+     * Runs the menu loop, which displays the current menu and runs the options the user selects.
+     *
+     * @param state: Menus of the current session
+     */
+    private static void run(State state) {
+        state.running = true;
+        try {
+            while (!state.stopped) {
+                // switch to the pending menu
+                if (state.pending != null) {
+                    state.current = state.pending;
+                    state.pending = null;
+                    if (state.reloadPending) {
+                        state.reloadPending = false;
+                        try {
+                            state.current.reload();
+                        } catch (Navigation n) {
+                            continue;
+                        }
+                    }
+                }
+
+                // display the current menu & run the selected option
+                try {
+                    select(state.current);
+                } catch (Navigation ignored) {
+                }
             }
+        } finally {
+            state.running = false;
         }
     }
 
+    /**
+     * Stops the menu loop of the current session, abandoning the running option. The call which
+     * started the loop then returns, ending the session.
+     */
+    public static void stop() {
+        State state = state();
+        state.stopped = true;
+        state.pending = null;
+        if (state.running) throw NAVIGATION;
+    }
+
     /**
      * Displays the provided menu to user for only one round of option selection.
      *
@@ -235,43 +401,54 @@ public class MenuManager {
      * @param message: message to display
      */
     private static void showMenuOnce(Menu menu, String message) {
-        menu.reload();
-        current = menu;
-        nextMessage = message;
-
-        while (true) {
-            IOManager.clear(nextMessage);
-            nextMessage = "";
-            IOManager.println(menu.toString());
-            int l = menu.options.length;
-            Integer input = IOManager.getIntInput("Select an option:", 0, l - 1);
-            if (input == null) {
-                MenuManager.setNextMessage("Input is invalid.");
-            } else {
-                menu.options[input].runAction();
-                break;
-            }
+        State state = state();
+        Menu previous = state.current;
+        try {
+            state.current = menu;
+            menu.reload();
+            state.nextMessage = message;
+            boolean selected = false;
+            while (!selected) selected = select(menu);
+        } finally {
+            state.current = previous;
         }
     }
 
     /**
-     * Displays the provided menu to the user.
+     * Displays a menu, reads the user's selection, and runs the selected option.
      *
-     * @param menu: Menu to display to the user
+     * @param menu: Menu to display
+     * @return true if an option was run, false if the input was invalid
      */
-    private static void showMenu(Menu menu) {
-        current = menu;
-        while (current == menu) {
-            IOManager.clear(nextMessage);
-            nextMessage = "";
-            IOManager.println(menu.toString());
-            int l = menu.options.length;
-            Integer input = IOManager.getIntInput("Select an option:", 0, l - 1);
-            if (input == null) {
-                MenuManager.setNextMessage("Input is invalid.");
-            } else {
-                menu.options[input].runAction();
-            }
+    private static boolean select(Menu menu) {
+        State state = state();
+        IOManager.clear(state.nextMessage);
+        state.nextMessage = "";
+        IOManager.println(menu.toString());
+        prefetchNext(state, menu);
+        int l = menu.size();
+        Integer input = IOManager.getIntInput("Select an option:", 0, l - 1);
+        if (input == null) {
+            MenuManager.setNextMessage("Input is invalid.");
+            return false;
+        }
+        menu.getOption(input).runAction();
+        return true;
+    }
+
+    /**
+     * Prefetches the data of the menus likely to be shown after a menu, while the user reads it.
+     * Prefetch functions only schedule loaders: a loader which fails, or which Prefetcher has no
+     * room to schedule, only means that the menu's data is loaded once it is shown. Anything else
+     * thrown here, such as a navigation or a missing session, is a real error and propagates.
+     *
+     * @param state: Menus of the current session
+     * @param menu:  Menu being displayed
+     */
+    private static void prefetchNext(State state, Menu menu) {
+        for (Key key : menu.next) {
+            Menu next = state.menus.get(key);
+            if (next != null) next.prefetch();
         }
     }
 
@@ -281,7 +458,7 @@ public class MenuManager {
      * @param message: Message to display
      */
     public static void setNextMessage(String message) {
-        nextMessage = message;
+        state().nextMessage = message;
     }
 
     /**
@@ -290,15 +467,41 @@ public class MenuManager {
      * @return key
      */
     static Key getCurrentKey() {
-        if (current == null) return null;
+        State state = state();
+        if (state.current == null) return null;
 
-        Set<Key> keys = menus.keySet();
+        Set<Key> keys = state.menus.keySet();
         for (Key key : keys) {
-            if (menus.get(key).equals(current)) {
+            if (state.menus.get(key).equals(state.current)) {
                 return key;
             }
         }
 
         return null;
     }
+
+    /**
+     * Returns true if the menus of the current session have been initialized
+     *
+     * @return true if initialized, otherwise false
+     */
+    static boolean isInitialized() {
+        return state().initialized;
+    }
+
+    /**
+     * Marks the menus of the current session as initialized
+     */
+    static void setInitialized() {
+        state().initialized = true;
+    }
+
+    /**
+     * Returns the menus of the current session
+     *
+     * @return state
+     */
+    private static State state() {
+        return Session.current().getState(State.class, State::new);
+    }
 }
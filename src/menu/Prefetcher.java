@@ -0,0 +1,220 @@
+package menu;
+
+import connection.ConnectionManager;
+import connection.QueryLog;
+import constants.Key;
+import session.Session;
+
+import java.util.EnumMap;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads the data of the menus a user is likely to open next, in the background.
+ * <p>
+ * While a menu is displayed, MenuManager runs the prefetch function of each menu which usually
+ * follows it (see Menu#next). A prefetch function reads whatever it needs from the session (the
+ * logged in user, the selected model, ...) and hands a loader to prefetch(Key, Object, Supplier),
+ * which runs it on a small pool of daemon threads. When the menu is then reloaded, its reload
+ * function calls take(Key, Object, Supplier) with the same key and argument, and gets the
+ * prefetched result instead of waiting on the database.
+ * <p>
+ * Loaders which only warm DBManager's own caches (such as the catalog) need not be taken: the
+ * reload function finds the data already cached.
+ * <p>
+ * A prefetched result is only used if no transaction was committed since it started loading
+ * and if it is no older than MAX_AGE, so prefetching never shows data older than what the reload
+ * function would have loaded itself after the last change. A result which failed to load, or is
+ * still waiting for a thread, is loaded by the reload function instead.
+ */
+class Prefetcher {
+
+    /**
+     * Number of threads running loaders, shared by every session. Each thread holds
+     * one pooled connection while it runs a loader.
+     */
+    private static final int THREADS = 2;
+
+    /**
+     * Maximum number of loaders waiting for a thread. Prefetches beyond it are skipped.
+     */
+    private static final int QUEUE_CAPACITY = 64;
+
+    /**
+     * Time (in milliseconds) after which a prefetched result is no longer used
+     */
+    private static final long MAX_AGE = 60_000L;
+
+    /**
+     * Maximum time (in milliseconds) to wait for a loader which is already running
+     */
+    private static final long MAX_WAIT = 5_000L;
+
+    /**
+     * Used for numbering threads
+     */
+    private static final AtomicInteger threads = new AtomicInteger();
+
+    /**
+     * Runs loaders
+     */
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            THREADS, THREADS, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            task -> {
+                Thread thread = new Thread(task, "prefetch-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    /**
+     * A result being loaded in the background.
+     */
+    private static final class Prefetch {
+        /**
+         * Argument the result was loaded for
+         */
+        private final Object arg;
+
+        /**
+         * Number of commits when the result started loading (see ConnectionManager#getCommitCount())
+         */
+        private final long commits = ConnectionManager.getCommitCount();
+
+        /**
+         * Time (in milliseconds) the prefetch was scheduled
+         */
+        private final long created = System.currentTimeMillis();
+
+        /**
+         * Loads the result, which is null if it could not be loaded
+         */
+        private final FutureTask<Object> task;
+
+        /**
+         * Whether a thread has started running the loader
+         */
+        private volatile boolean started = false;
+
+        /**
+         * Constructs a new prefetch
+         *
+         * @param arg:    Argument the result is loaded for
+         * @param loader: Loads the result
+         */
+        private Prefetch(Object arg, Supplier<?> loader) {
+            this.arg = arg;
+            this.task = new FutureTask<>(() -> {
+                started = true;
+                long errors = QueryLog.getThreadErrors();
+                try {
+                    Object value = loader.get();
+                    return QueryLog.getThreadErrors() == errors ? value : null;
+                } finally {
+                    ConnectionManager.releaseConnection();
+                }
+            });
+        }
+
+        /**
+         * Returns true if the result may still be used for the given argument
+         *
+         * @param arg: Argument
+         * @return true if usable, otherwise false
+         */
+        private boolean isFresh(Object arg) {
+            return Objects.equals(this.arg, arg)
+                    && commits == ConnectionManager.getCommitCount()
+                    && System.currentTimeMillis() - created < MAX_AGE;
+        }
+    }
+
+    /**
+     * The prefetched results of each session, by key of the menu they were loaded for.
+     */
+    private static final class State {
+        /**
+         * Maps menu keys to results
+         */
+        private final EnumMap<Key, Prefetch> prefetches = new EnumMap<>(Key.class);
+    }
+
+    /**
+     * Private constructor of Prefetcher
+     */
+    private Prefetcher() {
+    }
+
+    /**
+     * Starts loading the data of a menu in the background, unless it is already loaded or being loaded.
+     * The loader runs outside of the session, so it must not use the session's state: anything it needs
+     * must be read beforehand. Database errors in the loader are only logged, and make the result unusable.
+     *
+     * @param key:    Key of menu the data is loaded for
+     * @param arg:    What the data depends on (such as a customer's email), or null
+     * @param loader: Loads the data
+     */
+    static void prefetch(Key key, Object arg, Supplier<?> loader) {
+        if (!ConnectionManager.isConnected()) return;
+        EnumMap<Key, Prefetch> prefetches = state().prefetches;
+        Prefetch previous = prefetches.get(key);
+        if (previous != null) {
+            if (previous.isFresh(arg)) return;
+            previous.task.cancel(false);
+        }
+
+        Prefetch prefetch = new Prefetch(arg, loader);
+        try {
+            EXECUTOR.execute(prefetch.task);
+            prefetches.put(key, prefetch);
+        } catch (RejectedExecutionException e) {
+            prefetches.remove(key);
+        }
+    }
+
+    /**
+     * Returns the data of a menu, prefetched if possible. If no usable result was prefetched
+     * for the same argument, the data is loaded right away instead.
+     *
+     * @param key:    Key of menu the data is loaded for
+     * @param arg:    What the data depends on, or null
+     * @param loader: Loads the data if it was not prefetched
+     * @param <T>:    Type of data
+     * @return data
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T take(Key key, Object arg, Supplier<T> loader) {
+        Prefetch prefetch = state().prefetches.remove(key);
+        if (prefetch == null) return loader.get();
+
+        // a loader which has not started yet is not worth waiting for
+        if (prefetch.isFresh(arg) && (prefetch.started || !prefetch.task.cancel(false))) {
+            try {
+                Object value = prefetch.task.get(MAX_WAIT, TimeUnit.MILLISECONDS);
+                if (value != null && prefetch.isFresh(arg)) return (T) value;
+            } catch (ExecutionException | TimeoutException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        prefetch.task.cancel(false);
+        return loader.get();
+    }
+
+    /**
+     * Returns the prefetched results of the current session
+     *
+     * @return state
+     */
+    private static State state() {
+        return Session.current().getState(State.class, State::new);
+    }
+}
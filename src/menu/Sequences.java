@@ -3,13 +3,18 @@ package menu;
 import card.Card;
 import card.CardManager;
 import connection.ConnectionManager;
+import connection.DataSourceConfig;
 import constants.Key;
 import database.DBManager;
+import database.TransactionCursor;
 import io.IOManager;
 import location.Address;
 import location.GarageData;
 import location.ServiceLocation;
 import location.ServiceManager;
+import notification.NotificationManager;
+import notification.RecallJob;
+import session.Session;
 import user.User;
 import user.UserManager;
 import vehicle.Condition;
@@ -32,6 +37,11 @@ import java.util.stream.Collectors;
  */
 public class Sequences {
 
+    /**
+     * Number of transactions shown per page of a customer's purchase history
+     */
+    private static final int HISTORY_PAGE_SIZE = 20;
+
     /**
      * Runs the alset login sequence
      * <p>
@@ -52,7 +62,6 @@ public class Sequences {
 
         if (success) {
             User current = UserManager.getCurrent();
-            System.out.println(current.getVehicles().size());//todo remove
 
             // create welcome message
             StringBuilder sb = new StringBuilder("Welcome back, ");
@@ -75,12 +84,32 @@ public class Sequences {
         // clear console
         IOManager.clear();
 
+        // remote sessions share the server's connection, and may not replace it
+        if (Session.current().isRemote()) {
+            if (ConnectionManager.isConnected())
+                MenuManager.showMenu(Key.ALSET_LOGIN_MENU, "Connected to the server's database.");
+            else
+                MenuManager.setNextMessage("The server is not connected to a database.");
+            return;
+        }
+
+        // a configured database (e.g. the embedded one) needs no credentials from the user
+        DataSourceConfig config = ConnectionManager.getConfig();
+        if (config.hasCredentials()) {
+            IOManager.printStatus("Connecting to " + config + "...");
+            if (ConnectionManager.createConfiguredConnection() == null)
+                MenuManager.setNextMessage("Unable to connect to " + config + ".");
+            else
+                MenuManager.showMenu(Key.ALSET_LOGIN_MENU, "Connected successfully as " + config.getUser() + ".");
+            return;
+        }
+
         // Get credentials
         String id = IOManager.getStringInput("Enter your Oracle id for edgar1:");
         String pwd = IOManager.getPasswordInput("Enter your Oracle password for edgar1:");
 
         // Connect to database
-        IOManager.println("Connecting to database...");
+        IOManager.printStatus("Connecting to database...");
         Connection conn = ConnectionManager.createEdgar1Connection(id, pwd);
         if (conn == null)
             MenuManager.setNextMessage("Invalid id/password (make sure are you connected to Lehigh wifi or using the Lehigh VPN)");
@@ -93,7 +122,7 @@ public class Sequences {
      * Begins the Alset logout sequence, which logs the user out of the program.
      */
     static void alsetLogoutSequence() {
-        IOManager.println("Logging out of " + UserManager.getCurrent().getEmail() + "...");
+        IOManager.printStatus("Logging out of " + UserManager.getCurrent().getEmail() + "...");
 
         // Log user out + display login menu
         UserManager.logout();
@@ -105,13 +134,22 @@ public class Sequences {
      */
     static void exitSequence() {
         IOManager.clear();
-        Connection current = ConnectionManager.getCurrentConnection();
-        if (current != null) {
-            IOManager.println("Closing connection...");
+
+        // a remote session ends without closing the shared connection or exiting the server
+        if (Session.current().isRemote()) {
+            IOManager.println("Goodbye.");
+            IOManager.flush();
+            MenuManager.stop();
+            return;
+        }
+
+        if (ConnectionManager.isConnected()) {
+            IOManager.printStatus("Closing connection...");
             boolean closed = ConnectionManager.closeConnection();
             if (!closed) IOManager.println("Error while closing connection.");
         }
         IOManager.println("Exiting...");
+        IOManager.flush();
         System.exit(0);
     }
 
@@ -472,7 +510,7 @@ public class Sequences {
      * Allows a service manager to log out of their service location.
      */
     static void serviceManagerLogoutSequence() {
-        IOManager.println("Logging out of " + ServiceManager.getCurrent().getName() + "...");
+        IOManager.printStatus("Logging out of " + ServiceManager.getCurrent().getName() + "...");
         ServiceManager.logout();
         MenuManager.showMenu(Key.ALSET_LOGIN_MENU, "Successfully logged out.");
     }
@@ -480,10 +518,14 @@ public class Sequences {
     /**
      * Closes the database connection
      * and displays the edgar1 login menu.
+     * <p>
+     * A remote session only lets go of the connection it holds,
+     * since the server's connection is shared with other sessions.
      */
     static void endConnectionSequence() {
-        IOManager.println("Closing Connection...");
-        ConnectionManager.closeConnection();
+        IOManager.printStatus("Closing Connection...");
+        if (Session.current().isRemote()) ConnectionManager.releaseConnection();
+        else ConnectionManager.closeConnection();
         MenuManager.showMenu(Key.EDGAR1_LOGIN_MENU, "Connection Successfully closed.");
     }
 
@@ -698,7 +740,8 @@ public class Sequences {
      */
     public static void purchaseHistorySequence() {
         User current = UserManager.getCurrent();
-        List<String> purchases = DBManager.getTransactionList(current.getEmail());
+        TransactionCursor cursor = new TransactionCursor(current.getEmail(), HISTORY_PAGE_SIZE);
+        List<String> purchases = DBManager.getTransactionPage(cursor);
         if (purchases == null) {
             MenuManager.setNextMessage("Unable to load data, please try again.");
             return;
@@ -707,11 +750,22 @@ public class Sequences {
             MenuManager.setNextMessage("You have made not made any purchases.");
             return;
         }
+
+        // display one page at a time
         IOManager.clear("Vehicle Purchase History:");
-        for (String purchase : purchases) {
-            IOManager.println(purchase);
+        while (true) {
+            for (String purchase : purchases) {
+                IOManager.println(purchase);
+            }
+            IOManager.println();
+            if (cursor.isExhausted()) break;
+            String input = IOManager.getStringInput("Enter 'm' to show more, or any other value to continue:");
+            if (!input.equalsIgnoreCase("m")) return;
+            purchases = DBManager.getTransactionPage(cursor);
+            if (purchases == null) return;
+            if (purchases.isEmpty()) break;
+            IOManager.clear("Vehicle Purchase History (continued):");
         }
-        IOManager.println();
         IOManager.getStringInput("Enter any value to continue:");
     }
 
@@ -1223,6 +1277,10 @@ public class Sequences {
         String apartment = IOManager.getStringInput("Enter apartment:");
 
         Address address = new Address(planet, country, state, city, street, zip, apartment);
+        if (DBManager.getServiceLocationAt(address) != null) {
+            MenuManager.setNextMessage("A service location already exists at that address.");
+            return;
+        }
 
         IOManager.clear("Service location will now be added.");
         IOManager.getStringInput("Enter any value to continue:");
@@ -1310,21 +1368,27 @@ public class Sequences {
         Model model = new Model(VehicleSelections.getYear(), VehicleSelections.getModelName());
         Set<String> options = VehicleSelections.getOptions();
         String message = IOManager.getStringInput("Enter brief recall message to send via email:");
-        Set<String> emails = DBManager.getRecallEmails(model, options);
 
-        if (emails.isEmpty()) {
-            IOManager.clear("No customers currently drive the vehicle + options being recalled, so no notifications were sent.");
-            IOManager.getStringInput("Enter any value to continue:");
-            MenuManager.showMenu(Key.PRODUCT_MANAGER_MENU);
+        // notify recalled customers in the background
+        RecallJob job = NotificationManager.startRecall(model, options, message);
+        IOManager.clear("Recall notifications are being sent in the background.");
+        IOManager.println("Select 'View Recall Progress' to follow recall #" + job.getId() + ".");
+        IOManager.println();
+        IOManager.getStringInput("Enter any value to continue:");
+        MenuManager.showMenu(Key.PRODUCT_MANAGER_MENU);
+    }
+
+    /**
+     * Shows the progress of recent recalls
+     */
+    public static void recallProgressSequence() {
+        List<RecallJob> jobs = NotificationManager.getJobs();
+        if (jobs.isEmpty()) {
+            MenuManager.showMenu(Key.PRODUCT_MANAGER_MENU, "No recalls have been sent yet.");
             return;
         }
-        IOManager.clear("Recall notification has been sent to all the following emails:");
-        for (String email : emails) {
-            IOManager.println("\t- " + email);
-            /*
-                No email actually gets sent here since these are fake emails.
-             */
-        }
+        IOManager.clear("Recent recalls:");
+        for (RecallJob job : jobs) IOManager.println("\t- " + job);
         IOManager.println();
         IOManager.getStringInput("Enter any value to continue:");
         MenuManager.showMenu(Key.PRODUCT_MANAGER_MENU);
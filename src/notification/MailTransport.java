@@ -0,0 +1,21 @@
+package notification;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers email. Recipients are handed over in batches, so that a transport backed by a mail
+ * server or service can submit many messages per request.
+ */
+public interface MailTransport {
+
+    /**
+     * Sends the same message to every recipient of a batch. The batch either succeeds as a whole
+     * or fails as a whole, in which case it may be sent again.
+     *
+     * @param recipients: Email addresses to send to
+     * @param message:    Message to send
+     * @throws IOException if the batch could not be sent
+     */
+    void send(List<String> recipients, String message) throws IOException;
+}
@@ -0,0 +1,81 @@
+package notification;
+
+import vehicle.Model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Starts and keeps track of the notifications sent to customers in the background.
+ * Jobs are shared by every session, so that any product manager can follow a recall's progress.
+ */
+public class NotificationManager {
+
+    /**
+     * Number of worker threads sending each recall
+     */
+    private static final int RECALL_WORKERS = 4;
+
+    /**
+     * Maximum number of jobs remembered, oldest forgotten first
+     */
+    private static final int MAX_JOBS = 20;
+
+    /**
+     * Transport which notifications are sent with
+     */
+    private static volatile MailTransport transport = new StubMailTransport();
+
+    /**
+     * Recent jobs, oldest first
+     */
+    private static final Deque<RecallJob> jobs = new ArrayDeque<>();
+
+    /**
+     * Private constructor of NotificationManager
+     */
+    private NotificationManager() {
+    }
+
+    /**
+     * Starts sending a recall notice to every customer owning the recalled model and options.
+     * Returns right away, while the notices are sent in the background.
+     *
+     * @param model:   Recalled model
+     * @param options: Options a vehicle must all have to be recalled
+     * @param message: Message sent to every customer
+     * @return started job
+     */
+    public static RecallJob startRecall(Model model, Set<String> options, String message) {
+        RecallJob job = new RecallJob(model, options, message, transport);
+        synchronized (jobs) {
+            jobs.addLast(job);
+            if (jobs.size() > MAX_JOBS) jobs.removeFirst();
+        }
+        job.start(RECALL_WORKERS);
+        return job;
+    }
+
+    /**
+     * Returns the recent jobs, oldest first
+     *
+     * @return list of jobs
+     */
+    public static List<RecallJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs);
+        }
+    }
+
+    /**
+     * Sets the transport which notifications are sent with. Jobs already started keep their transport.
+     *
+     * @param mailTransport: Transport to use
+     */
+    public static void setTransport(MailTransport mailTransport) {
+        transport = mailTransport;
+    }
+}
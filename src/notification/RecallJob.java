@@ -0,0 +1,332 @@
+package notification;
+
+import connection.ConnectionManager;
+import database.DBManager;
+import vehicle.Model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends a recall notice to every customer owning the recalled model and options, in the background.
+ * <p>
+ * A reader thread pages through the recipients in the database (see DBManager#getRecallEmails) and
+ * puts them on a bounded queue, blocking while the queue is full, so that no more than QUEUE_CAPACITY
+ * recipients are ever held in memory. Worker threads take recipients off the queue in batches of up to
+ * BATCH_SIZE and hand each batch to the mail transport, retrying a failed batch up to MAX_ATTEMPTS times
+ * with growing delays. Progress can be followed through the job's counters while it runs.
+ */
+public class RecallJob {
+
+    /**
+     * Number of recipients read from the database at a time
+     */
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * Maximum number of recipients waiting to be sent
+     */
+    private static final int QUEUE_CAPACITY = 2000;
+
+    /**
+     * Maximum number of recipients sent to the transport at once
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Number of times a batch is tried before its recipients are counted as failed
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Time (in milliseconds) waited before retrying a batch the first time, doubled for each retry
+     */
+    private static final long RETRY_DELAY = 500;
+
+    /**
+     * Time (in milliseconds) an idle worker waits for recipients before checking whether the job is over
+     */
+    private static final long POLL_TIMEOUT = 100;
+
+    /**
+     * Counter used for numbering jobs
+     */
+    private static final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Number of job
+     */
+    private final long id;
+
+    /**
+     * Recalled model
+     */
+    private final Model model;
+
+    /**
+     * Options a vehicle must all have to be recalled
+     */
+    private final Set<String> options;
+
+    /**
+     * Message sent to every recipient
+     */
+    private final String message;
+
+    /**
+     * Transport sending the messages
+     */
+    private final MailTransport transport;
+
+    /**
+     * Recipients waiting to be sent
+     */
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * Number of recipients read from the database
+     */
+    private final LongAdder found = new LongAdder();
+
+    /**
+     * Number of recipients sent to
+     */
+    private final LongAdder sent = new LongAdder();
+
+    /**
+     * Number of recipients which could not be sent to
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Number of batches retried
+     */
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Number of worker threads still running
+     */
+    private final AtomicInteger workers = new AtomicInteger();
+
+    /**
+     * Whether the reader is still reading recipients
+     */
+    private volatile boolean reading = true;
+
+    /**
+     * Description of the last error, or null if none
+     */
+    private volatile String error = null;
+
+    /**
+     * Time (in milliseconds) the job started
+     */
+    private final long started = System.currentTimeMillis();
+
+    /**
+     * Time (in milliseconds) the job finished, or 0 if still running
+     */
+    private volatile long finished = 0;
+
+    /**
+     * Constructs a new recall job. The job does nothing until started.
+     *
+     * @param model:     Recalled model
+     * @param options:   Options a vehicle must all have to be recalled
+     * @param message:   Message sent to every recipient
+     * @param transport: Transport sending the messages
+     */
+    RecallJob(Model model, Set<String> options, String message, MailTransport transport) {
+        this.id = ids.incrementAndGet();
+        this.model = model;
+        this.options = new HashSet<>(options);
+        this.message = message;
+        this.transport = transport;
+    }
+
+    /**
+     * Starts the reader and the given number of workers, each on its own daemon thread.
+     *
+     * @param workerCount: Number of workers
+     */
+    void start(int workerCount) {
+        workers.set(workerCount);
+        startThread("recall-" + id + "-reader", this::read);
+        for (int i = 1; i <= workerCount; i++) {
+            startThread("recall-" + id + "-worker-" + i, this::work);
+        }
+    }
+
+    /**
+     * Starts a daemon thread
+     *
+     * @param name: Name of thread
+     * @param task: Task run by thread
+     */
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reads every recipient from the database onto the queue, one page at a time.
+     */
+    private void read() {
+        try {
+            String after = null;
+            while (true) {
+                List<String> page = DBManager.getRecallEmails(model, options, after, PAGE_SIZE);
+
+                // give the connection back to the pool while waiting for room on the queue
+                ConnectionManager.releaseConnection();
+                if (page == null) {
+                    error = "Could not read recipients from the database.";
+                    return;
+                }
+                for (String email : page) {
+                    queue.put(email);
+                    found.increment();
+                }
+                if (page.size() < PAGE_SIZE) return;
+                after = page.get(page.size() - 1);
+            }
+        } catch (InterruptedException e) {
+            error = "Interrupted while reading recipients.";
+        } finally {
+            ConnectionManager.releaseConnection();
+            reading = false;
+        }
+    }
+
+    /**
+     * Sends batches of recipients from the queue until the reader is done and the queue is empty.
+     */
+    private void work() {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                String first = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!reading && queue.isEmpty()) return;
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            failed.add(batch.size());
+        } finally {
+            if (workers.decrementAndGet() == 0) finished = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Sends a batch, retrying it if the transport fails.
+     *
+     * @param batch: Recipients to send to
+     * @throws InterruptedException if interrupted while waiting to retry
+     */
+    private void send(List<String> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transport.send(batch, message);
+                sent.add(batch.size());
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    failed.add(batch.size());
+                    error = "Could not send " + batch.size() + " notifications: " + e.getMessage();
+                    return;
+                }
+                retries.increment();
+                Thread.sleep(RETRY_DELAY << (attempt - 1));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the job
+     *
+     * @return job number
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the number of recipients read from the database so far
+     *
+     * @return recipients found
+     */
+    public long getFound() {
+        return found.sum();
+    }
+
+    /**
+     * Returns the number of recipients sent to so far
+     *
+     * @return recipients sent to
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Returns the number of recipients which could not be sent to
+     *
+     * @return recipients failed
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the number of batches retried
+     *
+     * @return retries
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Returns true once every recipient has been sent to or has failed
+     *
+     * @return true if finished, otherwise false
+     */
+    public boolean isFinished() {
+        return finished != 0;
+    }
+
+    /**
+     * Returns a one-line summary of the job's progress
+     *
+     * @return summary
+     */
+    @Override
+    public String toString() {
+        long end = isFinished() ? finished : System.currentTimeMillis();
+        String state = isFinished() ? "finished" : reading ? "running" : "sending";
+        StringBuilder sb = new StringBuilder();
+        sb.append("Recall #").append(id).append(" (").append(model.getYear()).append(' ').append(model.getName());
+        if (!options.isEmpty()) sb.append(" with ").append(String.join(", ", options));
+        sb.append("): ").append(getSent()).append(" of ").append(getFound()).append(reading ? "+" : "")
+                .append(" sent, ").append(getFailed()).append(" failed, ").append(getRetries()).append(" retries, ")
+                .append(state).append(" for ").append((end - started) / 1000).append("s");
+        String e = error;
+        if (e != null) sb.append(" - ").append(e);
+        return sb.toString();
+    }
+}
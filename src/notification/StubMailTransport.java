@@ -0,0 +1,17 @@
+package notification;
+
+import user.UserManager;
+
+import java.util.List;
+
+/**
+ * Mail transport used unless another one is set: hands every recipient to UserManager#sendEmail,
+ * which stands in for sending real email.
+ */
+public class StubMailTransport implements MailTransport {
+
+    @Override
+    public void send(List<String> recipients, String message) {
+        for (String email : recipients) UserManager.sendEmail(email, message);
+    }
+}
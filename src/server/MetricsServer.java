@@ -0,0 +1,69 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import connection.QueryMetrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the program's query metrics (see connection.QueryMetrics) over HTTP, at /metrics,
+ * in the Prometheus text format. The server runs on a background thread, next to the
+ * console or the terminal server.
+ */
+public class MetricsServer {
+
+    /**
+     * Underlying HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * Constructs a new metrics server
+     *
+     * @param port: Port to serve on
+     * @throws IOException if the port could not be opened
+     */
+    public MetricsServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", MetricsServer::handle);
+    }
+
+    /**
+     * Starts serving in the background
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * Answers a request for the metrics
+     *
+     * @param exchange: Request and its response
+     * @throws IOException if the response could not be sent
+     */
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (HttpExchange e = exchange) {
+            if (!e.getRequestMethod().equals("GET")) {
+                e.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = QueryMetrics.dump().getBytes(StandardCharsets.UTF_8);
+            e.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            e.sendResponseHeaders(200, body.length);
+            try (OutputStream out = e.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
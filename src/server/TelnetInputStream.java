@@ -0,0 +1,172 @@
+package server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input from a telnet client, with the client's protocol commands removed.
+ * <p>
+ * Telnet clients mix option negotiation (such as their answer to a request to stop echoing)
+ * into what the user types. Only the typed bytes are passed on, so the session's scanner sees
+ * the same input as it would from a console. Plain TCP clients such as netcat never send
+ * commands, and pass through unchanged.
+ */
+public class TelnetInputStream extends FilterInputStream {
+
+    /**
+     * Interpret As Command, starts every telnet command
+     */
+    private static final int IAC = 255;
+
+    /**
+     * Starts an option subnegotiation, which runs until IAC SE
+     */
+    private static final int SB = 250;
+
+    /**
+     * Ends an option subnegotiation
+     */
+    private static final int SE = 240;
+
+    /**
+     * First of the commands which are followed by an option byte (WILL, WONT, DO, DONT)
+     */
+    private static final int WILL = 251;
+
+    /**
+     * Last of the commands which are followed by an option byte
+     */
+    private static final int DONT = 254;
+
+    /**
+     * Parser state: reading typed bytes
+     */
+    private static final int DATA = 0;
+
+    /**
+     * Parser state: read IAC, expecting a command
+     */
+    private static final int COMMAND = 1;
+
+    /**
+     * Parser state: read WILL/WONT/DO/DONT, expecting an option byte
+     */
+    private static final int OPTION = 2;
+
+    /**
+     * Parser state: inside a subnegotiation
+     */
+    private static final int SUBNEGOTIATION = 3;
+
+    /**
+     * Parser state: read IAC inside a subnegotiation
+     */
+    private static final int SUBNEGOTIATION_IAC = 4;
+
+    /**
+     * Current parser state. Commands may be split across reads, so it is kept between them.
+     */
+    private int state = DATA;
+
+    /**
+     * Constructs a new TelnetInputStream
+     *
+     * @param in: Stream received from the client
+     */
+    public TelnetInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Reads the next typed byte, skipping over any telnet commands.
+     *
+     * @return byte read, or -1 at the end of the stream
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xff;
+    }
+
+    /**
+     * Reads typed bytes into an array, skipping over any telnet commands. Blocks until at
+     * least one typed byte is available.
+     *
+     * @param b:   Array to read into
+     * @param off: Offset to start writing at
+     * @param len: Maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of the stream
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (true) {
+            int n = in.read(b, off, len);
+            if (n == -1) return -1;
+            int kept = filter(b, off, n);
+            if (kept > 0) return kept;
+        }
+    }
+
+    /**
+     * Removes telnet commands from bytes received, moving the typed bytes to the front.
+     *
+     * @param b:   Array holding the bytes
+     * @param off: Offset of first byte
+     * @param len: Number of bytes received
+     * @return number of typed bytes
+     */
+    private int filter(byte[] b, int off, int len) {
+        int kept = 0;
+        for (int i = off; i < off + len; i++) {
+            int c = b[i] & 0xff;
+            switch (state) {
+                case DATA:
+                    if (c == IAC) state = COMMAND;
+                    else if (c != 0) b[off + kept++] = (byte) c; // telnet sends a carriage return as CR NUL
+                    break;
+                case COMMAND:
+                    if (c == IAC) {
+                        // an escaped 255 data byte
+                        b[off + kept++] = (byte) c;
+                        state = DATA;
+                    } else if (c >= WILL && c <= DONT) state = OPTION;
+                    else if (c == SB) state = SUBNEGOTIATION;
+                    else state = DATA;
+                    break;
+                case OPTION:
+                    state = DATA;
+                    break;
+                case SUBNEGOTIATION:
+                    if (c == IAC) state = SUBNEGOTIATION_IAC;
+                    break;
+                default:
+                    state = c == SE ? DATA : SUBNEGOTIATION;
+                    break;
+            }
+        }
+        return kept;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && read() != -1) skipped++;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        // typed bytes cannot be told apart from commands without reading them
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
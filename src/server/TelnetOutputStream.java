@@ -0,0 +1,43 @@
+package server;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output to a telnet client. Line feeds are sent as CR LF, which telnet terminals need to
+ * return to the start of the line. Everything else, including telnet commands sent to the
+ * client, passes through unchanged.
+ */
+public class TelnetOutputStream extends FilterOutputStream {
+
+    /**
+     * Constructs a new TelnetOutputStream
+     *
+     * @param out: Stream sent to the client
+     */
+    public TelnetOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (b == '\n') out.write('\r');
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int start = off;
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (b[i] != '\n') continue;
+
+            // write everything up to the line feed in one go
+            out.write(b, start, i - start);
+            out.write('\r');
+            start = i;
+        }
+        out.write(b, start, end - start);
+    }
+}
@@ -0,0 +1,136 @@
+package server;
+
+import constants.Key;
+import menu.MenuInitializer;
+import menu.MenuManager;
+import session.Session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the Alset CLI to telnet (or any plain TCP) clients.
+ * <p>
+ * Every client gets its own session, run through the regular menus and sequences on its own
+ * thread. Virtual threads are used when the Java runtime provides them, so that a waiting
+ * terminal costs next to nothing; otherwise sessions fall back to platform threads. All sessions
+ * share the program's caches and database connection pool, which must be connected before the
+ * server is started.
+ */
+public class TerminalServer {
+
+    /**
+     * Port which clients connect to
+     */
+    private final int port;
+
+    /**
+     * Runs the sessions
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Number of sessions currently being served
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Constructs a new terminal server
+     *
+     * @param port: Port which clients connect to
+     */
+    public TerminalServer(int port) {
+        this.port = port;
+        this.executor = createExecutor();
+    }
+
+    /**
+     * Accepts clients until the program is stopped.
+     *
+     * @throws IOException if the port could not be opened
+     */
+    public void run() throws IOException {
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.println("Serving Alset on port " + port + ".");
+            while (true) {
+                Socket socket = server.accept();
+                try {
+                    executor.execute(() -> serve(socket));
+                } catch (RuntimeException e) {
+                    socket.close();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a session for a client, and closes the client's connection once the session ends.
+     *
+     * @param socket: Client's connection
+     */
+    private void serve(Socket socket) {
+        String client = String.valueOf(socket.getRemoteSocketAddress());
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            Session session = new Session(
+                    new TelnetInputStream(new BufferedInputStream(s.getInputStream())),
+                    new TelnetOutputStream(new BufferedOutputStream(s.getOutputStream())),
+                    true
+            );
+            System.out.println(session + " started for " + client + " (" + active.incrementAndGet() + " active).");
+            try {
+                session.run(() -> {
+                    MenuInitializer.initializeMenus();
+                    MenuManager.showMenu(Key.ALSET_LOGIN_MENU, "Welcome to Alset.");
+                });
+            } catch (NoSuchElementException e) {
+                // the client disconnected while being asked for input
+            } catch (RuntimeException e) {
+                System.out.println(session + " failed: " + e);
+            } finally {
+                System.out.println(session + " ended (" + active.decrementAndGet() + " active).");
+            }
+        } catch (IOException e) {
+            System.out.println("Could not serve " + client + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of sessions currently being served
+     *
+     * @return active sessions
+     */
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    /**
+     * Creates the executor which runs sessions. A virtual thread per session is used if the
+     * Java runtime supports it, and a cached pool of daemon threads otherwise.
+     *
+     * @return executor
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "alset-session-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package session;
+
+import connection.ConnectionManager;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A single user's session with the program.
+ * <p>
+ * A session owns everything which used to be process-wide: the logged in user, the service
+ * location being managed, the selected card and vehicle selections, the menus and their history,
+ * and the console the user is typing into. Each manager keeps its fields in a state object held
+ * by the session, so any number of sessions can run side by side in one program, each on its own
+ * thread, while sharing the pooled database layer.
+ * <p>
+ * A session is bound to the thread running it, and the managers look their state up through
+ * Session#current(). This keeps the existing static calls (UserManager.getCurrent(),
+ * MenuManager.showMenu(Key), ...) working unchanged from any sequence or menu action.
+ */
+public class Session {
+
+    /**
+     * Used for numbering sessions
+     */
+    private static final AtomicLong ids = new AtomicLong();
+
+    /**
+     * The session bound to each thread
+     */
+    private static final ThreadLocal<Session> bound = new ThreadLocal<>();
+
+    /**
+     * ID of session
+     */
+    private final long id;
+
+    /**
+     * Stream the user's input is read from
+     */
+    private final InputStream input;
+
+    /**
+     * Stream the program's output is written to
+     */
+    private final OutputStream output;
+
+    /**
+     * Whether the session is served over the network rather than on the program's own console
+     */
+    private final boolean remote;
+
+    /**
+     * Maps the type of each manager's state to the session's instance of it
+     */
+    private final HashMap<Class<?>, Object> states = new HashMap<>();
+
+    /**
+     * Constructs a new session
+     *
+     * @param input:  Stream the user's input is read from
+     * @param output: Stream the program's output is written to
+     */
+    public Session(InputStream input, OutputStream output) {
+        this(input, output, false);
+    }
+
+    /**
+     * Constructs a new session
+     *
+     * @param input:  Stream the user's input is read from
+     * @param output: Stream the program's output is written to
+     * @param remote: Whether the session is served over the network
+     */
+    public Session(InputStream input, OutputStream output, boolean remote) {
+        this.id = ids.incrementAndGet();
+        this.input = input;
+        this.output = output;
+        this.remote = remote;
+    }
+
+    /**
+     * Returns the session bound to the current thread
+     *
+     * @return current session
+     * @throws IllegalStateException if no session is bound to the current thread
+     */
+    public static Session current() throws IllegalStateException {
+        Session session = bound.get();
+        if (session == null) throw new IllegalStateException("No session is bound to this thread.");
+        return session;
+    }
+
+    /**
+     * Returns true if a session is bound to the current thread
+     *
+     * @return true if bound, otherwise false
+     */
+    public static boolean isBound() {
+        return bound.get() != null;
+    }
+
+    /**
+     * Runs a task with this session bound to the current thread. Once the task is done,
+     * the session is unbound and any database connection the thread still holds is released.
+     *
+     * @param task: Task to run
+     */
+    public void run(Runnable task) {
+        Session previous = bound.get();
+        bound.set(this);
+        try {
+            task.run();
+        } finally {
+            ConnectionManager.releaseConnection();
+            if (previous == null) bound.remove();
+            else bound.set(previous);
+        }
+    }
+
+    /**
+     * Returns the session's instance of a state, creating it if the session does not have one yet.
+     *
+     * @param type:    Type of state
+     * @param factory: Creates the state
+     * @param <T>:     Type of state
+     * @return state
+     */
+    public <T> T getState(Class<T> type, Supplier<T> factory) {
+        Object state = states.get(type);
+        if (state == null) {
+            state = factory.get();
+            states.put(type, state);
+        }
+        return type.cast(state);
+    }
+
+    /**
+     * Returns the ID of the session
+     *
+     * @return id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the stream the user's input is read from
+     *
+     * @return input stream
+     */
+    public InputStream getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the stream the program's output is written to
+     *
+     * @return output stream
+     */
+    public OutputStream getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns true if the session is served over the network. A remote session shares the
+     * program's database connection pool with other sessions, and ends without exiting the program.
+     *
+     * @return true if remote, otherwise false
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    @Override
+    public String toString() {
+        return "Session #" + id;
+    }
+}
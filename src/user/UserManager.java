@@ -1,6 +1,7 @@
 package user;
 
 import database.DBManager;
+import session.Session;
 import vehicle.Vehicle;
 
 import java.util.HashSet;
@@ -12,9 +13,14 @@ import java.util.Set;
 public class UserManager {
 
     /**
-     * User currently logged into the program
+     * The user data held by each session
      */
-    private static User current = null;
+    private static final class State {
+        /**
+         * User currently logged into the session
+         */
+        private User current = null;
+    }
 
     /**
      * Returns the user currently logged into the program
@@ -22,7 +28,7 @@ public class UserManager {
      * @return user currently logged in
      */
     public static User getCurrent() {
-        return current;
+        return state().current;
     }
 
     /**
@@ -51,7 +57,7 @@ public class UserManager {
             if (name == null || vehicles == null) {
                 return false;
             } else {
-                current = new User(name[0], name[1], name[2], email, password, vehicles);
+                state().current = new User(name[0], name[1], name[2], email, password, vehicles);
                 return true;
             }
         } else {
@@ -68,11 +74,21 @@ public class UserManager {
      * @return False if the user was already logged out, otherwise true.
      */
     public static boolean logout() {
-        if (current == null) return false;
-        current = null;
+        State state = state();
+        if (state.current == null) return false;
+        state.current = null;
         return true;
     }
 
+    /**
+     * Returns the user data of the current session
+     *
+     * @return state
+     */
+    private static State state() {
+        return Session.current().getState(State.class, State::new);
+    }
+
     /**
      * Sends a message to the given email address via email
      * @param email: Email to send to
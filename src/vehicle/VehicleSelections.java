@@ -1,6 +1,7 @@
 package vehicle;
 
 import location.ServiceLocation;
+import session.Session;
 
 import java.util.HashSet;
 
@@ -9,24 +10,29 @@ import java.util.HashSet;
  */
 public class VehicleSelections {
     /**
-     * Model currently selected
+     * The selections held by each session
      */
-    private static String model = null;
+    private static final class State {
+        /**
+         * Model currently selected
+         */
+        private String model = null;
 
-    /**
-     * Year currently selected
-     */
-    private static Integer year = null;
+        /**
+         * Year currently selected
+         */
+        private Integer year = null;
 
-    /**
-     * Vehicle options currently selected
-     */
-    private static HashSet<String> options = new HashSet<>();
+        /**
+         * Vehicle options currently selected
+         */
+        private HashSet<String> options = new HashSet<>();
 
-    /**
-     * Location currently selected
-     */
-    private static ServiceLocation location = null;
+        /**
+         * Location currently selected
+         */
+        private ServiceLocation location = null;
+    }
 
     /**
      * Gets the model name that is currently selected
@@ -34,7 +40,7 @@ public class VehicleSelections {
      * @return model name
      */
     public static String getModelName() {
-        return model;
+        return state().model;
     }
 
     /**
@@ -43,7 +49,7 @@ public class VehicleSelections {
      * @return service location
      */
     public static ServiceLocation getLocation() {
-        return location;
+        return state().location;
     }
 
     /**
@@ -52,7 +58,7 @@ public class VehicleSelections {
      * @param location: New service location
      */
     public static void setLocation(ServiceLocation location) {
-        VehicleSelections.location = location;
+        state().location = location;
     }
 
     /**
@@ -61,7 +67,7 @@ public class VehicleSelections {
      * @return year selected
      */
     public static Integer getYear() {
-        return year;
+        return state().year;
     }
 
     /**
@@ -70,7 +76,7 @@ public class VehicleSelections {
      * @return selected options
      */
     public static HashSet<String> getOptions() {
-        return new HashSet<>(options);
+        return new HashSet<>(state().options);
     }
 
     /**
@@ -79,7 +85,7 @@ public class VehicleSelections {
      * @param model: model name
      */
     public static void setModel(String model) {
-        VehicleSelections.model = model;
+        state().model = model;
     }
 
     /**
@@ -88,7 +94,7 @@ public class VehicleSelections {
      * @param year: model year
      */
     public static void setYear(int year) {
-        VehicleSelections.year = year;
+        state().year = year;
     }
 
     /**
@@ -97,15 +103,25 @@ public class VehicleSelections {
      * @param string: New option
      */
     public static void addCustomOption(String string) {
-        options.add(string);
+        state().options.add(string);
     }
 
     /**
      * Resets all selected values to null / empty
      */
     public static void reset() {
-        model = null;
-        year = null;
-        options = new HashSet<>();
+        State state = state();
+        state.model = null;
+        state.year = null;
+        state.options = new HashSet<>();
+    }
+
+    /**
+     * Returns the selections of the current session
+     *
+     * @return state
+     */
+    private static State state() {
+        return Session.current().getState(State.class, State::new);
     }
 }